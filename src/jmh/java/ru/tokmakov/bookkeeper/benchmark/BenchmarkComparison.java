@@ -0,0 +1,76 @@
+package ru.tokmakov.bookkeeper.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Сравнение двух результатов JMH в формате JSON ({@code -rf json}): базового и текущего.
+ * Для каждого бенчмарка с одинаковыми параметрами печатает обе оценки и изменение в процентах.
+ * Изменение помечается, только если интервалы погрешности результатов не пересекаются.
+ * <p>
+ * Запуск: {@code BenchmarkComparison baseline.json target/jmh-result.json}.
+ */
+public class BenchmarkComparison {
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json>");
+            System.exit(2);
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = results(objectMapper.readTree(new File(args[0])));
+        Map<String, JsonNode> current = results(objectMapper.readTree(new File(args[1])));
+
+        System.out.printf("%-70s %14s %14s %9s  %s%n", "Benchmark", "Baseline", "Current", "Change", "Unit");
+        current.forEach((name, result) -> {
+            JsonNode metric = result.get("primaryMetric");
+            JsonNode baselineResult = baseline.get(name);
+            if (baselineResult == null) {
+                System.out.printf("%-70s %14s %14.3f %9s  %s%n", name, "-", metric.get("score").asDouble(), "new",
+                        metric.get("scoreUnit").asText());
+                return;
+            }
+
+            JsonNode baselineMetric = baselineResult.get("primaryMetric");
+            double before = baselineMetric.get("score").asDouble();
+            double after = metric.get("score").asDouble();
+            double change = (after - before) / before * 100;
+            boolean significant = Math.abs(after - before) > error(baselineMetric) + error(metric);
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%%  %s%s%n", name, before, after, change,
+                    metric.get("scoreUnit").asText(), significant ? "  *" : "");
+        });
+        baseline.keySet().stream()
+                .filter(name -> !current.containsKey(name))
+                .forEach(name -> System.out.printf("%-70s %14s %14s %9s%n", name, "", "-", "removed"));
+        System.out.println("* - difference exceeds the combined score error");
+    }
+
+    private static Map<String, JsonNode> results(JsonNode root) {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : root) {
+            StringBuilder name = new StringBuilder(result.get("benchmark").asText()
+                    .replace("ru.tokmakov.bookkeeper.benchmark.", ""));
+            JsonNode params = result.get("params");
+            if (params != null) {
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    name.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+                }
+            }
+            results.put(name.toString(), result);
+        }
+        return results;
+    }
+
+    private static double error(JsonNode metric) {
+        double error = metric.get("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+}
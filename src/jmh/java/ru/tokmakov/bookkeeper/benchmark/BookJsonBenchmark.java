@@ -0,0 +1,86 @@
+package ru.tokmakov.bookkeeper.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookPageDto;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кодирование книг в JSON тем же {@link ObjectMapper}, что строит Spring для HTTP-ответов:
+ * одна книга, страница {@link BookPageDto} и большой список, как при выгрузке каталога.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookJsonBenchmark {
+    private ObjectWriter writer;
+    private BookDto book;
+    private BookPageDto page;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writer();
+        book = books(1).get(0);
+        page = new BookPageDto(books(100), "cursor");
+    }
+
+    @Benchmark
+    public byte[] writeBook() throws JsonProcessingException {
+        return writer.writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public byte[] writePage() throws JsonProcessingException {
+        return writer.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] writeList(BookList list) throws JsonProcessingException {
+        return writer.writeValueAsBytes(list.books);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BookList {
+        @Param({"1000", "100000"})
+        private int size;
+
+        private List<BookDto> books;
+
+        @Setup
+        public void setUp() {
+            books = books(size);
+        }
+    }
+
+    private static List<BookDto> books(int size) {
+        Instant updatedAt = Instant.parse("2024-01-01T00:00:00Z");
+        List<BookDto> books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            books.add(new BookDto((long) i, "Title " + i, "Author " + i % 100, "Genre " + i % 10, 0L,
+                    updatedAt.plusSeconds(i)));
+        }
+        return books;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.tokmakov.bookkeeper.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookMapper;
+import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.model.Book;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразования {@link BookMapper} между сущностью и DTO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookMapperBenchmark {
+    private Book book;
+    private BookSaveDto bookSaveDto;
+
+    @Setup
+    public void setUp() {
+        book = new Book();
+        book.setId(42L);
+        book.setTitle("Война и мир");
+        book.setAuthor("Лев Толстой");
+        book.setGenre("Роман");
+        book.setVersion(3L);
+        book.setUpdatedAt(Instant.parse("2024-01-01T00:00:00Z"));
+
+        bookSaveDto = new BookSaveDto();
+        bookSaveDto.setTitle(book.getTitle());
+        bookSaveDto.setAuthor(book.getAuthor());
+        bookSaveDto.setGenre(book.getGenre());
+    }
+
+    @Benchmark
+    public BookDto bookToBookDto() {
+        return BookMapper.bookToBookDto(book);
+    }
+
+    @Benchmark
+    public Book bookSaveDtoToBook() {
+        return BookMapper.bookSaveDtoToBook(bookSaveDto);
+    }
+}
@@ -0,0 +1,119 @@
+package ru.tokmakov.bookkeeper.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.tokmakov.bookkeeper.BookKeeperApplication;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookFilterDto;
+import ru.tokmakov.bookkeeper.dto.BookLookupResultDto;
+import ru.tokmakov.bookkeeper.dto.BookPageDto;
+import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.dto.BookUpdateDto;
+import ru.tokmakov.bookkeeper.service.BookService;
+import ru.tokmakov.bookkeeper.service.BookServiceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Вызовы {@link BookService} на горячих путях чтения и записи поверх H2 в памяти (профиль {@code test}).
+ * Контекст приложения поднимается без веб-сервера один раз на форк, каталог заполняется {@code rows} книгами.
+ * Измеряется сервисный слой вместе с кэшем, JPA и базой, но без HTTP и сериализации.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+    private static final int LOOKUP_SIZE = 100;
+
+    @Param({"10000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private List<Long> ids;
+    private List<Long> lookupIds;
+    private BookFilterDto authorFilter;
+    private BookUpdateDto genreUpdate;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookKeeperApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--logging.level.root=WARN");
+        bookService = context.getBean(BookService.class);
+
+        ids = new ArrayList<>(rows);
+        for (int start = 0; start < rows; start += BookServiceImpl.MAX_BATCH_SIZE) {
+            List<BookSaveDto> batch = new ArrayList<>();
+            for (int i = start; i < Math.min(rows, start + BookServiceImpl.MAX_BATCH_SIZE); i++) {
+                BookSaveDto bookSaveDto = new BookSaveDto();
+                bookSaveDto.setTitle("Title " + i);
+                bookSaveDto.setAuthor("Author " + i % 100);
+                bookSaveDto.setGenre("Genre " + i % 10);
+                batch.add(bookSaveDto);
+            }
+            bookService.saveBooks(batch).getBooks().forEach(bookDto -> ids.add(bookDto.getId()));
+        }
+        lookupIds = ids.subList(0, Math.min(rows, LOOKUP_SIZE));
+
+        authorFilter = new BookFilterDto();
+        authorFilter.setAuthor("Author 7");
+
+        genreUpdate = new BookUpdateDto();
+        genreUpdate.setGenre("Genre updated");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookDto findBookById() {
+        return bookService.findBookById(randomId());
+    }
+
+    @Benchmark
+    public BookPageDto findAllBooks() {
+        return bookService.findAllBooks(new BookFilterDto(), "id", "asc", 20);
+    }
+
+    @Benchmark
+    public BookPageDto findAllBooksByAuthorSortedByTitle() {
+        return bookService.findAllBooks(authorFilter, "title", "desc", BookServiceImpl.MAX_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public BookLookupResultDto findBooksByIds() {
+        return bookService.findBooksByIds(lookupIds);
+    }
+
+    @Benchmark
+    public BookDto updateBook() {
+        return bookService.updateBook(randomId(), null, genreUpdate);
+    }
+
+    private Long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
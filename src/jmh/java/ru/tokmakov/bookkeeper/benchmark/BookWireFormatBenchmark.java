@@ -0,0 +1,100 @@
+package ru.tokmakov.bookkeeper.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.format.BookFormats;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Размер и стоимость кодирования списков книг в JSON, CBOR и Smile, без сжатия и со сжатием gzip,
+ * как его выполняет сервер для ответов больше порога. Размеры ответов выводятся при подготовке бенчмарка.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookWireFormatBenchmark {
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<BookDto> books;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        ObjectMapper mapper = switch (format) {
+            case "cbor" -> BookFormats.cborMapper(objectMapper);
+            case "smile" -> BookFormats.smileMapper(objectMapper);
+            default -> objectMapper;
+        };
+        writer = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, BookDto.class));
+        reader = mapper.readerFor(writer.getConfig().getTypeFactory()
+                .constructCollectionType(List.class, BookDto.class));
+        books = books(size);
+        encoded = writer.writeValueAsBytes(books);
+
+        System.out.printf("%n%s, %d books: %d bytes, %d bytes gzip%n", format, size, encoded.length, gzip(encoded).length);
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        return writer.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] writeGzip() throws IOException {
+        return gzip(writer.writeValueAsBytes(books));
+    }
+
+    @Benchmark
+    public List<BookDto> read() throws IOException {
+        return reader.readValue(encoded);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream output = new GZIPOutputStream(buffer)) {
+            output.write(bytes);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static List<BookDto> books(int size) {
+        Instant updatedAt = Instant.parse("2024-01-01T00:00:00Z");
+        List<BookDto> books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            books.add(new BookDto((long) i, "Title " + i, "Author " + i % 100, "Genre " + i % 10, 0L,
+                    updatedAt.plusSeconds(i)));
+        }
+        return books;
+    }
+}
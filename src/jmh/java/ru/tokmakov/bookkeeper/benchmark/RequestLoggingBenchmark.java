@@ -0,0 +1,126 @@
+package ru.tokmakov.bookkeeper.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.logging.RequestLogProperties;
+import ru.tokmakov.bookkeeper.logging.RequestLogger;
+
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость журнала для потока запроса на примере {@code GET /books/{id}}.
+ * {@code perCallInfo} повторяет прежние строки INFO контроллера и сервиса с выводом {@link BookDto},
+ * {@code requestLine} и {@code sampledRequestLine} — одну строку {@link RequestLogger} без выборки и с долей 10%.
+ * Журнал пишется в пустой поток синхронно или через {@link AsyncAppender}, как в {@code logback-spring.xml}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RequestLoggingBenchmark {
+    private static final org.slf4j.Logger controllerLog = LoggerFactory.getLogger("ru.tokmakov.bookkeeper.controller.BookController");
+    private static final org.slf4j.Logger serviceLog = LoggerFactory.getLogger("ru.tokmakov.bookkeeper.service.BookServiceImpl");
+
+    @Param({"sync", "async"})
+    private String appender;
+
+    private Appender<ILoggingEvent> rootAppender;
+    private RequestLogger requestLogger;
+    private RequestLogger sampledRequestLogger;
+    private BookDto bookDto;
+
+    @Setup
+    public void setUp() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p %pid --- [%t] %-40.40logger{39} : %m%n");
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> output = new OutputStreamAppender<>();
+        output.setContext(context);
+        output.setEncoder(encoder);
+        output.setOutputStream(OutputStream.nullOutputStream());
+        output.start();
+
+        if ("async".equals(appender)) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setDiscardingThreshold(0);
+            async.setNeverBlock(true);
+            async.addAppender(output);
+            async.start();
+            rootAppender = async;
+        } else {
+            rootAppender = output;
+        }
+
+        Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(rootAppender);
+
+        requestLogger = new RequestLogger(new RequestLogProperties());
+        RequestLogProperties sampled = new RequestLogProperties();
+        sampled.setSampleRate(0.1);
+        sampledRequestLogger = new RequestLogger(sampled);
+
+        bookDto = new BookDto(42L, "Война и мир", "Лев Толстой", "Роман", 3L, Instant.parse("2024-01-01T00:00:00Z"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        rootAppender.stop();
+    }
+
+    @Benchmark
+    public void perCallInfo() {
+        Long bookId = bookDto.getId();
+        controllerLog.info("GET /books/{} - Request received", bookId);
+        serviceLog.info("Attempting to find book with id: {}", bookId);
+        serviceLog.info("Successfully found book: {}", bookDto);
+        controllerLog.info("GET /books/{} - Response: {}", bookId, bookDto);
+    }
+
+    @Benchmark
+    public void requestLine() {
+        controllerLog.debug("GET /books/{} - Request received", bookDto.getId());
+        serviceLog.debug("Successfully found book: {}", bookDto);
+        requestLogger.log("GET", "/books/42", 200, 1_200_000);
+    }
+
+    @Benchmark
+    public void sampledRequestLine() {
+        controllerLog.debug("GET /books/{} - Request received", bookDto.getId());
+        serviceLog.debug("Successfully found book: {}", bookDto);
+        sampledRequestLogger.log("GET", "/books/42", 200, 1_200_000);
+    }
+}
@@ -0,0 +1,138 @@
+package ru.tokmakov.bookkeeper.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.tokmakov.bookkeeper.datasource.ReplicaReads;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.event.BookChangedEvent;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Локальный кэш книг по идентификатору с ограничением размера и времени жизни.
+ * Записи инвалидируются после фиксации транзакции, изменившей книгу, на этом узле
+ * и через {@link CacheInvalidationTransport} на остальных узлах.
+ * Одновременные промахи по одной книге объединяются через {@link SingleFlight}; загрузка, начатая до инвалидации,
+ * возвращает результат своим вызовам, но не попадает в кэш. Книга, прочитанная с реплики в течение
+ * {@code replica-lag} после ее изменения ({@link ReplicaReads}), тоже не сохраняется: реплика может еще не видеть
+ * изменение, вызвавшее инвалидацию.
+ * Статистика кэша публикуется в метриках {@code cache.*} с тегом {@code cache=books}.
+ */
+@Slf4j
+@Component
+public class BookCache implements MeterBinder {
+    public static final String CACHE_NAME = "books";
+
+    private final Cache<Long, BookDto> cache;
+    private final SingleFlight<Long, BookDto> loads = new SingleFlight<>();
+    private final RecentChanges recentChanges;
+    private final CacheInvalidationTransport transport;
+
+    public BookCache(BookCacheProperties properties, CacheInvalidationTransport transport) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        this.recentChanges = new RecentChanges(properties.getReplicaLag());
+        this.transport = transport;
+        transport.subscribe(this::invalidate);
+    }
+
+    /**
+     * Получение книги из кэша или загрузка при отсутствии.
+     * Одновременные загрузки одной книги выполняются один раз, без блокировок на время загрузки.
+     *
+     * @param bookId идентификатор книги.
+     * @param loader загрузчик книги; исключение загрузчика передается всем ожидающим, в кэш ничего не попадает.
+     * @return книга в формате {@link BookDto}.
+     */
+    public BookDto get(Long bookId, Function<Long, BookDto> loader) {
+        BookDto cached = cache.getIfPresent(bookId);
+        if (cached != null)
+            return cached;
+
+        return loads.execute(bookId, id -> {
+            long generation = loads.generation(id);
+            ReplicaReads.Result<BookDto> loaded = ReplicaReads.track(() -> loader.apply(id));
+            if (!loaded.fromReplica() || !recentChanges.isRecent(id))
+                cache.asMap().compute(id, (key, current) -> loads.isCurrent(key, generation) ? loaded.value() : current);
+            return loaded.value();
+        });
+    }
+
+    /**
+     * Получение книги из кэша без загрузки.
+     *
+     * @param bookId идентификатор книги.
+     * @return книга в формате {@link BookDto} или {@code null}, если ее нет в кэше.
+     */
+    public BookDto getIfPresent(Long bookId) {
+        return cache.getIfPresent(bookId);
+    }
+
+    /**
+     * Получение всех книг из списка, которые есть в кэше, без загрузки остальных.
+     *
+     * @param bookIds идентификаторы книг.
+     * @return найденные в кэше книги по идентификатору.
+     */
+    public Map<Long, BookDto> getAllPresent(Collection<Long> bookIds) {
+        return cache.getAllPresent(bookIds);
+    }
+
+    /**
+     * Удаление книги из кэша на всех узлах.
+     *
+     * @param bookId идентификатор книги.
+     */
+    public void evict(Long bookId) {
+        invalidate(bookId);
+        transport.publish(bookId);
+    }
+
+    /**
+     * Число загрузок, выполняющихся в данный момент.
+     */
+    public int loadsInFlight() {
+        return loads.inFlight();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+        Gauge.builder("book-keeper.cache.loads.in-flight", this, BookCache::loadsInFlight)
+                .description("Book loads currently in progress")
+                .register(registry);
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        log.debug("Evicting book with ID: {} after {}", event.bookId(), event.type());
+        evict(event.bookId());
+    }
+
+    /**
+     * Поколение увеличивается до удаления записи: загрузка, успевшая проверить поколение раньше,
+     * записывает книгу под той же блокировкой ключа, что и удаление, и запись будет удалена следом.
+     */
+    private void invalidate(Long bookId) {
+        recentChanges.record(bookId);
+        loads.fence(bookId);
+        cache.invalidate(bookId);
+    }
+}
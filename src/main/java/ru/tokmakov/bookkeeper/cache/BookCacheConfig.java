@@ -0,0 +1,20 @@
+package ru.tokmakov.bookkeeper.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(BookCacheProperties.class)
+public class BookCacheConfig {
+    /**
+     * Канал инвалидаций по умолчанию. Для нескольких узлов объявите собственный бин
+     * {@link CacheInvalidationTransport} поверх общей шины сообщений.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheInvalidationTransport cacheInvalidationTransport() {
+        return new LocalCacheInvalidationTransport();
+    }
+}
@@ -0,0 +1,32 @@
+package ru.tokmakov.bookkeeper.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "book-keeper.cache")
+public class BookCacheProperties {
+    /**
+     * Максимальное число книг в кэше.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Время жизни записи после загрузки.
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+    /**
+     * Максимальный суммарный размер готовых ответов в {@link BookResponseCache}; 0 выключает кэш ответов.
+     */
+    private DataSize responseMaximumSize = DataSize.ofMegabytes(32);
+
+    /**
+     * Наибольшее отставание реплик. Столько после изменения книги прочитанное с реплики не сохраняется в кэши;
+     * без реплик не действует.
+     */
+    private Duration replicaLag = Duration.ofSeconds(1);
+}
@@ -0,0 +1,146 @@
+package ru.tokmakov.bookkeeper.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.tokmakov.bookkeeper.datasource.ReplicaReads;
+import ru.tokmakov.bookkeeper.format.BookFormats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш готовых к отправке тел ответов: книги по идентификатору и страницы списка по строке запроса,
+ * отдельно для каждого формата. При попадании контроллер пишет байты в ответ без преобразования и сериализации.
+ * <p>
+ * Инвалидации приходят через {@link CacheInvalidationTransport}: {@link BookCache} рассылает их после фиксации
+ * транзакции и после удаления книги из своего кэша, поэтому ответ не собирается из устаревшей книги.
+ * Изменение книги удаляет ее ответы и делает устаревшими все страницы: страница может измениться от любой записи.
+ * Страницы не удаляются по одной, а привязаны к поколению, и после записи просто перестают находиться;
+ * место освобождается вытеснением. Размер кэша ограничен суммарным размером тел ответов.
+ * <p>
+ * Внутри транзакции кэш не используется: ответ может содержать еще не зафиксированные изменения,
+ * а инвалидация придет только после фиксации. При нулевом размере кэш выключен.
+ * Ответ, собранный с реплики ({@link ReplicaReads}) в течение {@code replica-lag} после изменения книги,
+ * возвращается, но не сохраняется: для страниц учитывается изменение любой книги.
+ */
+@Component
+public class BookResponseCache implements MeterBinder {
+    public static final String CACHE_NAME = "book-responses";
+
+    private final boolean enabled;
+    private final Cache<Key, Response> cache;
+    private final SingleFlight<Key, Response> loads = new SingleFlight<>();
+    private final AtomicLong pageGeneration = new AtomicLong();
+    private final RecentChanges recentChanges;
+
+    public BookResponseCache(BookCacheProperties properties, CacheInvalidationTransport transport) {
+        this.enabled = properties.getResponseMaximumSize().toBytes() > 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getResponseMaximumSize().toBytes())
+                .weigher((Key key, Response response) -> response.body().length)
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        this.recentChanges = new RecentChanges(properties.getReplicaLag());
+        transport.subscribe(this::invalidate);
+    }
+
+    /**
+     * Ответ с книгой из кэша или {@code null}, если его нет.
+     */
+    public Response getBook(Long bookId, MediaType format) {
+        if (!isUsable())
+            return null;
+        return cache.getIfPresent(new Key(bookId, 0, format));
+    }
+
+    /**
+     * Сохранение ответа с книгой. Одновременные промахи по одной книге сериализуют ее один раз;
+     * ответ, собранный до инвалидации книги, возвращается вызывающему, но не сохраняется.
+     *
+     * @param loader сборка ответа; исключение передается всем ожидающим, в кэш ничего не попадает.
+     */
+    public Response putBook(Long bookId, MediaType format, Supplier<Response> loader) {
+        if (!isUsable())
+            return loader.get();
+        return loads.execute(new Key(bookId, 0, format), key -> {
+            long generation = loads.generation(key);
+            ReplicaReads.Result<Response> loaded = ReplicaReads.track(loader);
+            if (!loaded.fromReplica() || !recentChanges.isRecent(bookId))
+                cache.asMap().compute(key, (k, current) -> loads.isCurrent(k, generation) ? loaded.value() : current);
+            return loaded.value();
+        });
+    }
+
+    /**
+     * Ответ со страницей списка из кэша или сборка и сохранение при отсутствии.
+     * Страница, собранная до записи в каталог, сохраняется в устаревшем поколении и больше не находится.
+     *
+     * @param query  строка запроса страницы, например {@code author=X&size=20}; {@code null} для запроса без параметров.
+     * @param loader сборка ответа.
+     */
+    public Response getPage(String query, MediaType format, Supplier<Response> loader) {
+        if (!isUsable())
+            return loader.get();
+
+        Key key = new Key(query == null ? "" : query, pageGeneration.get(), format);
+        Response cached = cache.getIfPresent(key);
+        if (cached != null)
+            return cached;
+
+        ReplicaReads.Result<Response> loaded = ReplicaReads.track(loader);
+        if (!loaded.fromReplica() || !recentChanges.isAnyRecent())
+            cache.put(key, loaded.value());
+        return loaded.value();
+    }
+
+    /**
+     * Удаление всех ответов, например после изменения каталога в обход сервиса.
+     */
+    public void invalidateAll() {
+        recentChanges.recordAll();
+        pageGeneration.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    private boolean isUsable() {
+        return enabled && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    private void invalidate(Long bookId) {
+        recentChanges.record(bookId);
+        pageGeneration.incrementAndGet();
+        for (MediaType format : BookFormats.RESPONSE_FORMATS) {
+            Key key = new Key(bookId, 0, format);
+            loads.fence(key);
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Готовое тело ответа и условные заголовки, вычисленные по тем же данным.
+     *
+     * @param lastModified время изменения в миллисекундах или -1, если его нет.
+     */
+    public record Response(byte[] body, String eTag, long lastModified) {
+    }
+
+    private record Key(Object resource, long generation, MediaType format) {
+    }
+}
@@ -0,0 +1,13 @@
+package ru.tokmakov.bookkeeper.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Канал рассылки инвалидаций кэша между экземплярами приложения.
+ * Реализация должна доставлять сообщение всем подписчикам на всех узлах, включая отправителя.
+ */
+public interface CacheInvalidationTransport {
+    void publish(Long bookId);
+
+    void subscribe(Consumer<Long> listener);
+}
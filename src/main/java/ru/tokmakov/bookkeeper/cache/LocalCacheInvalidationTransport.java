@@ -0,0 +1,23 @@
+package ru.tokmakov.bookkeeper.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Канал инвалидаций в пределах одной JVM.
+ * Используется по умолчанию при запуске одного узла и в тестах как замена межузлового канала.
+ */
+public class LocalCacheInvalidationTransport implements CacheInvalidationTransport {
+    private final List<Consumer<Long>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(Long bookId) {
+        listeners.forEach(listener -> listener.accept(bookId));
+    }
+
+    @Override
+    public void subscribe(Consumer<Long> listener) {
+        listeners.add(listener);
+    }
+}
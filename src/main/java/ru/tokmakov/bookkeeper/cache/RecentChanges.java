@@ -0,0 +1,53 @@
+package ru.tokmakov.bookkeeper.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Книги, измененные в пределах отставания реплик. Реплика в этом окне может еще не видеть изменение,
+ * поэтому прочитанное с нее не сохраняется в кэш; чтения из основной базы сохраняются как обычно.
+ */
+class RecentChanges {
+    private final long windowNanos;
+    private final Cache<Long, Boolean> books;
+    private volatile long lastChangeNanos;
+    private volatile long lastChangeOfAllNanos;
+
+    RecentChanges(Duration window) {
+        this.windowNanos = window.toNanos();
+        this.books = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .build();
+        long never = System.nanoTime() - windowNanos - 1;
+        this.lastChangeNanos = never;
+        this.lastChangeOfAllNanos = never;
+    }
+
+    void record(Long bookId) {
+        lastChangeNanos = System.nanoTime();
+        books.put(bookId, Boolean.TRUE);
+    }
+
+    /**
+     * Изменение каталога в обход сервиса, когда неизвестно, какие книги изменились.
+     */
+    void recordAll() {
+        long now = System.nanoTime();
+        lastChangeNanos = now;
+        lastChangeOfAllNanos = now;
+    }
+
+    boolean isRecent(Long bookId) {
+        return books.getIfPresent(bookId) != null || isWithinWindow(lastChangeOfAllNanos);
+    }
+
+    boolean isAnyRecent() {
+        return isWithinWindow(lastChangeNanos);
+    }
+
+    private boolean isWithinWindow(long changeNanos) {
+        return System.nanoTime() - changeNanos <= windowNanos;
+    }
+}
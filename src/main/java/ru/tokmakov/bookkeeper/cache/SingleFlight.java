@@ -0,0 +1,82 @@
+package ru.tokmakov.bookkeeper.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Объединение одновременных загрузок одного ключа: первый вызов выполняет загрузку,
+ * остальные ждут ее результата. Во время загрузки блокировки не удерживаются.
+ * <p>
+ * Для защиты от устаревших результатов каждый ключ относится к одной из полос со счетчиком поколений.
+ * {@link #fence(Object)} увеличивает поколение и отцепляет текущую загрузку, так что новые вызовы
+ * ее уже не ждут, а загрузчик по {@link #isCurrent(Object, long)} видит, что его результат устарел.
+ */
+class SingleFlight<K, V> {
+    private static final int STRIPES = 1024;
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    /**
+     * Загрузка значения или ожидание уже начатой загрузки того же ключа.
+     * Исключение загрузчика получают все ожидающие вызовы.
+     */
+    V execute(K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null)
+            return await(existing);
+
+        try {
+            V value = loader.apply(key);
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    long generation(K key) {
+        return generations.get(stripe(key));
+    }
+
+    boolean isCurrent(K key, long generation) {
+        return generations.get(stripe(key)) == generation;
+    }
+
+    /**
+     * Отметка изменения ключа: начатые ранее загрузки больше не считаются актуальными.
+     */
+    void fence(K key) {
+        generations.incrementAndGet(stripe(key));
+        inFlight.remove(key);
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private static int stripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if (e.getCause() instanceof Error cause)
+                throw cause;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.tokmakov.bookkeeper.changes;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.tokmakov.bookkeeper.dto.BookChangeDto;
+import ru.tokmakov.bookkeeper.dto.BookChangesDto;
+import ru.tokmakov.bookkeeper.exception.BadRequestException;
+import ru.tokmakov.bookkeeper.repository.BookChangeRepository;
+
+import java.util.List;
+
+/**
+ * Чтение ленты изменений книг из журнала. Стоимость синхронизации пропорциональна числу изменений
+ * после курсора, а не размеру каталога. Задержка видимости отсчитывается по часам базы,
+ * теми же часами, что и время записи изменения, поэтому расхождение часов узлов на нее не влияет.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+@EnableConfigurationProperties(BookChangeProperties.class)
+public class BookChangeFeed {
+    public static final int MAX_LIMIT = 1000;
+
+    private final BookChangeRepository changeRepository;
+    private final BookChangeProperties properties;
+
+    /**
+     * Изменения после курсора в порядке записи.
+     *
+     * @param since идентификатор последнего полученного изменения; 0 — с начала журнала.
+     * @param limit максимальное число изменений, от 1 до {@value #MAX_LIMIT}.
+     * @return изменения и курсор {@code nextSince} для следующего запроса.
+     */
+    @Transactional(readOnly = true)
+    public BookChangesDto findChanges(long since, int limit) {
+        log.debug("Fetching book changes since {}, limit: {}", since, limit);
+
+        if (since < 0)
+            throw new BadRequestException("Cursor must not be negative");
+        if (limit < 1 || limit > MAX_LIMIT)
+            throw new BadRequestException("Limit must be between 1 and " + MAX_LIMIT);
+
+        List<BookChangeDto> changes = changeRepository.findChanges(since, properties.getVisibilityDelay(), limit);
+        long nextSince = changes.isEmpty() ? since : changes.get(changes.size() - 1).getId();
+        return new BookChangesDto(changes, nextSince, changes.size() == limit);
+    }
+
+    /**
+     * Идентификатор последнего изменения, уже видимого в ленте.
+     */
+    @Transactional(readOnly = true)
+    public long findLastId() {
+        return changeRepository.findLastId(properties.getVisibilityDelay());
+    }
+}
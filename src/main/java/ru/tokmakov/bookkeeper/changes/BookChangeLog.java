@@ -0,0 +1,83 @@
+package ru.tokmakov.bookkeeper.changes;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.event.BookChangedEvent;
+import ru.tokmakov.bookkeeper.model.BookChange;
+import ru.tokmakov.bookkeeper.repository.BookChangeRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Запись журнала изменений книг. Слушатель вызывается синхронно внутри транзакции записи и только собирает
+ * изменения транзакции; перед фиксацией они записываются одним пакетом, поэтому изменение книги и запись журнала
+ * фиксируются или откатываются вместе, а массовая операция не обращается к базе на каждое изменение.
+ * Журнал пишется последним оператором транзакции, после сброса остальных изменений: номер и время изменения
+ * назначаются непосредственно перед фиксацией, и от записи журнала до фиксации проходит время одной вставки,
+ * сколько бы ни длилась сама транзакция.
+ */
+@Component
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class BookChangeLog {
+    private final BookChangeRepository changeRepository;
+    private final EntityManager entityManager;
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onBookChanged(BookChangedEvent event) {
+        BookChange change = new BookChange();
+        change.setType(event.type());
+        change.setBookId(event.bookId());
+
+        BookDto book = event.book();
+        if (book != null) {
+            change.setTitle(book.getTitle());
+            change.setAuthor(book.getAuthor());
+            change.setGenre(book.getGenre());
+            change.setVersion(book.getVersion());
+            change.setUpdatedAt(book.getUpdatedAt());
+        }
+
+        pendingChanges().changes.add(change);
+    }
+
+    /**
+     * Изменения текущей транзакции. Синхронизации приостанавливаются вместе с транзакцией,
+     * поэтому у вложенной транзакции {@code REQUIRES_NEW} будет свой список.
+     */
+    private PendingChanges pendingChanges() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges pending && pending.owner() == this)
+                return pending;
+        }
+        PendingChanges pending = new PendingChanges();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private class PendingChanges implements TransactionSynchronization {
+        private final List<BookChange> changes = new ArrayList<>();
+
+        BookChangeLog owner() {
+            return BookChangeLog.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (changes.isEmpty())
+                return;
+            entityManager.flush();
+            changeRepository.insertAll(changes);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ru.tokmakov.bookkeeper.changes;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "book-keeper.changes")
+public class BookChangeProperties {
+    /**
+     * Через сколько после записи изменение попадает в ленту; отсчитывается по часам базы.
+     * Транзакции фиксируются не в порядке номеров изменений, и задержка должна быть больше времени
+     * от записи журнала до фиксации транзакции, иначе клиент может пройти курсором мимо изменения,
+     * зафиксированного позже. Журнал пишется последним оператором транзакции, поэтому это время
+     * не зависит от длины транзакции; если задан {@code spring.transaction.default-timeout},
+     * он ограничивает его сверху.
+     */
+    private Duration visibilityDelay = Duration.ofSeconds(2);
+
+    /**
+     * Как часто поток изменений проверяет журнал на новые записи.
+     */
+    private Duration pollInterval = Duration.ofMillis(500);
+
+    /**
+     * Сколько изменений может ждать отправки одному подписчику. Подписчик, который не успевает
+     * их принимать, дочитывает журнал по мере освобождения очереди.
+     */
+    private int subscriberBufferSize = 1000;
+
+    /**
+     * Через сколько без изменений подписчику отправляется комментарий, чтобы обнаружить разорванные соединения.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    /**
+     * Максимальная длительность одной подписки; клиент переподключается с {@code Last-Event-ID}.
+     */
+    private Duration streamTimeout = Duration.ofMinutes(30);
+}
@@ -0,0 +1,194 @@
+package ru.tokmakov.bookkeeper.changes;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.tokmakov.bookkeeper.dto.BookChangeDto;
+import ru.tokmakov.bookkeeper.dto.BookChangesDto;
+import ru.tokmakov.bookkeeper.exception.BadRequestException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Поток изменений книг для подписчиков server-sent events.
+ * Один фоновый поток опрашивает журнал изменений и раздает новые изменения всем подписчикам,
+ * которые их догнали, одним запросом к базе на всех. У каждого подписчика своя ограниченная очередь отправки:
+ * если клиент читает медленнее, чем появляются изменения, лишние изменения в очередь не попадают,
+ * а подписчик догоняет журнал отдельными запросами по мере освобождения очереди.
+ * Так медленный клиент не расходует память сервера и не задерживает остальных, а изменения не теряются.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class BookChangeStream implements DisposableBean {
+    private final BookChangeFeed changeFeed;
+    private final BookChangeProperties properties;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(daemon("book-change-poller"));
+    private final ExecutorService senders = Executors.newCachedThreadPool(daemon("book-change-sender"));
+    private long head = -1;
+
+    public BookChangeStream(BookChangeFeed changeFeed, BookChangeProperties properties) {
+        this.changeFeed = changeFeed;
+        this.properties = properties;
+        long interval = properties.getPollInterval().toMillis();
+        poller.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Подписка на изменения после {@code since}.
+     *
+     * @param since идентификатор последнего полученного изменения или {@code null}, чтобы получать только новые.
+     * @return поток событий {@code change} с идентификатором изменения в поле {@code id}.
+     */
+    public SseEmitter subscribe(Long since) {
+        if (since != null && since < 0)
+            throw new BadRequestException("Cursor must not be negative");
+
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeout().toMillis());
+        Subscription subscription = new Subscription(emitter, since != null ? since : changeFeed.findLastId());
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        subscriptions.add(subscription);
+        log.debug("Change stream subscribed since {}, {} subscribers", subscription.lastQueuedId, subscriptions.size());
+        return emitter;
+    }
+
+    public int subscribers() {
+        return subscriptions.size();
+    }
+
+    @Override
+    public void destroy() {
+        poller.shutdownNow();
+        senders.shutdownNow();
+        subscriptions.forEach(subscription -> subscription.emitter.complete());
+    }
+
+    /**
+     * Подписчики, получившие все изменения до прошлого опроса, получают новые изменения из общего запроса;
+     * отстающие дочитывают журнал сами, не больше свободного места в своей очереди.
+     */
+    private void poll() {
+        try {
+            if (subscriptions.isEmpty())
+                return;
+            if (head < 0)
+                head = changeFeed.findLastId();
+
+            long previousHead = head;
+            BookChangesDto fresh = changeFeed.findChanges(previousHead, BookChangeFeed.MAX_LIMIT);
+            head = fresh.getNextSince();
+
+            long now = System.nanoTime();
+            for (Subscription subscription : subscriptions) {
+                if (subscription.lastQueuedId >= previousHead) {
+                    subscription.offer(fresh.getChanges());
+                } else if (subscription.queue.remainingCapacity() > 0) {
+                    int limit = Math.min(subscription.queue.remainingCapacity(), BookChangeFeed.MAX_LIMIT);
+                    subscription.offer(changeFeed.findChanges(subscription.lastQueuedId, limit).getChanges());
+                }
+                subscription.heartbeatIfIdle(now);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Change stream poll failed: {}", e.getMessage());
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private class Subscription {
+        private final SseEmitter emitter;
+        private final BlockingQueue<BookChangeDto> queue = new ArrayBlockingQueue<>(properties.getSubscriberBufferSize());
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long lastQueuedId;
+        private volatile long lastActivity = System.nanoTime();
+        private volatile boolean heartbeatDue;
+        private volatile boolean closed;
+
+        Subscription(SseEmitter emitter, long since) {
+            this.emitter = emitter;
+            this.lastQueuedId = since;
+        }
+
+        /**
+         * Постановка в очередь изменений, которых подписчик еще не получал, пока в очереди есть место.
+         */
+        void offer(List<BookChangeDto> changes) {
+            for (BookChangeDto change : changes) {
+                if (change.getId() <= lastQueuedId)
+                    continue;
+                if (!queue.offer(change))
+                    break;
+                lastQueuedId = change.getId();
+            }
+            if (!queue.isEmpty())
+                scheduleSend();
+        }
+
+        void heartbeatIfIdle(long now) {
+            if (queue.isEmpty() && now - lastActivity >= properties.getHeartbeatInterval().toNanos()) {
+                heartbeatDue = true;
+                scheduleSend();
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscriptions.remove(this);
+        }
+
+        private void scheduleSend() {
+            if (!closed && sending.compareAndSet(false, true))
+                senders.execute(this::send);
+        }
+
+        private void send() {
+            try {
+                BookChangeDto change;
+                while (!closed && (change = queue.poll()) != null) {
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(change.getId()))
+                            .name("change")
+                            .data(change, MediaType.APPLICATION_JSON));
+                    lastActivity = System.nanoTime();
+                }
+                if (heartbeatDue && !closed) {
+                    heartbeatDue = false;
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                    lastActivity = System.nanoTime();
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Change stream subscriber disconnected: {}", e.getMessage());
+                close();
+            } finally {
+                sending.set(false);
+                if (!closed && (!queue.isEmpty() || heartbeatDue))
+                    scheduleSend();
+            }
+        }
+    }
+}
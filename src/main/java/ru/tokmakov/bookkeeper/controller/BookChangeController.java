@@ -0,0 +1,61 @@
+package ru.tokmakov.bookkeeper.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.tokmakov.bookkeeper.changes.BookChangeFeed;
+import ru.tokmakov.bookkeeper.changes.BookChangeStream;
+import ru.tokmakov.bookkeeper.dto.BookChangesDto;
+
+/**
+ * Лента изменений книг для синхронизации клиентов без повторной выгрузки каталога.
+ */
+@Slf4j
+@RestController
+@Profile("!reactive")
+@RequestMapping("/books/changes")
+@RequiredArgsConstructor
+public class BookChangeController {
+    public static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private final BookChangeFeed changeFeed;
+    private final BookChangeStream changeStream;
+
+    /**
+     * Изменения после курсора {@code since}, включая удаления.
+     *
+     * @param since {@code nextSince} из предыдущего ответа; 0 — с начала журнала.
+     * @param limit максимальное число изменений в ответе.
+     * @return изменения в формате {@link BookChangesDto}; при {@code hasMore} следующую порцию
+     * нужно запросить сразу, не дожидаясь интервала опроса.
+     */
+    @GetMapping
+    public BookChangesDto findChanges(@RequestParam(defaultValue = "0") long since,
+                                      @RequestParam(defaultValue = "100") int limit) {
+        log.debug("GET /books/changes - Request received, since: {}, limit: {}", since, limit);
+
+        return changeFeed.findChanges(since, limit);
+    }
+
+    /**
+     * Подписка на изменения потоком server-sent events. После разрыва клиент переподключается
+     * с заголовком {@code Last-Event-ID} и получает изменения, пропущенные за время разрыва.
+     *
+     * @param since       курсор, с которого начинается поток; без него поток начинается с новых изменений.
+     * @param lastEventId идентификатор последнего полученного события, имеет приоритет над {@code since}.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+                                    @RequestHeader(value = LAST_EVENT_ID, required = false) Long lastEventId) {
+        log.debug("GET /books/changes/stream - Request received, since: {}, Last-Event-ID: {}", since, lastEventId);
+
+        return changeStream.subscribe(lastEventId != null ? lastEventId : since);
+    }
+}
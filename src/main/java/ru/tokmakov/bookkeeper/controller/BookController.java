@@ -1,17 +1,47 @@
 package ru.tokmakov.bookkeeper.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.constraints.NotNull;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.tokmakov.bookkeeper.cache.BookResponseCache;
+import ru.tokmakov.bookkeeper.dto.BookBatchResultDto;
+import ru.tokmakov.bookkeeper.dto.BookBulkResultDto;
 import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookFacetsDto;
+import ru.tokmakov.bookkeeper.dto.BookFilterDto;
+import ru.tokmakov.bookkeeper.dto.BookLookupResultDto;
+import ru.tokmakov.bookkeeper.dto.BookPageDto;
 import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.dto.BookSearchHitDto;
+import ru.tokmakov.bookkeeper.dto.BookSuggestionsDto;
 import ru.tokmakov.bookkeeper.dto.BookUpdateDto;
+import ru.tokmakov.bookkeeper.dto.BookVersionDto;
+import ru.tokmakov.bookkeeper.format.BookFormats;
+import ru.tokmakov.bookkeeper.idempotency.IdempotencyStore;
 import ru.tokmakov.bookkeeper.service.BookService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.Principal;
 import java.util.List;
+import java.util.Map;
+
+import static ru.tokmakov.bookkeeper.controller.BookHeaders.eTag;
+import static ru.tokmakov.bookkeeper.controller.BookHeaders.expectedVersion;
+import static ru.tokmakov.bookkeeper.controller.BookHeaders.lastModified;
 
 /**
  * REST-контроллер для управления книгами.
@@ -19,75 +49,333 @@ import java.util.List;
  */
 @Slf4j
 @RestController
+@Profile("!reactive")
 @RequestMapping("/books")
-@RequiredArgsConstructor
 public class BookController {
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    private static final MediaType NDJSON = MediaType.parseMediaType(NDJSON_VALUE);
+    private static final List<MediaType> EXPORT_FORMATS = List.of(NDJSON, BookFormats.CBOR_SEQ, BookFormats.SMILE);
+
     private final BookService bookService;
+    private final BookResponseCache responseCache;
+    private final IdempotencyStore idempotencyStore;
+    private final Map<MediaType, ObjectMapper> mappers;
+
+    public BookController(BookService bookService,
+                          BookResponseCache responseCache,
+                          IdempotencyStore idempotencyStore,
+                          ObjectMapper objectMapper) {
+        this.bookService = bookService;
+        this.responseCache = responseCache;
+        this.idempotencyStore = idempotencyStore;
+        ObjectMapper cborMapper = BookFormats.cborMapper(objectMapper);
+        ObjectMapper smileMapper = BookFormats.smileMapper(objectMapper);
+        this.mappers = Map.of(
+                MediaType.APPLICATION_JSON, objectMapper,
+                NDJSON, objectMapper,
+                BookFormats.CBOR, cborMapper,
+                BookFormats.CBOR_SEQ, cborMapper,
+                BookFormats.SMILE, smileMapper);
+    }
 
     /**
-     * Получение списка всех книг.
+     * Получение страницы книг с фильтрацией и сортировкой.
      *
-     * @return список всех книг в формате {@link BookDto}.
+     * @param filter фильтр по {@code ids}, {@code author}, {@code genre}, {@code titlePrefix} и курсор
+     *               следующей страницы {@code cursor} из предыдущего ответа.
+     * @param sort   поле сортировки: {@code id}, {@code title}, {@code author} или {@code genre}.
+     * @param order  порядок сортировки: {@code asc} или {@code desc}.
+     * @param size   размер страницы.
+     * @return страница книг в формате {@link BookPageDto} с заголовком {@code ETag};
+     * при совпадении с {@code If-None-Match} возвращается 304 без тела.
+     * Готовый ответ берется из {@link BookResponseCache} по строке запроса и формату.
      */
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<BookDto> findAllBooks() {
-        log.info("GET /books - Request received");
+    public ResponseEntity<?> findAllBooks(BookFilterDto filter,
+                                          @RequestParam(defaultValue = "id") String sort,
+                                          @RequestParam(defaultValue = "asc") String order,
+                                          @RequestParam(defaultValue = "20") int size,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                          HttpServletRequest request) {
+        log.debug("GET /books - Request received, filter: {}, sort: {} {}, size: {}", filter, sort, order, size);
+
+        MediaType format = BookFormats.negotiate(accept, BookFormats.RESPONSE_FORMATS);
+        if (format == null) {
+            BookPageDto page = bookService.findAllBooks(filter, sort, order, size);
+            return ResponseEntity.ok()
+                    .eTag(eTag(page))
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(page);
+        }
+
+        BookResponseCache.Response response = responseCache.getPage(request.getQueryString(), format, () -> {
+            BookPageDto page = bookService.findAllBooks(filter, sort, order, size);
+            log.debug("GET /books - Response: {} books found", page.getBooks().size());
+            return new BookResponseCache.Response(serialize(page, format), eTag(page), -1);
+        });
+        return ResponseEntity.ok()
+                .eTag(response.eTag())
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(format)
+                .body(response.body());
+    }
+
+    /**
+     * Потоковая выгрузка всего каталога: одна книга в формате {@link BookDto} на строку NDJSON или,
+     * по заголовку {@code Accept}, последовательность значений CBOR или Smile.
+     * Ответ пишется по мере чтения из базы и не накапливается в памяти.
+     *
+     * @return тело ответа, записываемое асинхронно.
+     */
+    @GetMapping(value = "/export", produces = {NDJSON_VALUE, BookFormats.CBOR_SEQ_VALUE, BookFormats.SMILE_VALUE})
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        log.debug("GET /books/export - Request received, Accept: {}", accept);
+
+        MediaType format = BookFormats.negotiate(accept, EXPORT_FORMATS);
+        if (format == null)
+            format = NDJSON;
+        ObjectMapper mapper = mappers.get(format);
+        boolean lineDelimited = format.equals(NDJSON);
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = mapper.writerFor(BookDto.class);
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                if (lineDelimited)
+                    generator.setRootValueSeparator(null);
+                bookService.exportBooks(bookDto -> {
+                    try {
+                        writer.writeValue(generator, bookDto);
+                        if (lineDelimited)
+                            generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            log.debug("GET /books/export - Export completed");
+        };
+
+        return ResponseEntity.ok()
+                .contentType(format)
+                .body(body);
+    }
+
+    /**
+     * Полнотекстовый поиск книг по названию и автору.
+     *
+     * @param query поисковый запрос: слова, префиксы вида {@code тол*} и фразы в кавычках.
+     * @param limit максимальное число результатов.
+     * @return найденные книги по убыванию релевантности в формате {@link BookSearchHitDto}.
+     */
+    @GetMapping("/search")
+    public List<BookSearchHitDto> searchBooks(@RequestParam("q") String query,
+                                              @RequestParam(defaultValue = "20") int limit) {
+        log.debug("GET /books/search - Request received, query: {}, limit: {}", query, limit);
+
+        List<BookSearchHitDto> hits = bookService.searchBooks(query, limit);
+
+        log.debug("GET /books/search - Response: {} books found", hits.size());
+        return hits;
+    }
+
+    /**
+     * Подсказки при вводе по названиям, авторам и жанрам книг.
+     *
+     * @param prefix введенный пользователем префикс.
+     * @param limit  максимальное число подсказок для каждого поля.
+     * @return наиболее частые значения полей в формате {@link BookSuggestionsDto}.
+     */
+    @GetMapping("/suggest")
+    public BookSuggestionsDto suggestBooks(@RequestParam String prefix,
+                                           @RequestParam(defaultValue = "5") int limit) {
+        log.debug("GET /books/suggest - Request received, prefix: {}, limit: {}", prefix, limit);
 
-        List<BookDto> books = bookService.findAllBooks();
+        return bookService.suggestBooks(prefix, limit);
+    }
+
+    /**
+     * Число книг по жанрам и авторам.
+     *
+     * @param limit максимальное число значений каждого поля.
+     * @return наиболее частые жанры и авторы в формате {@link BookFacetsDto}.
+     */
+    @GetMapping("/facets")
+    public BookFacetsDto findFacets(@RequestParam(defaultValue = "100") int limit) {
+        log.debug("GET /books/facets - Request received, limit: {}", limit);
 
-        log.debug("GET /books - Response: {} books found", books.size());
-        return books;
+        return bookService.findFacets(limit);
     }
 
     /**
-     * Получение книги по идентификатору
+     * Получение книги по идентификатору.
+     * Готовый ответ берется из {@link BookResponseCache}, и заголовки {@code If-None-Match} и {@code If-Modified-Since}
+     * проверяются по нему без обращения к сервису. При промахе условные заголовки проверяются по версии книги
+     * до ее загрузки; если книга не изменилась, возвращается 304 без тела.
+     * {@code ETag} свой для каждого формата, и все ответы, включая 304, содержат {@code Vary: Accept}.
      *
-     * @param bookId идентификатор книги
-     * @return книга в формате {@link BookDto}
+     * @param bookId  идентификатор книги
+     * @param accept  заголовок {@code Accept} с желаемым форматом
+     * @param request запрос с условными заголовками
+     * @return книга в формате {@link BookDto} с заголовками {@code ETag} и {@code Last-Modified}
      */
     @GetMapping("/{bookId}")
-    public BookDto findBookById(@PathVariable Long bookId) {
-        log.info("GET /books/{} - Request received", bookId);
+    public ResponseEntity<?> findBookById(@PathVariable Long bookId,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                          WebRequest request) {
+        log.debug("GET /books/{} - Request received", bookId);
 
-        BookDto bookDto = bookService.findBookById(bookId);
+        MediaType format = BookFormats.negotiate(accept, BookFormats.RESPONSE_FORMATS);
+        BookResponseCache.Response cached = format == null ? null : responseCache.getBook(bookId, format);
+        if (cached != null) {
+            if (request.checkNotModified(cached.eTag(), cached.lastModified()))
+                return notModified();
+            return ResponseEntity.ok()
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .contentType(format)
+                    .body(cached.body());
+        }
 
-        log.info("GET /books/{} - Response: {}", bookId, bookDto);
-        return bookDto;
+        BookVersionDto version = bookService.findBookVersion(bookId);
+        if (request.checkNotModified(eTag(version.getVersion(), format), lastModified(version.getUpdatedAt()))) {
+            log.debug("GET /books/{} - Not modified", bookId);
+            return notModified();
+        }
+
+        if (format == null)
+            return ResponseEntity.ok()
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(bookService.findBookById(bookId));
+
+        BookResponseCache.Response response = responseCache.putBook(bookId, format, () -> {
+            BookDto bookDto = bookService.findBookById(bookId);
+            log.debug("GET /books/{} - Response: {}", bookId, bookDto);
+            return new BookResponseCache.Response(serialize(bookDto, format),
+                    eTag(bookDto.getVersion(), format), lastModified(bookDto.getUpdatedAt()));
+        });
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(format)
+                .body(response.body());
     }
 
     /**
      * Создание новой книги.
+     * Повтор запроса с тем же заголовком {@code Idempotency-Key} возвращает уже созданную книгу,
+     * не обращаясь к базе; одновременный повтор ждет завершения первого запроса, но не дольше
+     * {@code book-keeper.idempotency.await-timeout}, после чего получает 409 с заголовком Retry-After.
+     * Ключ действует в пределах клиента: аутентифицированного пользователя, заголовка {@code X-Client-Id}
+     * или, без них, адреса клиента.
      *
-     * @param bookSaveDto данные для создания книги в формате {@link BookSaveDto}.
+     * @param idempotencyKey ключ идемпотентности, выбранный клиентом; без него каждый запрос создает книгу.
+     * @param clientId       идентификатор клиента для запросов без аутентификации.
+     * @param principal      аутентифицированный пользователь, если есть.
+     * @param request        запрос, из которого берется адрес клиента.
+     * @param bookSaveDto    данные для создания книги в формате {@link BookSaveDto}.
      * @return созданная книга в формате {@link BookDto}.
      */
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public BookDto saveBook(@NotNull @Validated @RequestBody BookSaveDto bookSaveDto) {
-        log.info("POST /books - Creating new book. Request data: {}", bookSaveDto);
+    public BookDto saveBook(@RequestHeader(value = IdempotencyStore.IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                            @RequestHeader(value = IdempotencyStore.CLIENT_ID, required = false) String clientId,
+                            Principal principal,
+                            HttpServletRequest request,
+                            @NotNull @Validated @RequestBody BookSaveDto bookSaveDto) {
+        log.debug("POST /books - Creating new book. Idempotency-Key: {}, Request data: {}", idempotencyKey, bookSaveDto);
 
-        BookDto bookDto = bookService.saveBook(bookSaveDto);
+        String client = IdempotencyStore.client(principal, clientId, request.getRemoteAddr());
+        BookDto bookDto = idempotencyStore.execute(client, idempotencyKey, bookSaveDto,
+                () -> bookService.saveBook(bookSaveDto));
 
-        log.info("POST /books - Book created successfully. Saved book: {}", bookDto);
+        log.debug("POST /books - Book created successfully. Saved book: {}", bookDto);
         return bookDto;
     }
 
+    /**
+     * Получение нескольких книг по списку идентификаторов одним запросом.
+     *
+     * @param bookIds идентификаторы книг.
+     * @return найденные книги и идентификаторы отсутствующих книг в формате {@link BookLookupResultDto}.
+     */
+    @PostMapping("/lookup")
+    public BookLookupResultDto findBooksByIds(@NotNull @RequestBody List<Long> bookIds) {
+        log.debug("POST /books/lookup - Looking up {} books", bookIds.size());
+
+        BookLookupResultDto result = bookService.findBooksByIds(bookIds);
+
+        log.debug("POST /books/lookup - Response: {} books found, {} missing",
+                result.getBooks().size(), result.getMissing().size());
+        return result;
+    }
+
+    /**
+     * Пакетное создание книг.
+     * Каждая книга валидируется отдельно; ошибки возвращаются с индексом книги в запросе.
+     *
+     * @param bookSaveDtos список книг для создания в формате {@link BookSaveDto}.
+     * @return созданные книги и ошибки валидации в формате {@link BookBatchResultDto}.
+     */
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public BookBatchResultDto saveBooks(@NotNull @RequestBody List<BookSaveDto> bookSaveDtos) {
+        log.debug("POST /books/batch - Creating {} books", bookSaveDtos.size());
+
+        BookBatchResultDto result = bookService.saveBooks(bookSaveDtos);
+
+        log.debug("POST /books/batch - Created {} books, rejected {} books",
+                result.getBooks().size(), result.getErrors().size());
+        return result;
+    }
+
     /**
      * Обновление информации о книге.
+     * Если передан заголовок {@code If-Match}, книга обновляется только при совпадении ее текущего
+     * {@code ETag}; иначе возвращается 412 и клиент может перечитать книгу и повторить запрос.
      *
      * @param id            идентификатор книги.
+     * @param ifMatch       {@code ETag} книги в любом формате, полученный клиентом, или {@code *}.
+     * @param accept        заголовок {@code Accept} с желаемым форматом.
      * @param bookUpdateDto данные для обновления книги в формате {@link BookUpdateDto}.
-     * @return обновленная книга в формате {@link BookDto}.
+     * @return обновленная книга в формате {@link BookDto} с новым {@code ETag} этого формата.
      */
     @PatchMapping("/{id}")
-    public BookDto updateBook(@PathVariable Long id, @NotNull @RequestBody @Validated BookUpdateDto bookUpdateDto) {
-        log.info("PATCH /books/{} - Updating book. Request data: {}", id, bookUpdateDto);
+    public ResponseEntity<BookDto> updateBook(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                              @NotNull @RequestBody @Validated BookUpdateDto bookUpdateDto) {
+        log.debug("PATCH /books/{} - Updating book. If-Match: {}, Request data: {}", id, ifMatch, bookUpdateDto);
 
-        BookDto bookDto = bookService.updateBook(id, bookUpdateDto);
+        BookDto bookDto = bookService.updateBook(id, expectedVersion(ifMatch), bookUpdateDto);
 
-        log.info("PATCH /books/{} - Updated successfully. Saved book: {}", id, bookDto);
-        return bookDto;
+        log.debug("PATCH /books/{} - Updated successfully. Saved book: {}", id, bookDto);
+        MediaType format = BookFormats.negotiate(accept, BookFormats.RESPONSE_FORMATS);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(eTag(bookDto.getVersion(), format))
+                .varyBy(HttpHeaders.ACCEPT);
+        if (format != null)
+            response.contentType(format);
+        return response.body(bookDto);
+    }
+
+    /**
+     * Массовое обновление книг по списку идентификаторов или по автору и жанру.
+     * За один запрос обновляется ограниченное число книг; если подходящих книг больше,
+     * в ответе возвращается курсор для следующего запроса.
+     *
+     * @param filter        условие выбора книг в формате {@link BookFilterDto}.
+     * @param bookUpdateDto данные для обновления книг в формате {@link BookUpdateDto}.
+     * @return число обновленных книг в формате {@link BookBulkResultDto}.
+     */
+    @PatchMapping
+    public BookBulkResultDto updateBooks(BookFilterDto filter,
+                                         @NotNull @RequestBody @Validated BookUpdateDto bookUpdateDto) {
+        log.debug("PATCH /books - Bulk updating books. Filter: {}, request data: {}", filter, bookUpdateDto);
+
+        BookBulkResultDto result = bookService.updateBooks(filter, bookUpdateDto);
+
+        log.debug("PATCH /books - Updated {} books", result.getAffected());
+        return result;
     }
 
     /**
@@ -98,10 +386,43 @@ public class BookController {
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteBook(@PathVariable Long id) {
-        log.info("DELETE /books/{} - Deleting book. Request received", id);
+        log.debug("DELETE /books/{} - Deleting book. Request received", id);
 
         bookService.deleteBook(id);
 
-        log.info("DELETE /books/{} - Deleted successfully", id);
+        log.debug("DELETE /books/{} - Deleted successfully", id);
+    }
+
+    /**
+     * Массовое удаление книг по списку идентификаторов или по автору и жанру.
+     *
+     * @param filter условие выбора книг в формате {@link BookFilterDto}.
+     * @return число удаленных книг в формате {@link BookBulkResultDto}.
+     */
+    @DeleteMapping
+    public BookBulkResultDto deleteBooks(BookFilterDto filter) {
+        log.debug("DELETE /books - Bulk deleting books. Filter: {}", filter);
+
+        BookBulkResultDto result = bookService.deleteBooks(filter);
+
+        log.debug("DELETE /books - Deleted {} books", result.getAffected());
+        return result;
+    }
+
+    /**
+     * Ответ 304: {@code ETag} и {@code Last-Modified} уже выставлены проверкой условных заголовков.
+     */
+    private static ResponseEntity<?> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .varyBy(HttpHeaders.ACCEPT)
+                .build();
+    }
+
+    private byte[] serialize(Object value, MediaType format) {
+        try {
+            return mappers.get(format).writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package ru.tokmakov.bookkeeper.controller;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookPageDto;
+import ru.tokmakov.bookkeeper.exception.PreconditionFailedException;
+import ru.tokmakov.bookkeeper.format.BookFormats;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Условные заголовки ответов о книгах, общие для контроллеров Spring MVC и WebFlux.
+ */
+@UtilityClass
+class BookHeaders {
+    private static final Map<MediaType, String> FORMAT_SUFFIXES = Map.of(
+            BookFormats.CBOR, "cbor",
+            BookFormats.SMILE, "smile");
+
+    /**
+     * ETag книги в выбранном формате. Тег сильный, а сильный тег обещает побайтно одинаковое тело,
+     * поэтому у каждого представления он свой: для JSON — версия книги, для двоичных форматов — версия
+     * с суффиксом формата, например {@code "3-cbor"}.
+     *
+     * @param format формат ответа; {@code null} — JSON.
+     */
+    static String eTag(Long version, MediaType format) {
+        String suffix = format == null ? null : FORMAT_SUFFIXES.get(format);
+        return suffix == null ? String.valueOf(version) : version + "-" + suffix;
+    }
+
+    /**
+     * Версия из заголовка {@code If-Match}. Подходит тег любого представления книги;
+     * слабые и нечисловые теги не могут совпасть с версией книги.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*"))
+            return null;
+
+        String tag = ifMatch.trim();
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\""))
+            throw new PreconditionFailedException("If-Match does not match a strong entity tag: " + ifMatch);
+        String value = tag.substring(1, tag.length() - 1);
+        for (String suffix : FORMAT_SUFFIXES.values()) {
+            if (value.endsWith("-" + suffix)) {
+                value = value.substring(0, value.length() - suffix.length() - 1);
+                break;
+            }
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match does not match current entity tag: " + ifMatch);
+        }
+    }
+
+    static long lastModified(Instant updatedAt) {
+        return updatedAt == null ? -1 : updatedAt.toEpochMilli();
+    }
+
+    /**
+     * ETag страницы вычисляется по идентификаторам и версиям книг и курсору следующей страницы,
+     * поэтому меняется при любом изменении, добавлении или удалении книги на странице.
+     * Тег слабый: он один для всех форматов и сжатий страницы, а сервер сжимает только ответы со слабым тегом.
+     */
+    static String eTag(BookPageDto page) {
+        StringBuilder state = new StringBuilder();
+        for (BookDto book : page.getBooks()) {
+            state.append(book.getId()).append(':').append(book.getVersion()).append(',');
+        }
+        state.append(page.getNextCursor());
+        return "W/\"" + DigestUtils.md5DigestAsHex(state.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -0,0 +1,219 @@
+package ru.tokmakov.bookkeeper.controller;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.tokmakov.bookkeeper.dto.BookBatchResultDto;
+import ru.tokmakov.bookkeeper.dto.BookBulkResultDto;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookFacetsDto;
+import ru.tokmakov.bookkeeper.dto.BookFilterDto;
+import ru.tokmakov.bookkeeper.dto.BookLookupResultDto;
+import ru.tokmakov.bookkeeper.dto.BookPageDto;
+import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.dto.BookSearchHitDto;
+import ru.tokmakov.bookkeeper.dto.BookSuggestionsDto;
+import ru.tokmakov.bookkeeper.dto.BookUpdateDto;
+import ru.tokmakov.bookkeeper.format.BookFormats;
+import ru.tokmakov.bookkeeper.service.ReactiveBookService;
+
+import java.time.Instant;
+import java.util.List;
+
+import static ru.tokmakov.bookkeeper.controller.BookController.NDJSON_VALUE;
+import static ru.tokmakov.bookkeeper.controller.BookHeaders.eTag;
+import static ru.tokmakov.bookkeeper.controller.BookHeaders.expectedVersion;
+import static ru.tokmakov.bookkeeper.controller.BookHeaders.lastModified;
+
+/**
+ * REST-контроллер книг на WebFlux для профиля {@code reactive}.
+ * Эндпоинты, параметры, валидация и коды ошибок совпадают с {@link BookController};
+ * списки дополнительно отдаются потоком NDJSON по мере чтения из базы.
+ */
+@Slf4j
+@RestController
+@Profile("reactive")
+@RequestMapping("/books")
+@RequiredArgsConstructor
+public class ReactiveBookController {
+    /**
+     * Форматы ответов с одной книгой; CBOR в профиле {@code reactive} не поддерживается.
+     */
+    private static final List<MediaType> RESPONSE_FORMATS = List.of(MediaType.APPLICATION_JSON, BookFormats.SMILE);
+
+    private final ReactiveBookService bookService;
+
+    /**
+     * Получение страницы книг с фильтрацией и сортировкой.
+     *
+     * @return страница книг в формате {@link BookPageDto} с заголовком {@code ETag}.
+     */
+    @GetMapping
+    public Mono<ResponseEntity<BookPageDto>> findAllBooks(BookFilterDto filter,
+                                                          @RequestParam(defaultValue = "id") String sort,
+                                                          @RequestParam(defaultValue = "asc") String order,
+                                                          @RequestParam(defaultValue = "20") int size) {
+        log.debug("GET /books - Request received, filter: {}, sort: {} {}, size: {}", filter, sort, order, size);
+
+        return bookService.findAllBooks(filter, sort, order, size)
+                .map(page -> ResponseEntity.ok()
+                        .eTag(eTag(page))
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .body(page));
+    }
+
+    /**
+     * Потоковая выдача всех книг по фильтру и сортировке в формате NDJSON, начиная с позиции {@code cursor}.
+     * Размер страницы не ограничивает поток: книги пишутся по мере чтения из базы с учетом обратного давления.
+     *
+     * @return поток книг в формате {@link BookDto}.
+     */
+    @GetMapping(produces = NDJSON_VALUE)
+    public Flux<BookDto> streamBooks(BookFilterDto filter,
+                                     @RequestParam(defaultValue = "id") String sort,
+                                     @RequestParam(defaultValue = "asc") String order) {
+        log.debug("GET /books - Stream requested, filter: {}, sort: {} {}", filter, sort, order);
+
+        return bookService.streamBooks(filter, sort, order);
+    }
+
+    /**
+     * Потоковая выгрузка всего каталога в формате NDJSON.
+     */
+    @GetMapping(value = "/export", produces = NDJSON_VALUE)
+    public Flux<BookDto> exportBooks() {
+        log.debug("GET /books/export - Request received");
+
+        return bookService.exportBooks();
+    }
+
+    @GetMapping("/search")
+    public Mono<List<BookSearchHitDto>> searchBooks(@RequestParam("q") String query,
+                                                    @RequestParam(defaultValue = "20") int limit) {
+        log.debug("GET /books/search - Request received, query: {}, limit: {}", query, limit);
+
+        return bookService.searchBooks(query, limit);
+    }
+
+    @GetMapping("/suggest")
+    public Mono<BookSuggestionsDto> suggestBooks(@RequestParam String prefix,
+                                                 @RequestParam(defaultValue = "5") int limit) {
+        log.debug("GET /books/suggest - Request received, prefix: {}, limit: {}", prefix, limit);
+
+        return bookService.suggestBooks(prefix, limit);
+    }
+
+    @GetMapping("/facets")
+    public Mono<BookFacetsDto> findFacets(@RequestParam(defaultValue = "100") int limit) {
+        log.debug("GET /books/facets - Request received, limit: {}", limit);
+
+        return bookService.findFacets(limit);
+    }
+
+    /**
+     * Получение книги по идентификатору с проверкой {@code If-None-Match} и {@code If-Modified-Since}
+     * по версии книги до ее загрузки. {@code ETag} свой для каждого формата, ответы содержат {@code Vary: Accept}.
+     */
+    @GetMapping("/{bookId}")
+    public Mono<ResponseEntity<BookDto>> findBookById(@PathVariable Long bookId,
+                                                      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                      ServerWebExchange exchange) {
+        log.debug("GET /books/{} - Request received", bookId);
+
+        MediaType format = BookFormats.negotiate(accept, RESPONSE_FORMATS);
+        return bookService.findBookVersion(bookId).flatMap(version -> {
+            Instant lastModified = version.getUpdatedAt() == null ? Instant.MIN : version.getUpdatedAt();
+            if (exchange.checkNotModified(eTag(version.getVersion(), format), lastModified)) {
+                log.debug("GET /books/{} - Not modified", bookId);
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .build());
+            }
+
+            return bookService.findBookById(bookId)
+                    .map(bookDto -> ok(bookDto, format)
+                            .lastModified(lastModified(bookDto.getUpdatedAt()))
+                            .body(bookDto));
+        });
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<BookDto> saveBook(@NotNull @Validated @RequestBody BookSaveDto bookSaveDto) {
+        log.debug("POST /books - Creating new book. Request data: {}", bookSaveDto);
+
+        return bookService.saveBook(bookSaveDto);
+    }
+
+    @PostMapping("/lookup")
+    public Mono<BookLookupResultDto> findBooksByIds(@NotNull @RequestBody List<Long> bookIds) {
+        log.debug("POST /books/lookup - Looking up {} books", bookIds.size());
+
+        return bookService.findBooksByIds(bookIds);
+    }
+
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<BookBatchResultDto> saveBooks(@NotNull @RequestBody List<BookSaveDto> bookSaveDtos) {
+        log.debug("POST /books/batch - Creating {} books", bookSaveDtos.size());
+
+        return bookService.saveBooks(bookSaveDtos);
+    }
+
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<BookDto>> updateBook(@PathVariable Long id,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                    @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                    @NotNull @RequestBody @Validated BookUpdateDto bookUpdateDto) {
+        log.debug("PATCH /books/{} - Updating book. If-Match: {}, Request data: {}", id, ifMatch, bookUpdateDto);
+
+        MediaType format = BookFormats.negotiate(accept, RESPONSE_FORMATS);
+        return Mono.defer(() -> bookService.updateBook(id, expectedVersion(ifMatch), bookUpdateDto))
+                .map(bookDto -> ok(bookDto, format).body(bookDto));
+    }
+
+    @PatchMapping
+    public Mono<BookBulkResultDto> updateBooks(BookFilterDto filter,
+                                               @NotNull @RequestBody @Validated BookUpdateDto bookUpdateDto) {
+        log.debug("PATCH /books - Bulk updating books. Filter: {}, request data: {}", filter, bookUpdateDto);
+
+        return bookService.updateBooks(filter, bookUpdateDto);
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> deleteBook(@PathVariable Long id) {
+        log.debug("DELETE /books/{} - Deleting book. Request received", id);
+
+        return bookService.deleteBook(id);
+    }
+
+    @DeleteMapping
+    public Mono<BookBulkResultDto> deleteBooks(BookFilterDto filter) {
+        log.debug("DELETE /books - Bulk deleting books. Filter: {}", filter);
+
+        return bookService.deleteBooks(filter);
+    }
+
+    /**
+     * Ответ с книгой в выбранном формате и {@code ETag} этого формата.
+     */
+    private static ResponseEntity.BodyBuilder ok(BookDto bookDto, MediaType format) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(eTag(bookDto.getVersion(), format))
+                .varyBy(HttpHeaders.ACCEPT);
+        if (format != null)
+            response.contentType(format);
+        return response;
+    }
+}
@@ -0,0 +1,45 @@
+package ru.tokmakov.bookkeeper.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Чтения, которые идут в основную базу, даже если транзакция только на чтение.
+ * Так перестраиваются представления каталога в памяти: полная загрузка с отстающей реплики потеряла бы
+ * последние изменения, и они не появились бы до следующего перестроения. Признак хранится в потоке загрузки
+ * и учитывается {@link ReplicaPool} при выдаче соединения.
+ */
+public final class PrimaryReads {
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    /**
+     * Выполнение чтений в текущем потоке с соединениями основной базы.
+     *
+     * @param reads чтения; транзакция должна начинаться внутри, соединение уже открытой транзакции не меняется.
+     * @return результат чтений.
+     */
+    public static <T> T call(Supplier<T> reads) {
+        if (isActive())
+            return reads.get();
+
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+
+    public static void run(Runnable reads) {
+        call(() -> {
+            reads.run();
+            return null;
+        });
+    }
+
+    public static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+}
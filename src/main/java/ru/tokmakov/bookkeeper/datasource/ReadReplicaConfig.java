@@ -0,0 +1,86 @@
+package ru.tokmakov.bookkeeper.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разделение чтения и записи между основной базой и репликами.
+ * Основной источник данных приложения — {@link LazyConnectionDataSourceProxy}: соединение берется при первом
+ * запросе, когда уже известно, что транзакция только на чтение ({@code @Transactional(readOnly = true)}).
+ * Такие транзакции получают соединение из {@link ReplicaPool}, остальные — из основной базы.
+ * Включается, если задана хотя бы одна реплика {@code book-keeper.datasource.replicas}.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "book-keeper.datasource", name = "replicas[0].url")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaPool replicaPool(ReplicaDataSourceProperties properties,
+                                   HikariDataSource primaryDataSource,
+                                   ObjectProvider<ReadYourWrites> readYourWrites) {
+        List<ReplicaPool.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            ReplicaDataSourceProperties.Replica replica = properties.getReplicas().get(i);
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build();
+            pool.setPoolName("replica-" + i);
+            pool.setReadOnly(true);
+            pool.setMaximumPoolSize(replica.getMaximumPoolSize() > 0
+                    ? replica.getMaximumPoolSize()
+                    : primaryDataSource.getMaximumPoolSize());
+            pool.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+            // Недоступная при старте реплика не мешает запуску: она будет отключена до восстановления.
+            pool.setInitializationFailTimeout(-1);
+            replicas.add(new ReplicaPool.Replica(pool.getPoolName(), pool));
+        }
+        return new ReplicaPool(primaryDataSource, replicas, readYourWrites.getIfAvailable(),
+                properties.getHealthCheckInterval());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaPool replicaPool) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaPool);
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "book-keeper.datasource", name = "read-your-writes-window")
+    public ReadYourWrites readYourWrites(ReplicaDataSourceProperties properties) {
+        return new ReadYourWrites(properties.getReadYourWritesWindow(), properties.getMaximumRecentWriters());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "book-keeper.datasource", name = "read-your-writes-window")
+    public ReadYourWritesFilter readYourWritesFilter(ReadYourWrites readYourWrites,
+                                                     ReplicaDataSourceProperties properties) {
+        return new ReadYourWritesFilter(readYourWrites, properties.getClientIdHeader());
+    }
+}
@@ -0,0 +1,48 @@
+package ru.tokmakov.bookkeeper.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.tokmakov.bookkeeper.event.BookChangedEvent;
+
+import java.time.Duration;
+
+/**
+ * Клиенты, недавно изменившие книги. Пока не истекло окно после записи, транзакции такого клиента
+ * только на чтение идут в основную базу, и клиент не видит реплику, отстающую от его же изменений.
+ * Клиент текущего запроса хранится в потоке обработки запроса; запись отмечается после фиксации транзакции.
+ */
+public class ReadYourWrites {
+    private final ThreadLocal<String> currentClient = new ThreadLocal<>();
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWrites(Duration window, long maximumClients) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maximumClients)
+                .build();
+    }
+
+    public void setCurrentClient(String clientId) {
+        currentClient.set(clientId);
+    }
+
+    public void clearCurrentClient() {
+        currentClient.remove();
+    }
+
+    /**
+     * Должна ли транзакция только на чтение текущего клиента идти в основную базу.
+     */
+    public boolean mustReadFromPrimary() {
+        String clientId = currentClient.get();
+        return clientId != null && recentWriters.getIfPresent(clientId) != null;
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        String clientId = currentClient.get();
+        if (clientId != null)
+            recentWriters.put(clientId, Boolean.TRUE);
+    }
+}
@@ -0,0 +1,35 @@
+package ru.tokmakov.bookkeeper.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Определяет клиента запроса для {@link ReadYourWrites}: по заголовку, а без него — по адресу клиента.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    private final ReadYourWrites readYourWrites;
+    private final String clientIdHeader;
+
+    public ReadYourWritesFilter(ReadYourWrites readYourWrites, String clientIdHeader) {
+        this.readYourWrites = readYourWrites;
+        this.clientIdHeader = clientIdHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String clientId = request.getHeader(clientIdHeader);
+        readYourWrites.setCurrentClient(clientId != null ? clientId : request.getRemoteAddr());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            readYourWrites.clearCurrentClient();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ru.tokmakov.bookkeeper.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "book-keeper.datasource")
+public class ReplicaDataSourceProperties {
+    /**
+     * Реплики для транзакций только на чтение. Если список пуст, все запросы идут в основную базу.
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * Как часто проверяется доступность реплик; отключенная реплика возвращается после успешной проверки.
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    /**
+     * Сколько ждать соединения с репликой, прежде чем отключить ее и читать из другой.
+     */
+    private Duration connectionTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Сколько после записи клиент читает из основной базы, чтобы видеть свои изменения; 0 — не отслеживать.
+     */
+    private Duration readYourWritesWindow = Duration.ZERO;
+
+    /**
+     * Заголовок с идентификатором клиента для чтения своих записей; без заголовка клиентом считается адрес.
+     */
+    private String clientIdHeader = "X-Client-Id";
+
+    /**
+     * Сколько клиентов с недавними записями помнить одновременно.
+     */
+    private long maximumRecentWriters = 100_000;
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+
+        /**
+         * Размер пула соединений реплики; 0 — как у основной базы.
+         */
+        private int maximumPoolSize = 0;
+    }
+}
@@ -0,0 +1,156 @@
+package ru.tokmakov.bookkeeper.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Источник соединений для транзакций только на чтение поверх нескольких реплик.
+ * Соединения выдаются репликами по кругу. Реплика, не выдавшая соединение, отключается,
+ * и соединение берется у следующей; фоновая проверка возвращает реплику, когда она снова доступна.
+ * Если доступных реплик нет, клиент недавно писал ({@link ReadYourWrites}) или идет перестроение представлений
+ * каталога ({@link PrimaryReads}), соединение берется из основной базы. Выдача соединения реплики отмечается
+ * в {@link ReplicaReads}, чтобы общие кэши не сохраняли прочитанное с реплики сразу после изменения.
+ */
+@Slf4j
+public class ReplicaPool extends AbstractDataSource implements MeterBinder, AutoCloseable {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWrites readYourWrites;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService healthCheck;
+
+    /**
+     * @param readYourWrites отслеживание записей клиентов или {@code null}, если чтение своих записей не требуется.
+     */
+    public ReplicaPool(DataSource primary, List<Replica> replicas, ReadYourWrites readYourWrites,
+                       Duration healthCheckInterval) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.readYourWrites = readYourWrites;
+        this.healthCheck = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = healthCheckInterval.toMillis();
+        healthCheck.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (PrimaryReads.isActive() || readYourWrites != null && readYourWrites.mustReadFromPrimary())
+            return primary.getConnection();
+
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.isHealthy())
+                continue;
+            try {
+                Connection connection = replica.dataSource().getConnection();
+                ReplicaReads.replicaUsed();
+                return connection;
+            } catch (SQLException e) {
+                eject(replica, e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica credentials are configured per replica");
+    }
+
+    /**
+     * Проверка всех реплик: недоступные отключаются, восстановившиеся возвращаются в круг.
+     */
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource().getConnection()) {
+                if (connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    if (!replica.isHealthy())
+                        log.info("Replica {} is available again", replica.name());
+                    replica.healthy = true;
+                } else {
+                    eject(replica, null);
+                }
+            } catch (SQLException e) {
+                eject(replica, e);
+            }
+        }
+    }
+
+    public List<Replica> replicas() {
+        return replicas;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : replicas) {
+            Gauge.builder("book-keeper.datasource.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                    .description("Whether the replica receives read-only transactions")
+                    .tag("replica", replica.name())
+                    .register(registry);
+            if (replica.dataSource() instanceof HikariDataSource pool && pool.getMetricsTrackerFactory() == null)
+                pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        healthCheck.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource() instanceof AutoCloseable closeable)
+                closeable.close();
+        }
+    }
+
+    private static void eject(Replica replica, SQLException e) {
+        if (replica.isHealthy())
+            log.warn("Replica {} is unavailable, reads go to other replicas: {}",
+                    replica.name(), e == null ? "connection is not valid" : e.getMessage());
+        replica.healthy = false;
+    }
+
+    public static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public DataSource dataSource() {
+            return dataSource;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+    }
+}
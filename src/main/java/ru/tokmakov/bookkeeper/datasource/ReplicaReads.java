@@ -0,0 +1,51 @@
+package ru.tokmakov.bookkeeper.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Отслеживание чтений с реплик. Общие кэши выполняют загрузку внутри {@link #track(Supplier)} и узнают,
+ * выдавала ли соединение реплика: такой результат может еще не содержать недавнее изменение,
+ * и кэш решает, можно ли его сохранить. Признак хранится в потоке загрузки и выставляется {@link ReplicaPool}.
+ */
+public final class ReplicaReads {
+    private static final ThreadLocal<Tracking> CURRENT = new ThreadLocal<>();
+
+    private ReplicaReads() {
+    }
+
+    /**
+     * Выполнение чтений с отслеживанием соединений реплик.
+     *
+     * @param reads чтения; транзакция должна начинаться внутри, соединение уже открытой транзакции не учитывается.
+     * @return результат чтений и признак того, что хотя бы одно соединение выдала реплика.
+     */
+    public static <T> Result<T> track(Supplier<T> reads) {
+        Tracking outer = CURRENT.get();
+        Tracking tracking = new Tracking();
+        CURRENT.set(tracking);
+        try {
+            T value = reads.get();
+            return new Result<>(value, tracking.replicaUsed);
+        } finally {
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                outer.replicaUsed |= tracking.replicaUsed;
+                CURRENT.set(outer);
+            }
+        }
+    }
+
+    static void replicaUsed() {
+        Tracking tracking = CURRENT.get();
+        if (tracking != null)
+            tracking.replicaUsed = true;
+    }
+
+    public record Result<T>(T value, boolean fromReplica) {
+    }
+
+    private static final class Tracking {
+        private boolean replicaUsed;
+    }
+}
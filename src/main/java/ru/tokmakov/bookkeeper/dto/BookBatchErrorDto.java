@@ -0,0 +1,15 @@
+package ru.tokmakov.bookkeeper.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBatchErrorDto {
+    private int index;
+    private List<String> messages;
+}
@@ -0,0 +1,15 @@
+package ru.tokmakov.bookkeeper.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBatchResultDto {
+    private List<BookDto> books;
+    private List<BookBatchErrorDto> errors;
+}
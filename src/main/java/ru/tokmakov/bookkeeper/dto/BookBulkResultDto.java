@@ -0,0 +1,13 @@
+package ru.tokmakov.bookkeeper.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBulkResultDto {
+    private int affected;
+    private String nextCursor;
+}
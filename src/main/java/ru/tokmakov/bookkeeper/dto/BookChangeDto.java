@@ -0,0 +1,30 @@
+package ru.tokmakov.bookkeeper.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.tokmakov.bookkeeper.event.BookChangedEvent;
+
+import java.time.Instant;
+
+/**
+ * Изменение книги из ленты изменений.
+ * {@code book} — состояние книги после изменения; для удаления ({@code DELETED}) оно отсутствует.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookChangeDto {
+    private Long id;
+    private BookChangedEvent.Type type;
+    private Long bookId;
+    private BookDto book;
+    private Instant changedAt;
+
+    public BookChangeDto(Long id, BookChangedEvent.Type type, Long bookId, String title, String author, String genre,
+                         Long version, Instant updatedAt, Instant changedAt) {
+        this(id, type, bookId,
+                type == BookChangedEvent.Type.DELETED ? null : new BookDto(bookId, title, author, genre, version, updatedAt),
+                changedAt);
+    }
+}
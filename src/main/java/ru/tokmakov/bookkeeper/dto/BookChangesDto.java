@@ -0,0 +1,16 @@
+package ru.tokmakov.bookkeeper.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookChangesDto {
+    private List<BookChangeDto> changes;
+    private long nextSince;
+    private boolean hasMore;
+}
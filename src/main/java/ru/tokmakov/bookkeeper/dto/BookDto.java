@@ -1,11 +1,19 @@
 package ru.tokmakov.bookkeeper.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class BookDto {
     private Long id;
     private String title;
     private String author;
     private String genre;
+    private Long version;
+    private Instant updatedAt;
 }
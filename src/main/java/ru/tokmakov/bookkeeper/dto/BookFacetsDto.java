@@ -0,0 +1,16 @@
+package ru.tokmakov.bookkeeper.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookFacetsDto {
+    private long total;
+    private List<BookFacetDto> genres;
+    private List<BookFacetDto> authors;
+}
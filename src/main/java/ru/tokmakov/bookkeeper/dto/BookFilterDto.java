@@ -0,0 +1,14 @@
+package ru.tokmakov.bookkeeper.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BookFilterDto {
+    private List<Long> ids;
+    private String author;
+    private String genre;
+    private String titlePrefix;
+    private String cursor;
+}
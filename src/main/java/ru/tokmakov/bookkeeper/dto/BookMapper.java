@@ -11,6 +11,8 @@ public class BookMapper {
         bookDto.setTitle(book.getTitle());
         bookDto.setAuthor(book.getAuthor());
         bookDto.setGenre(book.getGenre());
+        bookDto.setVersion(book.getVersion());
+        bookDto.setUpdatedAt(book.getUpdatedAt());
         return bookDto;
     }
 
@@ -0,0 +1,16 @@
+package ru.tokmakov.bookkeeper.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSuggestionsDto {
+    private List<BookSuggestionDto> titles;
+    private List<BookSuggestionDto> authors;
+    private List<BookSuggestionDto> genres;
+}
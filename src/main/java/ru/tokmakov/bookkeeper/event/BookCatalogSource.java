@@ -0,0 +1,27 @@
+package ru.tokmakov.bookkeeper.event;
+
+import ru.tokmakov.bookkeeper.dto.BookDto;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Источник каталога для загрузки {@link BookCatalogView}: полностью при старте и по идентификаторам
+ * после изменений на других узлах.
+ */
+public interface BookCatalogSource {
+    /**
+     * Последовательная выгрузка всех книг в порядке возрастания идентификатора.
+     *
+     * @param consumer получатель книг в формате {@link BookDto}.
+     */
+    void exportBooks(Consumer<BookDto> consumer);
+
+    /**
+     * Выгрузка текущего состояния книг по идентификаторам; удаленных книг в выгрузке нет.
+     *
+     * @param bookIds  идентификаторы книг.
+     * @param consumer получатель книг в формате {@link BookDto}.
+     */
+    void exportBooks(Collection<Long> bookIds, Consumer<BookDto> consumer);
+}
@@ -0,0 +1,36 @@
+package ru.tokmakov.bookkeeper.event;
+
+import ru.tokmakov.bookkeeper.dto.BookDto;
+
+/**
+ * Производное представление каталога в памяти (индекс, агрегат), поддерживаемое инкрементально.
+ * Все представления заполняются одним проходом по каталогу при старте и затем получают
+ * изменения книг после фиксации транзакций на любом узле через {@link BookCatalogViewUpdater}.
+ */
+public interface BookCatalogView {
+    /**
+     * Очистка представления перед полной перезагрузкой.
+     */
+    void clear();
+
+    /**
+     * Добавление книги или замена ее предыдущего состояния. Представление само помнит,
+     * что нужно убрать из него при замене или удалении книги.
+     *
+     * @param book новое состояние книги.
+     */
+    void put(BookDto book);
+
+    /**
+     * Удаление книги; отсутствующая книга пропускается.
+     *
+     * @param bookId идентификатор книги.
+     */
+    void remove(Long bookId);
+
+    /**
+     * Завершение полной перезагрузки; позволяет отложить дорогие пересчеты до конца загрузки.
+     */
+    default void loaded() {
+    }
+}
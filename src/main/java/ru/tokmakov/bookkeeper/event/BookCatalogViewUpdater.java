@@ -0,0 +1,193 @@
+package ru.tokmakov.bookkeeper.event;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.tokmakov.bookkeeper.cache.CacheInvalidationTransport;
+import ru.tokmakov.bookkeeper.datasource.PrimaryReads;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Поддержание всех {@link BookCatalogView} в актуальном состоянии.
+ * События после фиксации приходят в порядке обратных вызовов, а не фиксации транзакций: два обновления
+ * одной книги могут прийти в обратном порядке, а сохранение — после удаления. Поэтому для каждой книги
+ * хранится последняя примененная версия, и событие с той же или меньшей версией пропускается.
+ * Удаленная книга помнится как надгробие, пока еще возможны запоздавшие события о ней;
+ * идентификаторы книг не переиспользуются.
+ * <p>
+ * Блокировка берется на одну книгу, а не на всю перезагрузку: изменения во время перезагрузки применяются сразу,
+ * и запись не ждет окончания прохода по каталогу. Проверка версий делает порядок неважным: книга из выгрузки
+ * не заменяет более новое изменение и не возвращает удаленную книгу.
+ * <p>
+ * События об изменениях приходят только на узел, выполнивший запись. Чтобы представления не расходились между узлами,
+ * обновитель подписан на {@link CacheInvalidationTransport}: получив идентификатор книги, измененной на любом узле,
+ * он в фоновом потоке перечитывает книгу из основной базы и применяет ее по тем же правилам версий. Идентификаторы,
+ * пришедшие, пока идет чтение, объединяются в следующий пакет. Для своих изменений перечитанная версия совпадает
+ * с уже примененной и пропускается.
+ */
+@Slf4j
+@Component
+public class BookCatalogViewUpdater implements DisposableBean {
+    private static final Duration TOMBSTONE_TTL = Duration.ofMinutes(10);
+
+    private final BookCatalogSource catalogSource;
+    private final List<BookCatalogView> views;
+    private final Object reloadLock = new Object();
+    private final Map<Long, Long> versions = new HashMap<>();
+    private final Cache<Long, Boolean> tombstones = Caffeine.newBuilder()
+            .expireAfterWrite(TOMBSTONE_TTL)
+            .build();
+    private final Set<Long> pendingRefresh = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-view-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BookCatalogViewUpdater(BookCatalogSource catalogSource, List<BookCatalogView> views,
+                                  CacheInvalidationTransport transport) {
+        this.catalogSource = catalogSource;
+        this.views = views;
+        transport.subscribe(this::refreshLater);
+    }
+
+    /**
+     * Полная загрузка представлений одним проходом по каталогу основной базы.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        synchronized (reloadLock) {
+            log.info("Loading {} catalog views", views.size());
+
+            synchronized (this) {
+                versions.clear();
+                views.forEach(BookCatalogView::clear);
+            }
+            PrimaryReads.run(() -> catalogSource.exportBooks(this::put));
+            views.forEach(BookCatalogView::loaded);
+
+            log.info("Catalog views loaded with {} books", size());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.type() == BookChangedEvent.Type.DELETED)
+            remove(event.bookId());
+        else
+            put(event.book());
+    }
+
+    /**
+     * Есть ли книги, ожидающие перечитывания, или перечитывание идет сейчас.
+     */
+    public boolean isRefreshing() {
+        return refreshScheduled.get();
+    }
+
+    @Override
+    public void destroy() {
+        refresher.shutdownNow();
+    }
+
+    private void refreshLater(Long bookId) {
+        pendingRefresh.add(bookId);
+        scheduleRefresh();
+    }
+
+    private void scheduleRefresh() {
+        if (!refreshScheduled.compareAndSet(false, true))
+            return;
+        try {
+            refresher.execute(this::refresh);
+        } catch (RejectedExecutionException e) {
+            log.debug("Catalog view refresher is stopped");
+        }
+    }
+
+    private void refresh() {
+        try {
+            refreshPending();
+        } finally {
+            refreshScheduled.set(false);
+            if (!pendingRefresh.isEmpty())
+                scheduleRefresh();
+        }
+    }
+
+    /**
+     * Перечитывание книг, измененных на любом узле, из основной базы; отсутствующие книги удаляются.
+     */
+    private void refreshPending() {
+        List<Long> bookIds = new ArrayList<>();
+        for (Iterator<Long> iterator = pendingRefresh.iterator(); iterator.hasNext(); ) {
+            bookIds.add(iterator.next());
+            iterator.remove();
+        }
+        if (bookIds.isEmpty())
+            return;
+
+        Set<Long> found = new HashSet<>();
+        try {
+            PrimaryReads.run(() -> catalogSource.exportBooks(bookIds, book -> {
+                found.add(book.getId());
+                put(book);
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh {} books in catalog views: {}", bookIds.size(), e.getMessage());
+            return;
+        }
+        bookIds.stream()
+                .filter(bookId -> !found.contains(bookId))
+                .forEach(this::remove);
+        log.debug("Refreshed {} books in catalog views", bookIds.size());
+    }
+
+    private synchronized void put(BookDto book) {
+        if (tombstones.getIfPresent(book.getId()) != null) {
+            log.debug("Skipping change of deleted book {}", book.getId());
+            return;
+        }
+
+        Long applied = versions.get(book.getId());
+        if (applied != null && book.getVersion() != null && book.getVersion() <= applied) {
+            log.debug("Skipping stale version {} of book {}, applied version {}", book.getVersion(), book.getId(), applied);
+            return;
+        }
+
+        versions.put(book.getId(), book.getVersion());
+        views.forEach(view -> view.put(book));
+    }
+
+    private synchronized int size() {
+        return versions.size();
+    }
+
+    private synchronized void remove(Long bookId) {
+        tombstones.put(bookId, Boolean.TRUE);
+        if (versions.containsKey(bookId)) {
+            versions.remove(bookId);
+            views.forEach(view -> view.remove(bookId));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.tokmakov.bookkeeper.event;
+
+import ru.tokmakov.bookkeeper.dto.BookDto;
+
+/**
+ * Событие изменения книги, публикуемое сервисом внутри транзакции записи.
+ *
+ * @param type   тип изменения.
+ * @param bookId идентификатор книги.
+ * @param book   новое состояние книги; {@code null} для удаления.
+ */
+public record BookChangedEvent(Type type, Long bookId, BookDto book) {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static BookChangedEvent created(BookDto book) {
+        return new BookChangedEvent(Type.CREATED, book.getId(), book);
+    }
+
+    public static BookChangedEvent updated(Long bookId, BookDto book) {
+        return new BookChangedEvent(Type.UPDATED, bookId, book);
+    }
+
+    public static BookChangedEvent deleted(Long bookId) {
+        return new BookChangedEvent(Type.DELETED, bookId, null);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.tokmakov.bookkeeper.exception;
+
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
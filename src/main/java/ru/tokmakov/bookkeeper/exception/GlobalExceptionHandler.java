@@ -1,28 +1,68 @@
 package ru.tokmakov.bookkeeper.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.server.ServerWebInputException;
 
+import java.sql.SQLTransientConnectionException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Преобразование исключений в ответы {@link ApiError}.
+ * Каждый ответ увеличивает счетчик {@value #API_ERRORS_METRIC} с тегом {@code status}, равным статусу {@link ApiError}.
+ * Ошибки клиента пишутся в журнал только на уровне DEBUG: их статус и так попадает в строку журнала запросов.
+ */
 @Slf4j
 @RestControllerAdvice
-public class GlobalExceptionHandler {
+public class GlobalExceptionHandler implements MeterBinder {
+    public static final String API_ERRORS_METRIC = "book-keeper.api.errors";
+
+    private volatile Map<String, Counter> errorCounters = Map.of();
+
+    /**
+     * Счетчики регистрируются заранее для всех статусов, чтобы ошибки были видны в метриках с нуля.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        errorCounters = Stream.of(HttpStatus.BAD_REQUEST, HttpStatus.NOT_FOUND, HttpStatus.CONFLICT,
+                        HttpStatus.PRECONDITION_FAILED, HttpStatus.SERVICE_UNAVAILABLE)
+                .map(HttpStatus::name)
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), status -> apiErrorCounter(registry, status)));
+    }
+
+    public static Counter apiErrorCounter(MeterRegistry registry, String status) {
+        return Counter.builder(API_ERRORS_METRIC)
+                .description("Error responses by ApiError status")
+                .tag("status", status)
+                .register(registry);
+    }
 
     @ExceptionHandler({
             MethodArgumentNotValidException.class,
             HttpMessageNotReadableException.class,
-            MethodArgumentTypeMismatchException.class
+            MethodArgumentTypeMismatchException.class,
+            ServerWebInputException.class,
+            BadRequestException.class
     })
     public ResponseEntity<ApiError> handleInvalidArgument(Exception e) {
-        log.error("Handled BAD_REQUEST exception: {}", e.getMessage(), e);
+        log.debug("Handled BAD_REQUEST exception: {}", e.getMessage(), e);
 
         ApiError apiError = new ApiError(
                 "BAD_REQUEST",
@@ -30,12 +70,13 @@ public class GlobalExceptionHandler {
                 e.getMessage(),
                 LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
 
+        count(apiError);
         return new ResponseEntity<>(apiError, HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler({NotFoundException.class})
     public ResponseEntity<ApiError> handleUserNotFoundException(RuntimeException e) {
-        log.error("Handled NOT_FOUND exception: {}", e.getMessage(), e);
+        log.debug("Handled NOT_FOUND exception: {}", e.getMessage(), e);
         ApiError apiError = new ApiError(
                 "NOT_FOUND",
                 "The required object was not found.",
@@ -43,6 +84,62 @@ public class GlobalExceptionHandler {
                 LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
         );
 
+        count(apiError);
         return new ResponseEntity<>(apiError, HttpStatus.NOT_FOUND);
     }
+
+    @ExceptionHandler({ConflictException.class})
+    public ResponseEntity<ApiError> handleConflict(RuntimeException e) {
+        log.debug("Handled CONFLICT exception: {}", e.getMessage());
+        ApiError apiError = new ApiError(
+                "CONFLICT",
+                "The request is still being processed.",
+                e.getMessage(),
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
+        );
+
+        count(apiError);
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(apiError);
+    }
+
+    @ExceptionHandler({
+            PreconditionFailedException.class,
+            OptimisticLockingFailureException.class
+    })
+    public ResponseEntity<ApiError> handlePreconditionFailed(RuntimeException e) {
+        log.debug("Handled PRECONDITION_FAILED exception: {}", e.getMessage());
+        ApiError apiError = new ApiError(
+                "PRECONDITION_FAILED",
+                "The object was modified concurrently.",
+                e.getMessage(),
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
+        );
+
+        count(apiError);
+        return new ResponseEntity<>(apiError, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler({CannotCreateTransactionException.class, SQLTransientConnectionException.class})
+    public ResponseEntity<ApiError> handleConnectionUnavailable(Exception e) {
+        log.warn("Handled SERVICE_UNAVAILABLE exception: {}", e.getMessage());
+        ApiError apiError = new ApiError(
+                "SERVICE_UNAVAILABLE",
+                "The server is overloaded.",
+                e.getMessage(),
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
+        );
+
+        count(apiError);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(apiError);
+    }
+
+    private void count(ApiError apiError) {
+        Counter counter = errorCounters.get(apiError.getStatus());
+        if (counter != null)
+            counter.increment();
+    }
 }
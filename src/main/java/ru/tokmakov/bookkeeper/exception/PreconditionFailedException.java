@@ -0,0 +1,7 @@
+package ru.tokmakov.bookkeeper.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
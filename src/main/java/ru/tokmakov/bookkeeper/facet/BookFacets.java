@@ -0,0 +1,143 @@
+package ru.tokmakov.bookkeeper.facet;
+
+import org.springframework.stereotype.Component;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookFacetDto;
+import ru.tokmakov.bookkeeper.dto.BookFacetsDto;
+import ru.tokmakov.bookkeeper.event.BookCatalogView;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Число книг по жанрам и авторам.
+ * Счетчики изменяются на каждое сохранение, обновление и удаление книги,
+ * поэтому запрос не требует группировки по всей таблице.
+ * Значения каждого поля хранятся и упорядоченными по числу книг: изменение счетчика переставляет одно значение,
+ * а запрос читает первые {@code limit} значений, не сортируя все жанры и авторов.
+ */
+@Component
+public class BookFacets implements BookCatalogView {
+    public static final int MAX_FACET_VALUES = 1000;
+
+    private static final Comparator<Count> BY_COUNT = Comparator.comparingLong(Count::count).reversed()
+            .thenComparing(Count::value);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Counts genres = new Counts();
+    private final Counts authors = new Counts();
+    private final Map<Long, Facet> books = new HashMap<>();
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            genres.clear();
+            authors.clear();
+            books.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(BookDto book) {
+        lock.writeLock().lock();
+        try {
+            Facet current = new Facet(book.getGenre(), book.getAuthor());
+            Facet previous = books.put(book.getId(), current);
+            if (previous != null)
+                update(previous, -1);
+            update(current, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            Facet previous = books.remove(bookId);
+            if (previous != null)
+                update(previous, -1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Наиболее частые жанры и авторы.
+     *
+     * @param limit максимальное число значений каждого поля, не более {@value #MAX_FACET_VALUES}.
+     * @return число книг всего, по жанрам и по авторам в формате {@link BookFacetsDto}.
+     */
+    public BookFacetsDto facets(int limit) {
+        lock.readLock().lock();
+        try {
+            return new BookFacetsDto(books.size(), genres.top(limit), authors.top(limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(Facet facet, long delta) {
+        genres.add(facet.genre(), delta);
+        authors.add(facet.author(), delta);
+    }
+
+    /**
+     * Счетчики значений одного поля и те же счетчики, упорядоченные по убыванию числа книг.
+     */
+    private static final class Counts {
+        private final Map<String, Long> counts = new HashMap<>();
+        private final NavigableSet<Count> ordered = new TreeSet<>(BY_COUNT);
+
+        void add(String value, long delta) {
+            if (value == null)
+                return;
+
+            Long previous = counts.get(value);
+            long current = (previous != null ? previous : 0) + delta;
+            if (previous != null)
+                ordered.remove(new Count(value, previous));
+            if (current == 0) {
+                counts.remove(value);
+            } else {
+                counts.put(value, current);
+                ordered.add(new Count(value, current));
+            }
+        }
+
+        List<BookFacetDto> top(int limit) {
+            List<BookFacetDto> top = new ArrayList<>(Math.min(limit, ordered.size()));
+            for (Count count : ordered) {
+                if (top.size() == limit)
+                    break;
+                top.add(new BookFacetDto(count.value(), count.count()));
+            }
+            return top;
+        }
+
+        void clear() {
+            counts.clear();
+            ordered.clear();
+        }
+    }
+
+    private record Count(String value, long count) {
+    }
+
+    /**
+     * Значения полей книги, учтенные в счетчиках; нужны, чтобы вычесть книгу при изменении или удалении.
+     */
+    private record Facet(String genre, String author) {
+    }
+}
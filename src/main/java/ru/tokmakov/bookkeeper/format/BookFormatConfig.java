@@ -0,0 +1,44 @@
+package ru.tokmakov.bookkeeper.format;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Конвертеры CBOR и Smile на основе настроенного Spring {@link ObjectMapper}.
+ * Конвертеры по умолчанию строят собственный {@link ObjectMapper} и не видят настроек {@code spring.jackson.*}.
+ */
+@Configuration
+public class BookFormatConfig {
+    @Bean
+    @Profile("!reactive")
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2CborHttpMessageConverter(BookFormats.cborMapper(objectMapper));
+    }
+
+    @Bean
+    @Profile("!reactive")
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2SmileHttpMessageConverter(BookFormats.smileMapper(objectMapper));
+    }
+
+    /**
+     * В WebFlux Smile входит в кодеки по умолчанию после JSON и заменяется на кодек с настроенным {@link ObjectMapper}.
+     * CBOR в профиле {@code reactive} не поддерживается: кодек CBOR в WebFlux не умеет кодировать потоки.
+     */
+    @Bean
+    @Profile("reactive")
+    public CodecCustomizer smileCodecCustomizer(ObjectMapper objectMapper) {
+        ObjectMapper smileMapper = BookFormats.smileMapper(objectMapper);
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, BookFormats.SMILE));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, BookFormats.SMILE));
+        };
+    }
+}
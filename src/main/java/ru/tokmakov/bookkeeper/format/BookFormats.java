@@ -0,0 +1,83 @@
+package ru.tokmakov.bookkeeper.format;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.experimental.UtilityClass;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Двоичные форматы ответов. CBOR и Smile кодируют те же DTO, что и JSON, с теми же настройками Jackson,
+ * поэтому клиент выбирает формат заголовком {@code Accept}, а JSON остается форматом по умолчанию.
+ */
+@UtilityClass
+public class BookFormats {
+    public static final String CBOR_VALUE = MediaType.APPLICATION_CBOR_VALUE;
+    public static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+
+    /**
+     * Последовательность значений CBOR (RFC 8742) для потоковой выгрузки — двоичный аналог NDJSON.
+     */
+    public static final String CBOR_SEQ_VALUE = "application/cbor-seq";
+    public static final MediaType CBOR_SEQ = MediaType.parseMediaType(CBOR_SEQ_VALUE);
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+
+    /**
+     * Форматы ответов с одним значением в порядке предпочтения сервера.
+     */
+    public static final List<MediaType> RESPONSE_FORMATS = List.of(MediaType.APPLICATION_JSON, CBOR, SMILE);
+
+    /**
+     * Выбор формата по заголовку {@code Accept}: первый по качеству и точности из {@code formats},
+     * а если заголовка нет или подходит любой — первый из {@code formats}.
+     * Частые заголовки распознаются без разбора.
+     *
+     * @return выбранный формат или {@code null}, если ни один не подходит или заголовок некорректен.
+     */
+    public static MediaType negotiate(String accept, List<MediaType> formats) {
+        if (accept == null || accept.isBlank() || accept.equals(MediaType.ALL_VALUE))
+            return formats.get(0);
+        for (MediaType format : formats) {
+            if (accept.equals(format.toString()))
+                return format;
+        }
+
+        List<MediaType> acceptable;
+        try {
+            acceptable = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        MimeTypeUtils.sortBySpecificity(acceptable);
+        acceptable.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : acceptable) {
+            for (MediaType format : formats) {
+                if (type.getQualityValue() > 0 && type.isCompatibleWith(format))
+                    return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Копия {@code objectMapper} с кодированием в CBOR.
+     */
+    public static ObjectMapper cborMapper(ObjectMapper objectMapper) {
+        return objectMapper.copyWith(new CBORFactory());
+    }
+
+    /**
+     * Копия {@code objectMapper} с кодированием в Smile.
+     */
+    public static ObjectMapper smileMapper(ObjectMapper objectMapper) {
+        return objectMapper.copyWith(new SmileFactory());
+    }
+}
@@ -0,0 +1,30 @@
+package ru.tokmakov.bookkeeper.idempotency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "book-keeper.idempotency")
+public class IdempotencyProperties {
+    /**
+     * Максимальное число запоминаемых ключей; самые старые вытесняются первыми.
+     */
+    private long maximumSize = 100_000;
+
+    /**
+     * Сколько ключ помнит результат первого запроса. Повтор после этого срока создаст новую книгу.
+     */
+    private Duration expireAfterWrite = Duration.ofHours(24);
+
+    /**
+     * Максимальная длина ключа.
+     */
+    private int maxKeyLength = 255;
+
+    /**
+     * Сколько повтор ждет завершения первого запроса с тем же ключом, прежде чем получить 409.
+     */
+    private Duration awaitTimeout = Duration.ofSeconds(10);
+}
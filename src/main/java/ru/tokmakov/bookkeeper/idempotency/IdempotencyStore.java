@@ -0,0 +1,141 @@
+package ru.tokmakov.bookkeeper.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import ru.tokmakov.bookkeeper.exception.BadRequestException;
+import ru.tokmakov.bookkeeper.exception.ConflictException;
+
+import java.security.Principal;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Хранилище ключей идемпотентности для создания книг.
+ * Первый запрос с ключом выполняет операцию, а повторы с тем же ключом получают ее результат без обращения к базе.
+ * Повтор, пришедший во время выполнения первого запроса, ждет его завершения не дольше {@code await-timeout},
+ * а затем получает {@link ConflictException}, чтобы зависший первый запрос не занимал потоки повторов.
+ * Ключи действуют в пределах клиента: одинаковые ключи разных клиентов не пересекаются.
+ * Клиент без аутентификации определяется по заголовку {@code X-Client-Id}, а без него — по адресу. Заголовок
+ * можно подделать, поэтому ему стоит доверять только за шлюзом, который сам его выставляет.
+ * <p>
+ * Запоминаются только успешные результаты: при ошибке ключ освобождается, и клиент может повторить запрос.
+ * Ключ нельзя использовать с другим телом запроса. Число ключей и срок их жизни ограничены,
+ * поэтому повтор после вытеснения ключа выполнится заново. Ключи хранятся в памяти узла.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyStore implements MeterBinder {
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String CLIENT_ID = "X-Client-Id";
+    public static final String CACHE_NAME = "idempotency-keys";
+
+    private final int maxKeyLength;
+    private final long awaitTimeoutNanos;
+    private final Cache<ClientKey, Entry<?>> entries;
+
+    public IdempotencyStore(IdempotencyProperties properties) {
+        this.maxKeyLength = properties.getMaxKeyLength();
+        this.awaitTimeoutNanos = properties.getAwaitTimeout().toNanos();
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Клиент, в пределах которого действуют ключи запроса.
+     * Пользователь, заголовок и адрес разнесены по своим пространствам, чтобы заголовок с именем пользователя
+     * или адресом не попадал в чужие ключи.
+     *
+     * @param principal     аутентифицированный пользователь или {@code null}.
+     * @param clientId      значение заголовка {@code X-Client-Id} или {@code null}.
+     * @param remoteAddress адрес клиента.
+     * @return идентификатор клиента.
+     */
+    public static String client(Principal principal, String clientId, String remoteAddress) {
+        if (principal != null)
+            return "user:" + principal.getName();
+        if (clientId != null)
+            return "client:" + clientId;
+        return "address:" + remoteAddress;
+    }
+
+    /**
+     * Выполнение операции один раз для ключа.
+     *
+     * @param client    клиент, в пределах которого действует ключ, из {@link #client}.
+     * @param key       значение заголовка {@code Idempotency-Key}; {@code null} выполняет операцию без запоминания.
+     * @param request   тело запроса, с которым сравниваются повторы.
+     * @param operation операция; ее исключение получают все ожидающие повторы.
+     * @throws BadRequestException если ключ пустой, слишком длинный или уже использован с другим телом запроса.
+     * @throws ConflictException   если первый запрос с ключом не завершился за {@code await-timeout}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String client, String key, Object request, Supplier<T> operation) {
+        if (key == null)
+            return operation.get();
+        if (key.isBlank() || key.length() > maxKeyLength)
+            throw new BadRequestException(IDEMPOTENCY_KEY + " must be between 1 and " + maxKeyLength + " characters");
+
+        Entry<T> entry = new Entry<>(request, new CompletableFuture<>());
+        ClientKey clientKey = new ClientKey(Objects.requireNonNull(client), key);
+        Entry<?> existing = entries.asMap().putIfAbsent(clientKey, entry);
+        if (existing != null) {
+            if (!Objects.equals(existing.request(), request))
+                throw new BadRequestException(IDEMPOTENCY_KEY + " " + key + " was already used with a different request");
+            log.debug("Repeated request with {} {}", IDEMPOTENCY_KEY, key);
+            return await(key, (CompletableFuture<T>) existing.result());
+        }
+
+        try {
+            T result = operation.get();
+            entry.result().complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            entries.asMap().remove(clientKey, entry);
+            entry.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, entries, CACHE_NAME);
+    }
+
+    private <T> T await(String key, CompletableFuture<T> result) {
+        try {
+            return result.get(awaitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.debug("Request with {} {} is still in progress", IDEMPOTENCY_KEY, key);
+            throw new ConflictException("Request with " + IDEMPOTENCY_KEY + " " + key + " is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while waiting for request with " + IDEMPOTENCY_KEY + " " + key);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if (e.getCause() instanceof Error cause)
+                throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private record ClientKey(String client, String key) {
+    }
+
+    private record Entry<T>(Object request, CompletableFuture<T> result) {
+    }
+}
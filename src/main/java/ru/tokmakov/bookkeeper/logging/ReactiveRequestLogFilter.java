@@ -0,0 +1,45 @@
+package ru.tokmakov.bookkeeper.logging;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Строка журнала запросов для WebFlux: пишется после завершения ответа, включая потоковые.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@EnableConfigurationProperties(RequestLogProperties.class)
+public class ReactiveRequestLogFilter implements WebFilter {
+    private final RequestLogger requestLogger;
+
+    public ReactiveRequestLogFilter(RequestLogProperties properties) {
+        this.requestLogger = new RequestLogger(properties);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().pathWithinApplication().value();
+        if (requestLogger.isExcluded(path))
+            return chain.filter(exchange);
+
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    requestLogger.log(request.getMethod().name(), path,
+                            status == null ? HttpStatus.OK.value() : status.value(), System.nanoTime() - start);
+                });
+    }
+}
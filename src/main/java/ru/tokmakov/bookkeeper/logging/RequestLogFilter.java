@@ -0,0 +1,100 @@
+package ru.tokmakov.bookkeeper.logging;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Пишет строку журнала запросов после завершения запроса, включая потоковые ответы.
+ * Стоит первым в цепочке фильтров, поэтому отказы 503 тоже попадают в журнал.
+ * Асинхронный запрос, прерванный таймаутом или ошибкой, записывается сразу со статусом 503 или 500.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@EnableConfigurationProperties(RequestLogProperties.class)
+public class RequestLogFilter extends OncePerRequestFilter {
+    private final RequestLogger requestLogger;
+
+    public RequestLogFilter(RequestLogProperties properties) {
+        this.requestLogger = new RequestLogger(properties);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return requestLogger.isExcluded(path(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new LoggingListener(request, response, start));
+            } else {
+                int status = failed ? HttpStatus.INTERNAL_SERVER_ERROR.value() : response.getStatus();
+                requestLogger.log(request.getMethod(), path(request), status, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    @RequiredArgsConstructor
+    private class LoggingListener implements AsyncListener {
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final long start;
+        private final AtomicBoolean logged = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            log(response.getStatus());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            log(HttpStatus.SERVICE_UNAVAILABLE.value());
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            log(HttpStatus.INTERNAL_SERVER_ERROR.value());
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        /**
+         * Одна строка на запрос: после таймаута или ошибки контейнер еще вызывает onComplete.
+         */
+        private void log(int status) {
+            if (logged.compareAndSet(false, true))
+                requestLogger.log(request.getMethod(), path(request), status, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package ru.tokmakov.bookkeeper.logging;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "book-keeper.request-log")
+public class RequestLogProperties {
+    /**
+     * Включает строку журнала на каждый запрос.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Доля запросов, попадающих в журнал, от 0 до 1. Ошибки сервера и медленные запросы пишутся всегда.
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * Запросы дольше этого порога пишутся в журнал независимо от выборки.
+     */
+    private Duration slowThreshold = Duration.ofSeconds(1);
+
+    /**
+     * Пути, запросы к которым не пишутся в журнал.
+     */
+    private List<String> excludedPaths = List.of("/actuator/health", "/actuator/prometheus");
+}
@@ -0,0 +1,57 @@
+package ru.tokmakov.bookkeeper.logging;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Журнал запросов: одна строка на запрос с методом, путем, статусом и длительностью.
+ * В журнал попадает случайная выборка запросов с долей {@link RequestLogProperties#getSampleRate()},
+ * а также все ответы 5xx и запросы дольше {@link RequestLogProperties#getSlowThreshold()}.
+ * Поля строки передаются как пары ключ-значение и при структурированном журнале становятся полями JSON.
+ */
+@Slf4j
+public class RequestLogger {
+    private final boolean enabled;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final Set<String> excludedPaths;
+
+    public RequestLogger(RequestLogProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.sampleRate = properties.getSampleRate();
+        this.slowThresholdNanos = properties.getSlowThreshold().toNanos();
+        this.excludedPaths = Set.copyOf(properties.getExcludedPaths());
+    }
+
+    public boolean isExcluded(String path) {
+        return !enabled || excludedPaths.contains(path);
+    }
+
+    /**
+     * Запись строки о завершенном запросе, если он попал в выборку.
+     *
+     * @param durationNanos длительность обработки запроса в наносекундах.
+     */
+    public void log(String method, String path, int status, long durationNanos) {
+        if (!log.isInfoEnabled() || !shouldLog(status, durationNanos))
+            return;
+
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        log.atInfo()
+                .addKeyValue("method", method)
+                .addKeyValue("path", path)
+                .addKeyValue("status", status)
+                .addKeyValue("durationMs", durationMs)
+                .log("{} {} {} {}ms", method, path, status, durationMs);
+    }
+
+    private boolean shouldLog(int status, long durationNanos) {
+        return status >= 500
+                || durationNanos >= slowThresholdNanos
+                || sampleRate >= 1.0
+                || sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
@@ -0,0 +1,45 @@
+package ru.tokmakov.bookkeeper.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import ru.tokmakov.bookkeeper.event.BookChangedEvent;
+
+import java.time.Instant;
+
+/**
+ * Запись журнала изменений книг. Пишется в той же транзакции, что и само изменение,
+ * и хранит состояние книги после изменения; у удаления состояние пустое.
+ * Идентификатор возрастает в порядке записи и служит курсором ленты изменений, поэтому последовательность
+ * выдает значения по одному, без блоков на узел: номера из блоков разных узлов перемежались бы во времени,
+ * и курсор проскакивал бы изменения. Записи вставляет {@link ru.tokmakov.bookkeeper.repository.BookChangeRepositoryCustom}
+ * пакетом, вычисляя номер и время изменения в самом операторе, так что отдельных обращений к последовательности нет.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "book_changes", indexes = @Index(name = "idx_book_changes_book_id", columnList = "book_id"))
+public class BookChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_changes_seq")
+    @SequenceGenerator(name = "book_changes_seq", sequenceName = "book_changes_seq", allocationSize = 1)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private BookChangedEvent.Type type;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    private String title;
+    private String author;
+    private String genre;
+    private Long version;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+}
@@ -0,0 +1,9 @@
+package ru.tokmakov.bookkeeper.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import ru.tokmakov.bookkeeper.model.BookChange;
+
+@Repository
+public interface BookChangeRepository extends JpaRepository<BookChange, Long>, BookChangeRepositoryCustom {
+}
@@ -0,0 +1,34 @@
+package ru.tokmakov.bookkeeper.repository;
+
+import ru.tokmakov.bookkeeper.dto.BookChangeDto;
+import ru.tokmakov.bookkeeper.model.BookChange;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface BookChangeRepositoryCustom {
+    /**
+     * Изменения после {@code since} в порядке записи, записанные не позже чем за {@code visibilityDelay}
+     * до текущего времени базы.
+     *
+     * @param since           идентификатор последнего полученного изменения.
+     * @param visibilityDelay задержка видимости изменений.
+     * @param limit           максимальное число изменений.
+     */
+    List<BookChangeDto> findChanges(long since, Duration visibilityDelay, int limit);
+
+    /**
+     * Идентификатор последнего изменения, записанного не позже чем за {@code visibilityDelay}
+     * до текущего времени базы, или 0, если таких нет.
+     */
+    long findLastId(Duration visibilityDelay);
+
+    /**
+     * Запись изменений одним пакетом операторов INSERT.
+     * Идентификатор из последовательности {@code book_changes_seq} и время изменения по часам базы
+     * назначаются при вставке, поэтому поля {@code id} и {@code changedAt} в {@code changes} не используются.
+     *
+     * @param changes изменения в порядке записи.
+     */
+    void insertAll(List<BookChange> changes);
+}
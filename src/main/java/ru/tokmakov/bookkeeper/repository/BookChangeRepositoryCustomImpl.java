@@ -0,0 +1,85 @@
+package ru.tokmakov.bookkeeper.repository;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import ru.tokmakov.bookkeeper.dto.BookChangeDto;
+import ru.tokmakov.bookkeeper.model.BookChange;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Журнал изменений с отсчетом времени по часам базы.
+ * Запись идет через JDBC: номер и время изменения вычисляются в самом операторе вставки,
+ * без отдельного обращения к последовательности на каждое изменение.
+ * Время изменения в PostgreSQL берется из {@code clock_timestamp()} — момента вставки, а не начала транзакции,
+ * поэтому время растет вместе с номером изменения на всех узлах. На остальных базах, включая H2,
+ * используется {@code current_timestamp}. Чтения сравнивают время изменения с {@code current_timestamp} базы;
+ * такие запросы HQL с интервалом не проходят разбор {@code @Query}, поэтому они выполняются здесь.
+ */
+class BookChangeRepositoryCustomImpl implements BookChangeRepositoryCustom {
+    private static final String VISIBLE = "c.changedAt <= current_timestamp - (:visibilityDelayNanos) nanosecond";
+
+    private final EntityManager entityManager;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String insertSql;
+
+    BookChangeRepositoryCustomImpl(EntityManager entityManager, NamedParameterJdbcTemplate jdbcTemplate,
+                                   DataSource dataSource) throws MetaDataAccessException {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        String now = "PostgreSQL".equals(
+                JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName))
+                ? "clock_timestamp()"
+                : "current_timestamp";
+        this.insertSql = "insert into book_changes " +
+                "(id, type, book_id, title, author, genre, version, updated_at, changed_at) " +
+                "values (nextval('book_changes_seq'), :type, :bookId, :title, :author, :genre, :version, :updatedAt, " +
+                now + ")";
+    }
+
+    @Override
+    public List<BookChangeDto> findChanges(long since, Duration visibilityDelay, int limit) {
+        return entityManager.createQuery("select new ru.tokmakov.bookkeeper.dto.BookChangeDto(c.id, c.type, " +
+                        "c.bookId, c.title, c.author, c.genre, c.version, c.updatedAt, c.changedAt) " +
+                        "from BookChange c where c.id > :since and " + VISIBLE + " order by c.id", BookChangeDto.class)
+                .setParameter("since", since)
+                .setParameter("visibilityDelayNanos", visibilityDelay.toNanos())
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public long findLastId(Duration visibilityDelay) {
+        return entityManager.createQuery("select coalesce(max(c.id), 0) from BookChange c where " + VISIBLE, Long.class)
+                .setParameter("visibilityDelayNanos", visibilityDelay.toNanos())
+                .getSingleResult();
+    }
+
+    @Override
+    public void insertAll(List<BookChange> changes) {
+        SqlParameterSource[] batch = changes.stream()
+                .map(change -> new MapSqlParameterSource()
+                        .addValue("type", change.getType().name())
+                        .addValue("bookId", change.getBookId())
+                        .addValue("title", change.getTitle(), Types.VARCHAR)
+                        .addValue("author", change.getAuthor(), Types.VARCHAR)
+                        .addValue("genre", change.getGenre(), Types.VARCHAR)
+                        .addValue("version", change.getVersion(), Types.BIGINT)
+                        .addValue("updatedAt", change.getUpdatedAt() == null
+                                ? null
+                                : OffsetDateTime.ofInstant(change.getUpdatedAt(), ZoneOffset.UTC),
+                                Types.TIMESTAMP_WITH_TIMEZONE))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(insertSql, batch);
+    }
+}
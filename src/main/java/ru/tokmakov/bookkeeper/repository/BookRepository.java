@@ -1,9 +1,92 @@
 package ru.tokmakov.bookkeeper.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookVersionDto;
 import ru.tokmakov.bookkeeper.model.Book;
 
+import java.time.Instant;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book>, BookRepositoryCustom {
+    int EXPORT_FETCH_SIZE = 1000;
+
+    @Query("select b from Book b order by b.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Book> streamAllByOrderById();
+
+    @Transactional(readOnly = true)
+    @Query("select new ru.tokmakov.bookkeeper.dto.BookDto(b.id, b.title, b.author, b.genre, b.version, b.updatedAt) " +
+            "from Book b where b.id = :id")
+    Optional<BookDto> findDtoById(@Param("id") Long id);
+
+    @Transactional(readOnly = true)
+    @Query("select new ru.tokmakov.bookkeeper.dto.BookDto(b.id, b.title, b.author, b.genre, b.version, b.updatedAt) " +
+            "from Book b where b.id in :ids")
+    List<BookDto> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Transactional(readOnly = true)
+    @Query("select new ru.tokmakov.bookkeeper.dto.BookVersionDto(b.version, b.updatedAt) from Book b where b.id = :id")
+    Optional<BookVersionDto> findVersionById(@Param("id") Long id);
+
+    @Query("select b.id from Book b " +
+            "where b.id > :lastId " +
+            "and (:author is null or b.author = :author) " +
+            "and (:genre is null or b.genre = :genre) " +
+            "and (:titlePattern is null or b.title like :titlePattern escape '\\') " +
+            "order by b.id")
+    List<Long> findIdsByFilter(@Param("lastId") Long lastId,
+                               @Param("author") String author,
+                               @Param("genre") String genre,
+                               @Param("titlePattern") String titlePattern,
+                               Limit limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set " +
+            "b.title = coalesce(:title, b.title), " +
+            "b.author = coalesce(:author, b.author), " +
+            "b.genre = coalesce(:genre, b.genre), " +
+            "b.version = b.version + 1, " +
+            "b.updatedAt = :updatedAt " +
+            "where b.id in :ids")
+    int updateAllByIdIn(@Param("ids") Collection<Long> ids,
+                        @Param("title") String title,
+                        @Param("author") String author,
+                        @Param("genre") String genre,
+                        @Param("updatedAt") Instant updatedAt);
+
+    @Modifying
+    @Query("delete from Book b where b.id = :id")
+    int deleteBookById(@Param("id") Long id);
+
+    /**
+     * Идентификаторы существующих книг из списка с блокировкой строк до конца транзакции.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b.id from Book b where b.id in :ids order by b.id")
+    List<Long> lockIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Book b where b.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 }
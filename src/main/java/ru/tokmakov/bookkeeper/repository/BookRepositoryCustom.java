@@ -0,0 +1,33 @@
+package ru.tokmakov.bookkeeper.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookUpdateDto;
+import ru.tokmakov.bookkeeper.model.Book;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface BookRepositoryCustom {
+    /**
+     * Чтение книг сразу в {@link BookDto} без создания управляемых сущностей.
+     *
+     * @param specification условие отбора.
+     * @param sort          порядок сортировки.
+     * @param limit         максимальное число книг.
+     * @return найденные книги.
+     */
+    List<BookDto> findDtos(Specification<Book> specification, Sort sort, int limit);
+
+    /**
+     * Обновление книги одним оператором UPDATE без предварительного чтения.
+     * Изменяются только непустые поля {@link BookUpdateDto}, версия увеличивается на единицу.
+     *
+     * @param id              идентификатор книги.
+     * @param expectedVersion версия, при которой разрешено обновление, или {@code null}.
+     * @param bookUpdateDto   новые значения полей; хотя бы одно поле должно быть задано.
+     * @return обновленная книга или пустое значение, если книги нет или ее версия отличается от ожидаемой.
+     */
+    Optional<BookDto> updateById(Long id, Long expectedVersion, BookUpdateDto bookUpdateDto);
+}
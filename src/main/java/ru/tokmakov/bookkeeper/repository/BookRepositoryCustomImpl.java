@@ -0,0 +1,121 @@
+package ru.tokmakov.bookkeeper.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookUpdateDto;
+import ru.tokmakov.bookkeeper.model.Book;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Запросы, для которых методов Spring Data недостаточно.
+ * Чтения строят {@link BookDto} прямо из результата запроса, минуя сущности и контекст персистентности.
+ * Запись выполняется напрямую через JDBC, когда JPA потребовал бы лишнего чтения сущности:
+ * на PostgreSQL обновленная строка возвращается тем же оператором через {@code RETURNING},
+ * на остальных базах, включая H2, она дочитывается отдельным запросом в той же транзакции.
+ */
+class BookRepositoryCustomImpl implements BookRepositoryCustom {
+    private static final String COLUMNS = "id, title, author, genre, version, updated_at";
+
+    private static final RowMapper<BookDto> BOOK_ROW_MAPPER = (rs, rowNum) -> {
+        BookDto bookDto = new BookDto();
+        bookDto.setId(rs.getLong("id"));
+        bookDto.setTitle(rs.getString("title"));
+        bookDto.setAuthor(rs.getString("author"));
+        bookDto.setGenre(rs.getString("genre"));
+        bookDto.setVersion(rs.getLong("version"));
+        OffsetDateTime updatedAt = rs.getObject("updated_at", OffsetDateTime.class);
+        bookDto.setUpdatedAt(updatedAt == null ? null : updatedAt.toInstant());
+        return bookDto;
+    };
+
+    private final EntityManager entityManager;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final boolean supportsReturning;
+
+    BookRepositoryCustomImpl(EntityManager entityManager, NamedParameterJdbcTemplate jdbcTemplate,
+                             DataSource dataSource) throws MetaDataAccessException {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.supportsReturning = "PostgreSQL".equals(
+                JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+    }
+
+    @Override
+    public List<BookDto> findDtos(Specification<Book> specification, Sort sort, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookDto> query = builder.createQuery(BookDto.class);
+        Root<Book> book = query.from(Book.class);
+
+        query.select(builder.construct(BookDto.class,
+                book.get("id"), book.get("title"), book.get("author"), book.get("genre"),
+                book.get("version"), book.get("updatedAt")));
+        Predicate predicate = specification.toPredicate(book, query, builder);
+        if (predicate != null)
+            query.where(predicate);
+        query.orderBy(QueryUtils.toOrders(sort, book, builder));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Optional<BookDto> updateById(Long id, Long expectedVersion, BookUpdateDto bookUpdateDto) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("id", id)
+                .addValue("updatedAt", OffsetDateTime.ofInstant(Instant.now(), ZoneOffset.UTC));
+
+        List<String> assignments = new ArrayList<>();
+        if (bookUpdateDto.getTitle() != null) {
+            assignments.add("title = :title");
+            parameters.addValue("title", bookUpdateDto.getTitle());
+        }
+        if (bookUpdateDto.getAuthor() != null) {
+            assignments.add("author = :author");
+            parameters.addValue("author", bookUpdateDto.getAuthor());
+        }
+        if (bookUpdateDto.getGenre() != null) {
+            assignments.add("genre = :genre");
+            parameters.addValue("genre", bookUpdateDto.getGenre());
+        }
+        assignments.add("version = version + 1");
+        assignments.add("updated_at = :updatedAt");
+
+        StringBuilder sql = new StringBuilder("update books set ")
+                .append(String.join(", ", assignments))
+                .append(" where id = :id");
+        if (expectedVersion != null) {
+            sql.append(" and version = :expectedVersion");
+            parameters.addValue("expectedVersion", expectedVersion);
+        }
+
+        if (supportsReturning) {
+            sql.append(" returning ").append(COLUMNS);
+            return jdbcTemplate.query(sql.toString(), parameters, BOOK_ROW_MAPPER).stream().findFirst();
+        }
+
+        if (jdbcTemplate.update(sql.toString(), parameters) == 0)
+            return Optional.empty();
+        return jdbcTemplate.query("select " + COLUMNS + " from books where id = :id", parameters, BOOK_ROW_MAPPER)
+                .stream().findFirst();
+    }
+}
@@ -0,0 +1,59 @@
+package ru.tokmakov.bookkeeper.repository;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.data.jpa.domain.Specification;
+import ru.tokmakov.bookkeeper.dto.BookFilterDto;
+import ru.tokmakov.bookkeeper.model.Book;
+
+@UtilityClass
+public class BookSpecifications {
+    public static final char LIKE_ESCAPE = '\\';
+
+    /**
+     * Условие фильтра списка книг. Пустые поля фильтра не ограничивают выборку.
+     */
+    public static Specification<Book> byFilter(BookFilterDto filter) {
+        return (root, query, cb) -> {
+            var predicate = cb.conjunction();
+            if (filter.getIds() != null && !filter.getIds().isEmpty())
+                predicate = cb.and(predicate, root.get("id").in(filter.getIds()));
+            if (filter.getAuthor() != null)
+                predicate = cb.and(predicate, cb.equal(root.get("author"), filter.getAuthor()));
+            if (filter.getGenre() != null)
+                predicate = cb.and(predicate, cb.equal(root.get("genre"), filter.getGenre()));
+            if (filter.getTitlePrefix() != null)
+                predicate = cb.and(predicate, cb.like(root.get("title"), likePrefix(filter.getTitlePrefix()), LIKE_ESCAPE));
+            return predicate;
+        };
+    }
+
+    /**
+     * Keyset-условие «после последней книги предыдущей страницы» для порядка {@code (property, id)}.
+     *
+     * @param property   поле сортировки или {@code null} при сортировке только по идентификатору.
+     * @param descending порядок по убыванию.
+     * @param lastId     идентификатор последней книги.
+     * @param lastValue  значение поля сортировки у последней книги.
+     */
+    public static Specification<Book> after(String property, boolean descending, long lastId, String lastValue) {
+        return (root, query, cb) -> {
+            var afterId = descending ? cb.lessThan(root.get("id"), lastId) : cb.greaterThan(root.get("id"), lastId);
+            if (property == null)
+                return afterId;
+
+            var afterValue = descending
+                    ? cb.lessThan(root.get(property), lastValue)
+                    : cb.greaterThan(root.get(property), lastValue);
+            return cb.or(afterValue, cb.and(cb.equal(root.get(property), lastValue), afterId));
+        };
+    }
+
+    /**
+     * Шаблон LIKE для поиска по префиксу с экранированием спецсимволов.
+     */
+    public static String likePrefix(String prefix) {
+        if (prefix == null)
+            return null;
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
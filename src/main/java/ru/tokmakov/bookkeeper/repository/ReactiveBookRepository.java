@@ -0,0 +1,291 @@
+package ru.tokmakov.bookkeeper.repository;
+
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookFilterDto;
+import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.dto.BookUpdateDto;
+import ru.tokmakov.bookkeeper.dto.BookVersionDto;
+import ru.tokmakov.bookkeeper.service.BookSort;
+import ru.tokmakov.bookkeeper.service.PageCursor;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неблокирующий доступ к таблице книг через R2DBC для профиля {@code reactive}.
+ * Запросы повторяют запросы {@link BookRepository} и {@link BookRepositoryCustomImpl}: книги читаются
+ * сразу в {@link BookDto}, обновление выполняется одним оператором с проверкой версии, а на PostgreSQL
+ * обновленная строка возвращается тем же оператором через {@code RETURNING}.
+ * Идентификаторы берутся из той же последовательности {@code books_seq}, что и у JPA: значение
+ * последовательности — верхняя граница блока, зарезервированного за вызывающим, поэтому
+ * оно не пересекается с идентификаторами, выданными Hibernate.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveBookRepository {
+    private static final String COLUMNS = "id, title, author, genre, version, updated_at";
+
+    private final DatabaseClient databaseClient;
+    private final boolean postgres;
+
+    public ReactiveBookRepository(DatabaseClient databaseClient, ConnectionFactory connectionFactory) {
+        this.databaseClient = databaseClient;
+        this.postgres = "PostgreSQL".equals(connectionFactory.getMetadata().getName());
+    }
+
+    /**
+     * Книги по фильтру в порядке {@code (sort, id)} после позиции курсора.
+     *
+     * @param limit максимальное число книг или {@code null} для выборки без ограничения.
+     */
+    public Flux<BookDto> findAll(BookFilterDto filter, BookSort sort, boolean descending, PageCursor cursor,
+                                 Integer limit) {
+        Map<String, Object> parameters = new HashMap<>();
+        List<String> conditions = filterConditions(filter, parameters);
+
+        String direction = descending ? "desc" : "asc";
+        String comparison = descending ? "<" : ">";
+        String column = sort.getProperty();
+        if (cursor != null) {
+            parameters.put("lastId", cursor.lastId());
+            if (sort == BookSort.ID) {
+                conditions.add("id " + comparison + " :lastId");
+            } else {
+                parameters.put("lastValue", cursor.value());
+                conditions.add("(" + column + " " + comparison + " :lastValue or ("
+                        + column + " = :lastValue and id " + comparison + " :lastId))");
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("select " + COLUMNS + " from books");
+        where(sql, conditions);
+        sql.append(" order by ");
+        if (sort != BookSort.ID)
+            sql.append(column).append(' ').append(direction).append(", ");
+        sql.append("id ").append(direction);
+        if (limit != null) {
+            sql.append(" limit :limit");
+            parameters.put("limit", limit);
+        }
+
+        return databaseClient.sql(sql.toString())
+                .bindValues(parameters)
+                .map(ReactiveBookRepository::toBookDto)
+                .all();
+    }
+
+    public Flux<BookDto> findAllOrderById() {
+        return databaseClient.sql("select " + COLUMNS + " from books order by id")
+                .map(ReactiveBookRepository::toBookDto)
+                .all();
+    }
+
+    public Mono<BookDto> findById(Long id) {
+        return databaseClient.sql("select " + COLUMNS + " from books where id = :id")
+                .bind("id", id)
+                .map(ReactiveBookRepository::toBookDto)
+                .one();
+    }
+
+    public Flux<BookDto> findByIdIn(Collection<Long> ids) {
+        return databaseClient.sql("select " + COLUMNS + " from books where id in (:ids)")
+                .bind("ids", ids)
+                .map(ReactiveBookRepository::toBookDto)
+                .all();
+    }
+
+    /**
+     * Идентификаторы существующих книг из списка с блокировкой строк до конца транзакции.
+     */
+    public Flux<Long> lockIdsByIdIn(Collection<Long> ids) {
+        return databaseClient.sql("select id from books where id in (:ids) order by id for update")
+                .bind("ids", ids)
+                .map(row -> row.get("id", Long.class))
+                .all();
+    }
+
+    public Mono<BookVersionDto> findVersionById(Long id) {
+        return databaseClient.sql("select version, updated_at from books where id = :id")
+                .bind("id", id)
+                .map(row -> new BookVersionDto(row.get("version", Long.class), updatedAt(row)))
+                .one();
+    }
+
+    /**
+     * Идентификаторы книг по автору, жанру и шаблону названия после {@code lastId} в порядке возрастания.
+     */
+    public Flux<Long> findIdsByFilter(long lastId, String author, String genre, String titlePattern, int limit) {
+        BookFilterDto filter = new BookFilterDto();
+        filter.setAuthor(author);
+        filter.setGenre(genre);
+
+        Map<String, Object> parameters = new HashMap<>();
+        List<String> conditions = filterConditions(filter, parameters);
+        conditions.add("id > :lastId");
+        parameters.put("lastId", lastId);
+        if (titlePattern != null) {
+            conditions.add("title like :titlePattern escape '" + BookSpecifications.LIKE_ESCAPE + "'");
+            parameters.put("titlePattern", titlePattern);
+        }
+        parameters.put("limit", limit);
+
+        StringBuilder sql = new StringBuilder("select id from books");
+        where(sql, conditions);
+        sql.append(" order by id limit :limit");
+
+        return databaseClient.sql(sql.toString())
+                .bindValues(parameters)
+                .map(row -> row.get("id", Long.class))
+                .all();
+    }
+
+    public Mono<BookDto> insert(BookSaveDto bookSaveDto) {
+        String nextId = postgres ? "select nextval('books_seq')" : "values next value for books_seq";
+        Instant updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+        return databaseClient.sql(nextId)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .flatMap(id -> databaseClient.sql("insert into books (" + COLUMNS + ")"
+                                + " values (:id, :title, :author, :genre, 0, :updatedAt)")
+                        .bind("id", id)
+                        .bind("title", bookSaveDto.getTitle())
+                        .bind("author", bookSaveDto.getAuthor())
+                        .bind("genre", bookSaveDto.getGenre())
+                        .bind("updatedAt", OffsetDateTime.ofInstant(updatedAt, ZoneOffset.UTC))
+                        .then()
+                        .thenReturn(new BookDto(id, bookSaveDto.getTitle(), bookSaveDto.getAuthor(),
+                                bookSaveDto.getGenre(), 0L, updatedAt)));
+    }
+
+    /**
+     * Обновление книги одним оператором с увеличением версии.
+     *
+     * @return обновленная книга или пустой результат, если книга не найдена или ее версия отличается от ожидаемой.
+     */
+    public Mono<BookDto> updateById(Long id, Long expectedVersion, BookUpdateDto bookUpdateDto) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("id", id);
+
+        StringBuilder sql = new StringBuilder("update books set ")
+                .append(assignments(bookUpdateDto.getTitle(), bookUpdateDto.getAuthor(), bookUpdateDto.getGenre(),
+                        Instant.now(), parameters))
+                .append(" where id = :id");
+        if (expectedVersion != null) {
+            sql.append(" and version = :expectedVersion");
+            parameters.put("expectedVersion", expectedVersion);
+        }
+
+        if (postgres) {
+            sql.append(" returning ").append(COLUMNS);
+            return databaseClient.sql(sql.toString())
+                    .bindValues(parameters)
+                    .map(ReactiveBookRepository::toBookDto)
+                    .one();
+        }
+
+        return databaseClient.sql(sql.toString())
+                .bindValues(parameters)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(updated -> updated == 0 ? Mono.empty() : findById(id));
+    }
+
+    public Mono<Long> updateAllByIdIn(Collection<Long> ids, String title, String author, String genre,
+                                      Instant updatedAt) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("ids", ids);
+        String sql = "update books set " + assignments(title, author, genre, updatedAt, parameters)
+                + " where id in (:ids)";
+
+        return databaseClient.sql(sql)
+                .bindValues(parameters)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> deleteById(Long id) {
+        return databaseClient.sql("delete from books where id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> deleteAllByIdIn(Collection<Long> ids) {
+        return databaseClient.sql("delete from books where id in (:ids)")
+                .bind("ids", ids)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static List<String> filterConditions(BookFilterDto filter, Map<String, Object> parameters) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.getIds() != null && !filter.getIds().isEmpty()) {
+            conditions.add("id in (:ids)");
+            parameters.put("ids", filter.getIds());
+        }
+        if (filter.getAuthor() != null) {
+            conditions.add("author = :author");
+            parameters.put("author", filter.getAuthor());
+        }
+        if (filter.getGenre() != null) {
+            conditions.add("genre = :genre");
+            parameters.put("genre", filter.getGenre());
+        }
+        if (filter.getTitlePrefix() != null) {
+            conditions.add("title like :titlePattern escape '" + BookSpecifications.LIKE_ESCAPE + "'");
+            parameters.put("titlePattern", BookSpecifications.likePrefix(filter.getTitlePrefix()));
+        }
+        return conditions;
+    }
+
+    private static void where(StringBuilder sql, List<String> conditions) {
+        if (!conditions.isEmpty())
+            sql.append(" where ").append(String.join(" and ", conditions));
+    }
+
+    private static String assignments(String title, String author, String genre, Instant updatedAt,
+                                      Map<String, Object> parameters) {
+        List<String> assignments = new ArrayList<>();
+        if (title != null) {
+            assignments.add("title = :title");
+            parameters.put("title", title);
+        }
+        if (author != null) {
+            assignments.add("author = :author");
+            parameters.put("author", author);
+        }
+        if (genre != null) {
+            assignments.add("genre = :genre");
+            parameters.put("genre", genre);
+        }
+        assignments.add("version = version + 1");
+        assignments.add("updated_at = :updatedAt");
+        parameters.put("updatedAt", OffsetDateTime.ofInstant(updatedAt, ZoneOffset.UTC));
+        return String.join(", ", assignments);
+    }
+
+    private static BookDto toBookDto(Readable row) {
+        return new BookDto(row.get("id", Long.class), row.get("title", String.class), row.get("author", String.class),
+                row.get("genre", String.class), row.get("version", Long.class), updatedAt(row));
+    }
+
+    private static Instant updatedAt(Readable row) {
+        OffsetDateTime updatedAt = row.get("updated_at", OffsetDateTime.class);
+        return updatedAt == null ? null : updatedAt.toInstant();
+    }
+}
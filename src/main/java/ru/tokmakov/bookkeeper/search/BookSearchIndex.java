@@ -0,0 +1,286 @@
+package ru.tokmakov.bookkeeper.search;
+
+import org.springframework.stereotype.Component;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookSearchHitDto;
+import ru.tokmakov.bookkeeper.event.BookCatalogView;
+import ru.tokmakov.bookkeeper.exception.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Инвертированный индекс по названию и автору книги.
+ * Для каждого терма хранится список книг с позициями терма в каждом поле, что позволяет
+ * выполнять поиск по термам, префиксам и фразам без обращения к базе.
+ * Релевантность считается по BM25 с повышенным весом совпадений в названии.
+ * Префикс раскрывается не более чем в {@value #MAX_PREFIX_EXPANSIONS} термов: более короткий префикс отклоняется,
+ * а не обрезается молча, иначе результат зависел бы от алфавитного порядка термов, а не от релевантности.
+ */
+@Component
+public class BookSearchIndex implements BookCatalogView {
+    public static final int MAX_PREFIX_EXPANSIONS = 100;
+
+    private static final double TITLE_WEIGHT = 2.0;
+    private static final double AUTHOR_WEIGHT = 1.0;
+    private static final double PHRASE_BOOST = 1.5;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final NavigableMap<String, Map<Long, Posting>> postings = new TreeMap<>();
+    private long totalTitleLength;
+    private long totalAuthorLength;
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+            totalTitleLength = 0;
+            totalAuthorLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(BookDto book) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(book.getId());
+            addDocument(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Поиск книг, удовлетворяющих всем условиям запроса.
+     *
+     * @param query разобранный запрос.
+     * @param limit максимальное число результатов.
+     * @return найденные книги по убыванию релевантности.
+     * @throws BadRequestException если префикс подходит больше чем к {@value #MAX_PREFIX_EXPANSIONS} термам.
+     */
+    public List<BookSearchHitDto> search(SearchQuery query, int limit) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (SearchQuery.Clause clause : query.clauses()) {
+                Map<Long, Double> clauseScores = match(clause);
+                scores = scores == null ? clauseScores : intersect(scores, clauseScores);
+                if (scores.isEmpty())
+                    return List.of();
+            }
+            return scores == null ? List.of() : top(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Double> match(SearchQuery.Clause clause) {
+        if (clause instanceof SearchQuery.Term term)
+            return matchTerm(term.token());
+        if (clause instanceof SearchQuery.Prefix prefix)
+            return matchPrefix(prefix.prefix());
+        return matchPhrase(((SearchQuery.Phrase) clause).tokens());
+    }
+
+    private Map<Long, Double> matchTerm(String token) {
+        Map<Long, Posting> termPostings = postings.get(token);
+        Map<Long, Double> scores = new HashMap<>();
+        if (termPostings == null)
+            return scores;
+
+        double idf = idf(termPostings.size());
+        termPostings.forEach((bookId, posting) -> scores.put(bookId, score(idf, documents.get(bookId), posting)));
+        return scores;
+    }
+
+    private Map<Long, Double> matchPrefix(String prefix) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).keySet()) {
+            if (tokens.size() == MAX_PREFIX_EXPANSIONS)
+                throw new BadRequestException("Prefix " + prefix + "* matches more than " + MAX_PREFIX_EXPANSIONS
+                        + " terms, use a longer prefix");
+            tokens.add(token);
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        for (String token : tokens) {
+            matchTerm(token).forEach((bookId, score) -> scores.merge(bookId, score, Math::max));
+        }
+        return scores;
+    }
+
+    private Map<Long, Double> matchPhrase(List<String> tokens) {
+        Map<Long, Double> scores = matchTerm(tokens.get(0));
+        for (int i = 1; i < tokens.size() && !scores.isEmpty(); i++) {
+            scores = intersect(scores, matchTerm(tokens.get(i)));
+        }
+
+        Map<Long, Double> phraseScores = new HashMap<>();
+        scores.forEach((bookId, score) -> {
+            if (containsPhrase(bookId, tokens, Posting::title) || containsPhrase(bookId, tokens, Posting::author))
+                phraseScores.put(bookId, score * PHRASE_BOOST);
+        });
+        return phraseScores;
+    }
+
+    private boolean containsPhrase(Long bookId, List<String> tokens, Function<Posting, int[]> field) {
+        int[] first = field.apply(postings.get(tokens.get(0)).get(bookId));
+        for (int start : first) {
+            boolean matches = true;
+            for (int i = 1; i < tokens.size() && matches; i++) {
+                int[] positions = field.apply(postings.get(tokens.get(i)).get(bookId));
+                matches = Arrays.binarySearch(positions, start + i) >= 0;
+            }
+            if (matches)
+                return true;
+        }
+        return false;
+    }
+
+    private double idf(int documentFrequency) {
+        int n = documents.size();
+        return Math.log(1 + (n - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private double score(double idf, Document document, Posting posting) {
+        double averageTitle = (double) totalTitleLength / documents.size();
+        double averageAuthor = (double) totalAuthorLength / documents.size();
+        return idf * (TITLE_WEIGHT * termFrequency(posting.title().length, document.titleLength(), averageTitle)
+                + AUTHOR_WEIGHT * termFrequency(posting.author().length, document.authorLength(), averageAuthor));
+    }
+
+    private static double termFrequency(int frequency, int length, double averageLength) {
+        if (frequency == 0)
+            return 0;
+        double norm = averageLength == 0 ? 1 : 1 - B + B * length / averageLength;
+        return frequency * (K1 + 1) / (frequency + K1 * norm);
+    }
+
+    private static Map<Long, Double> intersect(Map<Long, Double> left, Map<Long, Double> right) {
+        Map<Long, Double> smaller = left.size() <= right.size() ? left : right;
+        Map<Long, Double> larger = smaller == left ? right : left;
+        Map<Long, Double> result = new HashMap<>();
+        smaller.forEach((bookId, score) -> {
+            Double other = larger.get(bookId);
+            if (other != null)
+                result.put(bookId, score + other);
+        });
+        return result;
+    }
+
+    private List<BookSearchHitDto> top(Map<Long, Double> scores, int limit) {
+        Comparator<Map.Entry<Long, Double>> byRelevance = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed());
+
+        PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(byRelevance);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            best.offer(entry);
+            if (best.size() > limit)
+                best.poll();
+        }
+
+        List<BookSearchHitDto> hits = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            Map.Entry<Long, Double> entry = best.poll();
+            hits.add(new BookSearchHitDto(documents.get(entry.getKey()).book(), entry.getValue()));
+        }
+        Collections.reverse(hits);
+        return hits;
+    }
+
+    private void addDocument(BookDto book) {
+        List<String> titleTokens = Tokenizer.tokenize(book.getTitle());
+        List<String> authorTokens = Tokenizer.tokenize(book.getAuthor());
+
+        Map<String, List<Integer>> titlePositions = positions(titleTokens);
+        Map<String, List<Integer>> authorPositions = positions(authorTokens);
+
+        Set<String> tokens = new HashSet<>(titlePositions.keySet());
+        tokens.addAll(authorPositions.keySet());
+
+        Map<String, Posting> documentPostings = new HashMap<>();
+        for (String token : tokens) {
+            documentPostings.put(token, new Posting(
+                    toArray(titlePositions.get(token)), toArray(authorPositions.get(token))));
+        }
+
+        documentPostings.forEach((token, posting) ->
+                postings.computeIfAbsent(token, key -> new HashMap<>()).put(book.getId(), posting));
+        documents.put(book.getId(), new Document(book, documentPostings.keySet().toArray(String[]::new),
+                titleTokens.size(), authorTokens.size()));
+        totalTitleLength += titleTokens.size();
+        totalAuthorLength += authorTokens.size();
+    }
+
+    private void removeDocument(Long bookId) {
+        Document document = documents.remove(bookId);
+        if (document == null)
+            return;
+
+        for (String token : document.tokens()) {
+            Map<Long, Posting> termPostings = postings.get(token);
+            termPostings.remove(bookId);
+            if (termPostings.isEmpty())
+                postings.remove(token);
+        }
+        totalTitleLength -= document.titleLength();
+        totalAuthorLength -= document.authorLength();
+    }
+
+    private static Map<String, List<Integer>> positions(List<String> tokens) {
+        Map<String, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            positions.computeIfAbsent(tokens.get(i), token -> new ArrayList<>()).add(i);
+        }
+        return positions;
+    }
+
+    private static int[] toArray(List<Integer> positions) {
+        return positions == null ? new int[0] : positions.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private record Document(BookDto book, String[] tokens, int titleLength, int authorLength) {
+    }
+
+    private record Posting(int[] title, int[] author) {
+    }
+}
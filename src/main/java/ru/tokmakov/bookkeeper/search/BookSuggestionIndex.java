@@ -0,0 +1,130 @@
+package ru.tokmakov.bookkeeper.search;
+
+import org.springframework.stereotype.Component;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookSuggestionDto;
+import ru.tokmakov.bookkeeper.dto.BookSuggestionsDto;
+import ru.tokmakov.bookkeeper.event.BookCatalogView;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Подсказки при вводе по названиям, авторам и жанрам книг.
+ * Для каждого поля хранится {@link PrefixIndex}, где частота значения — число книг с этим значением.
+ */
+@Component
+public class BookSuggestionIndex implements BookCatalogView {
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final int MAX_KEY_LENGTH = 32;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final PrefixIndex titles = new PrefixIndex(MAX_SUGGESTIONS, MAX_KEY_LENGTH);
+    private final PrefixIndex authors = new PrefixIndex(MAX_SUGGESTIONS, MAX_KEY_LENGTH);
+    private final PrefixIndex genres = new PrefixIndex(MAX_SUGGESTIONS, MAX_KEY_LENGTH);
+    private final Map<Long, Suggestion> books = new HashMap<>();
+    private boolean loading;
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            authors.clear();
+            genres.clear();
+            books.clear();
+            loading = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(BookDto book) {
+        lock.writeLock().lock();
+        try {
+            Suggestion current = new Suggestion(book.getTitle(), book.getAuthor(), book.getGenre());
+            Suggestion previous = books.put(book.getId(), current);
+            if (previous != null)
+                update(previous, -1);
+            update(current, 1);
+            if (!loading)
+                flush();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            Suggestion previous = books.remove(bookId);
+            if (previous != null) {
+                update(previous, -1);
+                if (!loading)
+                    flush();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void loaded() {
+        lock.writeLock().lock();
+        try {
+            loading = false;
+            flush();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Поиск наиболее частых значений каждого поля, начинающихся с префикса или содержащих слово с этим префиксом.
+     *
+     * @param prefix введенный префикс.
+     * @param limit  максимальное число подсказок для каждого поля, не более {@value #MAX_SUGGESTIONS}.
+     * @return подсказки в формате {@link BookSuggestionsDto}.
+     */
+    public BookSuggestionsDto suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return new BookSuggestionsDto(
+                    find(titles, prefix, limit),
+                    find(authors, prefix, limit),
+                    find(genres, prefix, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(Suggestion suggestion, int delta) {
+        titles.add(suggestion.title(), delta);
+        authors.add(suggestion.author(), delta);
+        genres.add(suggestion.genre(), delta);
+    }
+
+    private void flush() {
+        titles.flush();
+        authors.flush();
+        genres.flush();
+    }
+
+    private static List<BookSuggestionDto> find(PrefixIndex index, String prefix, int limit) {
+        return index.find(prefix, limit).stream()
+                .map(entry -> new BookSuggestionDto(entry.value(), entry.count()))
+                .toList();
+    }
+
+    /**
+     * Значения полей книги, учтенные в индексах; нужны, чтобы вычесть книгу при изменении или удалении.
+     */
+    private record Suggestion(String title, String author, String genre) {
+    }
+}
@@ -0,0 +1,190 @@
+package ru.tokmakov.bookkeeper.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Префиксное дерево значений с заранее вычисленными наиболее частыми значениями в каждом узле.
+ * Значение доступно по префиксу всей строки и по префиксу каждого входящего в нее слова.
+ * Поиск стоит O(длина префикса + k) и не зависит от числа значений.
+ * <p>
+ * Класс не потокобезопасен: синхронизация выполняется владельцем.
+ */
+class PrefixIndex {
+    private static final Comparator<Entry> BY_FREQUENCY = Comparator.comparingLong(Entry::count).reversed()
+            .thenComparing(Entry::key);
+
+    private final int topK;
+    private final int maxKeyLength;
+    private final Node root = new Node(null, 0);
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Set<Node> dirty = new LinkedHashSet<>();
+
+    PrefixIndex(int topK, int maxKeyLength) {
+        this.topK = topK;
+        this.maxKeyLength = maxKeyLength;
+    }
+
+    void clear() {
+        root.children.clear();
+        root.terminals.clear();
+        root.top = new Entry[0];
+        entries.clear();
+        dirty.clear();
+    }
+
+    /**
+     * Изменение частоты значения. Узлы, чьи верхние значения могли измениться, помечаются
+     * и пересчитываются в {@link #flush()}.
+     */
+    void add(String value, int delta) {
+        String key = normalize(value);
+        if (key.isEmpty())
+            return;
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (delta <= 0)
+                return;
+            entry = new Entry(key, value);
+            entries.put(key, entry);
+            for (String suffix : keys(key)) {
+                node(suffix).terminals.add(entry);
+            }
+        }
+
+        entry.count += delta;
+        if (entry.count <= 0) {
+            entries.remove(key);
+            for (String suffix : keys(key)) {
+                node(suffix).terminals.remove(entry);
+            }
+        }
+
+        for (String suffix : keys(key)) {
+            markDirty(node(suffix));
+        }
+    }
+
+    /**
+     * Пересчет верхних значений во всех измененных узлах, от листьев к корню.
+     */
+    void flush() {
+        List<Node> nodes = new ArrayList<>(dirty);
+        dirty.clear();
+        nodes.sort(Comparator.comparingInt((Node node) -> node.depth).reversed());
+        for (Node node : nodes) {
+            recompute(node);
+        }
+    }
+
+    List<Entry> find(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty())
+            return List.of();
+
+        boolean truncated = key.length() > maxKeyLength;
+        String path = truncated ? key.substring(0, maxKeyLength) : key;
+        Node node = root;
+        for (int i = 0; i < path.length() && node != null; i++) {
+            node = node.children.get(path.charAt(i));
+        }
+        if (node == null)
+            return List.of();
+
+        List<Entry> result = new ArrayList<>(Math.min(limit, node.top.length));
+        for (Entry entry : node.top) {
+            if (result.size() == limit)
+                break;
+            if (!truncated || entry.key.startsWith(key) || entry.key.contains(" " + key))
+                result.add(entry);
+        }
+        return result;
+    }
+
+    static String normalize(String value) {
+        return String.join(" ", Tokenizer.tokenize(value));
+    }
+
+    private List<String> keys(String key) {
+        List<String> keys = new ArrayList<>();
+        int start = 0;
+        while (start >= 0) {
+            String suffix = key.substring(start);
+            keys.add(suffix.length() > maxKeyLength ? suffix.substring(0, maxKeyLength) : suffix);
+            int space = key.indexOf(' ', start);
+            start = space < 0 ? -1 : space + 1;
+        }
+        return keys;
+    }
+
+    private Node node(String path) {
+        Node node = root;
+        for (int i = 0; i < path.length(); i++) {
+            Node parent = node;
+            node = parent.children.computeIfAbsent(path.charAt(i), c -> new Node(parent, parent.depth + 1));
+        }
+        return node;
+    }
+
+    private void markDirty(Node node) {
+        Node current = node;
+        while (current != null && dirty.add(current)) {
+            current = current.parent;
+        }
+    }
+
+    private void recompute(Node node) {
+        Set<Entry> candidates = new LinkedHashSet<>(node.terminals);
+        for (Node child : node.children.values()) {
+            for (Entry entry : child.top) {
+                candidates.add(entry);
+            }
+        }
+        node.top = candidates.stream()
+                .sorted(BY_FREQUENCY)
+                .limit(topK)
+                .toArray(Entry[]::new);
+    }
+
+    static final class Entry {
+        private final String key;
+        private final String value;
+        private long count;
+
+        private Entry(String key, String value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        String key() {
+            return key;
+        }
+
+        String value() {
+            return value;
+        }
+
+        long count() {
+            return count;
+        }
+    }
+
+    private static final class Node {
+        private final Node parent;
+        private final int depth;
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private final Set<Entry> terminals = new LinkedHashSet<>(2);
+        private volatile Entry[] top = new Entry[0];
+
+        private Node(Node parent, int depth) {
+            this.parent = parent;
+            this.depth = depth;
+        }
+    }
+}
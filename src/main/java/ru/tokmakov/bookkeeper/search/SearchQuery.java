@@ -0,0 +1,54 @@
+package ru.tokmakov.bookkeeper.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разобранный поисковый запрос: набор условий, которым должна удовлетворять книга одновременно.
+ * <ul>
+ *     <li>{@code толстой} — терм;</li>
+ *     <li>{@code тол*} — префикс терма;</li>
+ *     <li>{@code "война и мир"} — фраза, термы идут подряд в одном поле.</li>
+ * </ul>
+ */
+public record SearchQuery(List<Clause> clauses) {
+    public sealed interface Clause permits Term, Prefix, Phrase {
+    }
+
+    public record Term(String token) implements Clause {
+    }
+
+    public record Prefix(String prefix) implements Clause {
+    }
+
+    public record Phrase(List<String> tokens) implements Clause {
+    }
+
+    public static SearchQuery parse(String query) {
+        List<Clause> clauses = new ArrayList<>();
+        String[] parts = query.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (i % 2 == 1) {
+                addPhrase(clauses, Tokenizer.tokenize(parts[i]));
+                continue;
+            }
+            for (String word : parts[i].trim().split("\\s+")) {
+                List<String> tokens = Tokenizer.tokenize(word);
+                if (tokens.isEmpty())
+                    continue;
+                if (word.endsWith("*") && tokens.size() == 1)
+                    clauses.add(new Prefix(tokens.get(0)));
+                else
+                    addPhrase(clauses, tokens);
+            }
+        }
+        return new SearchQuery(clauses);
+    }
+
+    private static void addPhrase(List<Clause> clauses, List<String> tokens) {
+        if (tokens.size() == 1)
+            clauses.add(new Term(tokens.get(0)));
+        else if (tokens.size() > 1)
+            clauses.add(new Phrase(tokens));
+    }
+}
@@ -0,0 +1,34 @@
+package ru.tokmakov.bookkeeper.search;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Разбиение текста на термы: последовательности букв и цифр в нижнем регистре.
+ */
+@UtilityClass
+public class Tokenizer {
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null)
+            return tokens;
+
+        String normalized = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i < normalized.length(); i++) {
+            if (Character.isLetterOrDigit(normalized.charAt(i))) {
+                if (start < 0)
+                    start = i;
+            } else if (start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0)
+            tokens.add(normalized.substring(start));
+        return tokens;
+    }
+}
@@ -1,19 +1,45 @@
 package ru.tokmakov.bookkeeper.service;
 
+import ru.tokmakov.bookkeeper.dto.BookBatchResultDto;
+import ru.tokmakov.bookkeeper.dto.BookBulkResultDto;
 import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookFacetsDto;
+import ru.tokmakov.bookkeeper.dto.BookFilterDto;
+import ru.tokmakov.bookkeeper.dto.BookLookupResultDto;
+import ru.tokmakov.bookkeeper.dto.BookPageDto;
 import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.dto.BookSearchHitDto;
+import ru.tokmakov.bookkeeper.dto.BookSuggestionsDto;
 import ru.tokmakov.bookkeeper.dto.BookUpdateDto;
+import ru.tokmakov.bookkeeper.dto.BookVersionDto;
+import ru.tokmakov.bookkeeper.event.BookCatalogSource;
 
 import java.util.List;
 
-public interface BookService {
-    List<BookDto> findAllBooks();
+public interface BookService extends BookCatalogSource {
+    BookPageDto findAllBooks(BookFilterDto filter, String sort, String order, int size);
+
+    BookVersionDto findBookVersion(Long bookId);
 
     BookDto findBookById(Long bookId);
 
+    BookLookupResultDto findBooksByIds(List<Long> bookIds);
+
+    List<BookSearchHitDto> searchBooks(String query, int limit);
+
+    BookSuggestionsDto suggestBooks(String prefix, int limit);
+
+    BookFacetsDto findFacets(int limit);
+
     BookDto saveBook(BookSaveDto bookSaveDto);
 
-    BookDto updateBook(Long bookId, BookUpdateDto bookSaveDto);
+    BookBatchResultDto saveBooks(List<BookSaveDto> bookSaveDtos);
+
+    BookDto updateBook(Long bookId, Long expectedVersion, BookUpdateDto bookUpdateDto);
+
+    BookBulkResultDto updateBooks(BookFilterDto filter, BookUpdateDto bookUpdateDto);
 
     void deleteBook(Long bookId);
+
+    BookBulkResultDto deleteBooks(BookFilterDto filter);
 }
\ No newline at end of file
@@ -1,68 +1,332 @@
 package ru.tokmakov.bookkeeper.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.tokmakov.bookkeeper.cache.BookCache;
+import ru.tokmakov.bookkeeper.dto.BookBatchErrorDto;
+import ru.tokmakov.bookkeeper.dto.BookBatchResultDto;
+import ru.tokmakov.bookkeeper.dto.BookBulkResultDto;
 import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookFacetsDto;
+import ru.tokmakov.bookkeeper.dto.BookFilterDto;
+import ru.tokmakov.bookkeeper.dto.BookLookupResultDto;
 import ru.tokmakov.bookkeeper.dto.BookMapper;
+import ru.tokmakov.bookkeeper.dto.BookPageDto;
 import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.dto.BookSearchHitDto;
+import ru.tokmakov.bookkeeper.dto.BookSuggestionsDto;
 import ru.tokmakov.bookkeeper.dto.BookUpdateDto;
+import ru.tokmakov.bookkeeper.dto.BookVersionDto;
+import ru.tokmakov.bookkeeper.event.BookChangedEvent;
+import ru.tokmakov.bookkeeper.exception.BadRequestException;
 import ru.tokmakov.bookkeeper.exception.NotFoundException;
+import ru.tokmakov.bookkeeper.exception.PreconditionFailedException;
+import ru.tokmakov.bookkeeper.facet.BookFacets;
 import ru.tokmakov.bookkeeper.model.Book;
 import ru.tokmakov.bookkeeper.repository.BookRepository;
+import ru.tokmakov.bookkeeper.repository.BookSpecifications;
+import ru.tokmakov.bookkeeper.search.BookSearchIndex;
+import ru.tokmakov.bookkeeper.search.BookSuggestionIndex;
+import ru.tokmakov.bookkeeper.search.SearchQuery;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Сервисный класс для управления книгами.
  * Реализует логику операций с книгами, включая создание, обновление, удаление и получение данных.
+ * Время каждой операции публикуется в таймере {@value #SERVICE_METRIC} с тегами {@code method} и {@code exception}.
  */
 @Slf4j
 @Service
+@Timed(BookServiceImpl.SERVICE_METRIC)
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class BookServiceImpl implements BookService {
+    public static final String SERVICE_METRIC = "book-keeper.service";
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_BATCH_SIZE = 1000;
+    public static final int MAX_BULK_SIZE = 1000;
+    public static final int LOOKUP_CHUNK_SIZE = 500;
+
     private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final BookCache bookCache;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookSuggestionIndex bookSuggestionIndex;
+    private final BookFacets bookFacets;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
-     * Получение списка всех книг.
+     * Получение страницы книг с фильтрацией и сортировкой.
+     * Используется keyset-пагинация по паре (поле сортировки, идентификатор): следующая страница выбирается
+     * условием «после последней книги предыдущей страницы», поэтому стоимость запроса не зависит от глубины листания.
+     * Книги читаются сразу в {@link BookDto}, без управляемых сущностей в контексте персистентности.
      *
-     * @return список книг в формате {@link BookDto}.
+     * @param filter фильтр по идентификаторам, автору, жанру и префиксу названия, а также курсор страницы
+     *               в формате {@link BookFilterDto}.
+     * @param sort   поле сортировки: {@code id}, {@code title}, {@code author} или {@code genre}.
+     * @param order  порядок сортировки: {@code asc} или {@code desc}.
+     * @param size   размер страницы, от 1 до {@value #MAX_PAGE_SIZE}.
+     * @return страница книг в формате {@link BookPageDto}.
+     * @throws BadRequestException если параметры выборки или курсор некорректны.
      */
     @Override
     @Transactional(readOnly = true)
-    public List<BookDto> findAllBooks() {
-        log.info("Fetching all books");
+    public BookPageDto findAllBooks(BookFilterDto filter, String sort, String order, int size) {
+        log.debug("Fetching books page, filter: {}, sort: {} {}, size: {}", filter, sort, order, size);
 
-        List<Book> books = bookRepository.findAll();
+        if (size < 1 || size > MAX_PAGE_SIZE)
+            throw new BadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        if (filter.getIds() != null && filter.getIds().size() > MAX_BULK_SIZE)
+            throw new BadRequestException("No more than " + MAX_BULK_SIZE + " ids can be specified");
 
-        log.info("Found {} books", books.size());
+        BookSort bookSort = BookSort.of(sort);
+        Sort.Direction direction = parseDirection(order);
+        boolean descending = direction.isDescending();
 
-        return books.stream()
-                .map(BookMapper::bookToBookDto)
-                .toList();
+        Specification<Book> specification = BookSpecifications.byFilter(filter);
+        PageCursor cursor = PageCursor.parse(filter.getCursor());
+        if (cursor != null) {
+            if (!Objects.equals(cursor.field(), bookSort.cursorField()))
+                throw new BadRequestException("Cursor does not match sort property " + bookSort.getProperty());
+            specification = specification.and(
+                    BookSpecifications.after(cursor.field(), descending, cursor.lastId(), cursor.value()));
+        }
+
+        Sort orderBy = bookSort == BookSort.ID
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, bookSort.getProperty(), "id");
+        List<BookDto> books = bookRepository.findDtos(specification, orderBy, size + 1);
+
+        String nextCursor = null;
+        if (books.size() > size) {
+            books = books.subList(0, size);
+            BookDto last = books.get(size - 1);
+            nextCursor = PageCursor.encode(last.getId(), bookSort.cursorField(),
+                    bookSort.getValueExtractor().apply(last));
+        }
+
+        log.debug("Found {} books", books.size());
+
+        return new BookPageDto(books, nextCursor);
+    }
+
+    private static Sort.Direction parseDirection(String order) {
+        return Sort.Direction.fromOptionalString(order)
+                .orElseThrow(() -> new BadRequestException("Unknown sort order: " + order));
+    }
+
+    /**
+     * Последовательная выгрузка всех книг.
+     * Книги читаются курсором с ограниченным fetch size и отсоединяются от контекста
+     * персистентности сразу после передачи потребителю, поэтому потребление памяти
+     * не зависит от размера таблицы.
+     *
+     * @param consumer получатель книг в формате {@link BookDto}, вызывается в порядке возрастания идентификатора.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBooks(Consumer<BookDto> consumer) {
+        log.debug("Exporting all books");
+
+        long exported = 0;
+        try (Stream<Book> books = bookRepository.streamAllByOrderById()) {
+            Iterator<Book> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                Book book = iterator.next();
+                consumer.accept(BookMapper.bookToBookDto(book));
+                entityManager.detach(book);
+                exported++;
+            }
+        }
+
+        log.debug("Exported {} books", exported);
+    }
+
+    /**
+     * Выгрузка текущего состояния книг по идентификаторам запросами {@code IN}
+     * порциями по {@value #LOOKUP_CHUNK_SIZE} идентификаторов.
+     *
+     * @param bookIds  идентификаторы книг.
+     * @param consumer получатель найденных книг в формате {@link BookDto}.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBooks(Collection<Long> bookIds, Consumer<BookDto> consumer) {
+        List<Long> ids = List.copyOf(bookIds);
+        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE)
+            bookRepository.findDtosByIdIn(ids.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, ids.size())))
+                    .forEach(consumer);
+    }
+
+    /**
+     * Получение версии книги без загрузки ее данных.
+     * Версия берется из {@link BookCache}, а при промахе читается из базы запросом только версии и времени изменения.
+     *
+     * @param bookId идентификатор книги.
+     * @return версия и время последнего изменения книги в формате {@link BookVersionDto}.
+     * @throws NotFoundException если книга с указанным идентификатором не найдена.
+     */
+    @Override
+    public BookVersionDto findBookVersion(Long bookId) {
+        BookDto cached = bookCache.getIfPresent(bookId);
+        if (cached != null)
+            return new BookVersionDto(cached.getVersion(), cached.getUpdatedAt());
+
+        return bookRepository.findVersionById(bookId)
+                .orElseThrow(() -> new NotFoundException("Book with id " + bookId + " not found"));
     }
 
     /**
      * Получение книги по идентификатору.
+     * Книга читается через {@link BookCache}; при попадании в кэш транзакция и соединение с базой не открываются,
+     * при промахе книга читается проекцией сразу в {@link BookDto}.
      *
      * @param bookId идентификатор книги.
      * @return книга в формате {@link BookDto}.
      * @throws NotFoundException если книга с указанным идентификатором не найдена.
      */
     @Override
-    @Transactional(readOnly = true)
     public BookDto findBookById(Long bookId) {
-        log.info("Attempting to find book with id: {}", bookId);
+        log.debug("Attempting to find book with id: {}", bookId);
 
-        Book book = getBookById(bookId);
-
-        BookDto bookDto = BookMapper.bookToBookDto(book);
-        log.info("Successfully found book: {}", bookDto);
+        BookDto bookDto = bookCache.get(bookId, this::getBookById);
+        log.debug("Successfully found book: {}", bookDto);
 
         return bookDto;
     }
 
+    /**
+     * Получение нескольких книг по списку идентификаторов.
+     * Сначала книги ищутся в {@link BookCache}, остальные читаются запросами {@code IN}
+     * порциями по {@value #LOOKUP_CHUNK_SIZE} идентификаторов.
+     *
+     * @param bookIds идентификаторы книг, не более {@value #MAX_BULK_SIZE}; повторы игнорируются.
+     * @return найденные книги в порядке запроса и идентификаторы отсутствующих книг в формате {@link BookLookupResultDto}.
+     * @throws BadRequestException если список пуст, слишком велик или содержит {@code null}.
+     */
+    @Override
+    public BookLookupResultDto findBooksByIds(List<Long> bookIds) {
+        log.debug("Looking up {} books by ids", bookIds.size());
+
+        if (bookIds.isEmpty() || bookIds.size() > MAX_BULK_SIZE)
+            throw new BadRequestException("Number of ids must be between 1 and " + MAX_BULK_SIZE);
+        if (bookIds.stream().anyMatch(Objects::isNull))
+            throw new BadRequestException("Ids must not be null");
+
+        Set<Long> uniqueIds = new LinkedHashSet<>(bookIds);
+        Map<Long, BookDto> found = new HashMap<>(bookCache.getAllPresent(uniqueIds));
+
+        List<Long> toLoad = uniqueIds.stream()
+                .filter(id -> !found.containsKey(id))
+                .toList();
+        for (int from = 0; from < toLoad.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = toLoad.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, toLoad.size()));
+            bookRepository.findDtosByIdIn(chunk).forEach(book -> found.put(book.getId(), book));
+        }
+
+        List<BookDto> books = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : uniqueIds) {
+            BookDto book = found.get(id);
+            if (book == null)
+                missing.add(id);
+            else
+                books.add(book);
+        }
+        log.debug("Found {} books ({} from cache), missing {}", books.size(), uniqueIds.size() - toLoad.size(), missing.size());
+
+        return new BookLookupResultDto(books, missing);
+    }
+
+    /**
+     * Полнотекстовый поиск книг по названию и автору.
+     * Запрос выполняется по индексу в памяти {@link BookSearchIndex} без обращения к базе.
+     *
+     * @param query поисковый запрос: термы, префиксы вида {@code тол*} и фразы в кавычках.
+     * @param limit максимальное число результатов, от 1 до {@value #MAX_PAGE_SIZE}.
+     * @return найденные книги по убыванию релевантности в формате {@link BookSearchHitDto}.
+     * @throws BadRequestException если запрос пуст, лимит некорректен или префикс подходит к слишком многим термам.
+     */
+    @Override
+    public List<BookSearchHitDto> searchBooks(String query, int limit) {
+        log.debug("Searching books by query: {}, limit: {}", query, limit);
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE)
+            throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+
+        SearchQuery searchQuery = SearchQuery.parse(query);
+        if (searchQuery.clauses().isEmpty())
+            throw new BadRequestException("Search query must contain at least one word");
+
+        List<BookSearchHitDto> hits = bookSearchIndex.search(searchQuery, limit);
+        log.debug("Found {} books by query: {}", hits.size(), query);
+
+        return hits;
+    }
+
+    /**
+     * Подсказки при вводе по названиям, авторам и жанрам.
+     * Подсказки выбираются из {@link BookSuggestionIndex} в памяти без обращения к базе.
+     *
+     * @param prefix введенный префикс.
+     * @param limit  максимальное число подсказок для каждого поля, от 1 до {@value BookSuggestionIndex#MAX_SUGGESTIONS}.
+     * @return наиболее частые значения полей в формате {@link BookSuggestionsDto}.
+     * @throws BadRequestException если префикс пуст или лимит некорректен.
+     */
+    @Override
+    public BookSuggestionsDto suggestBooks(String prefix, int limit) {
+        log.debug("Suggesting books by prefix: {}, limit: {}", prefix, limit);
+
+        if (limit < 1 || limit > BookSuggestionIndex.MAX_SUGGESTIONS)
+            throw new BadRequestException("Limit must be between 1 and " + BookSuggestionIndex.MAX_SUGGESTIONS);
+        if (prefix == null || prefix.isBlank())
+            throw new BadRequestException("Prefix must not be blank");
+
+        return bookSuggestionIndex.suggest(prefix, limit);
+    }
+
+    /**
+     * Число книг по жанрам и авторам.
+     * Счетчики поддерживаются в {@link BookFacets} при каждом изменении книги, поэтому запрос не обращается к базе.
+     *
+     * @param limit максимальное число значений каждого поля, от 1 до {@value BookFacets#MAX_FACET_VALUES}.
+     * @return наиболее частые жанры и авторы в формате {@link BookFacetsDto}.
+     * @throws BadRequestException если лимит некорректен.
+     */
+    @Override
+    public BookFacetsDto findFacets(int limit) {
+        log.debug("Finding book facets, limit: {}", limit);
+
+        if (limit < 1 || limit > BookFacets.MAX_FACET_VALUES)
+            throw new BadRequestException("Limit must be between 1 and " + BookFacets.MAX_FACET_VALUES);
+
+        return bookFacets.facets(limit);
+    }
+
     /**
      * Сохранение новой книги.
      *
@@ -72,43 +336,115 @@ public class BookServiceImpl implements BookService {
     @Override
     @Transactional
     public BookDto saveBook(BookSaveDto bookSaveDto) {
-        log.info("Received request to save a book with details: {}", bookSaveDto);
+        log.debug("Received request to save a book with details: {}", bookSaveDto);
 
         Book book = BookMapper.bookSaveDtoToBook(bookSaveDto);
         log.debug("Converted BookSaveDto to Book: {}", book);
 
-        BookDto savedBook = BookMapper.bookToBookDto(bookRepository.save(book));
-        log.info("Successfully saved book with ID: {}", savedBook.getId());
+        BookDto savedBook = BookMapper.bookToBookDto(bookRepository.saveAndFlush(book));
+        eventPublisher.publishEvent(BookChangedEvent.created(savedBook));
+        log.debug("Successfully saved book with ID: {}", savedBook.getId());
 
         return savedBook;
     }
 
+    /**
+     * Пакетное сохранение книг.
+     * Каждая книга проверяется отдельно: некорректные книги не сохраняются и попадают в список ошибок
+     * с индексом в исходном списке, корректные сохраняются в одной транзакции пакетными INSERT.
+     *
+     * @param bookSaveDtos книги для сохранения в формате {@link BookSaveDto}, не более {@value #MAX_BATCH_SIZE}.
+     * @return сохраненные книги и ошибки валидации в формате {@link BookBatchResultDto}.
+     * @throws BadRequestException если список пуст или превышает допустимый размер.
+     */
+    @Override
+    @Transactional
+    public BookBatchResultDto saveBooks(List<BookSaveDto> bookSaveDtos) {
+        log.debug("Received request to save a batch of {} books", bookSaveDtos.size());
+
+        if (bookSaveDtos.isEmpty() || bookSaveDtos.size() > MAX_BATCH_SIZE)
+            throw new BadRequestException("Batch size must be between 1 and " + MAX_BATCH_SIZE);
+
+        List<Book> books = new ArrayList<>(bookSaveDtos.size());
+        List<BookBatchErrorDto> errors = new ArrayList<>();
+        for (int i = 0; i < bookSaveDtos.size(); i++) {
+            BookSaveDto bookSaveDto = bookSaveDtos.get(i);
+            if (bookSaveDto == null) {
+                errors.add(new BookBatchErrorDto(i, List.of("Book is mandatory")));
+                continue;
+            }
+
+            Set<ConstraintViolation<BookSaveDto>> violations = validator.validate(bookSaveDto);
+            if (violations.isEmpty()) {
+                books.add(BookMapper.bookSaveDtoToBook(bookSaveDto));
+            } else {
+                errors.add(new BookBatchErrorDto(i, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .toList()));
+            }
+        }
+
+        List<Book> persistedBooks = bookRepository.saveAll(books);
+        bookRepository.flush();
+        List<BookDto> savedBooks = persistedBooks.stream()
+                .map(BookMapper::bookToBookDto)
+                .toList();
+        savedBooks.forEach(savedBook -> eventPublisher.publishEvent(BookChangedEvent.created(savedBook)));
+        log.debug("Saved {} books, rejected {} books", savedBooks.size(), errors.size());
+
+        return new BookBatchResultDto(savedBooks, errors);
+    }
+
     /**
      * Обновление существующей книги.
+     * Книга обновляется одним оператором UPDATE с проверкой версии в условии, без предварительного чтения
+     * и без блокировки строки. Книга дочитывается только если обновление не затронуло ни одной строки,
+     * чтобы отличить отсутствующую книгу от устаревшей версии.
      *
-     * @param bookId        идентификатор книги.
-     * @param bookUpdateDto данные для обновления книги в формате {@link BookUpdateDto}.
+     * @param bookId          идентификатор книги.
+     * @param expectedVersion версия, которую видел клиент, или {@code null}, если версия не проверяется.
+     * @param bookUpdateDto   данные для обновления книги в формате {@link BookUpdateDto}.
      * @return обновленная книга в формате {@link BookDto}.
-     * @throws NotFoundException если книга с указанным идентификатором не найдена.
+     * @throws NotFoundException           если книга с указанным идентификатором не найдена.
+     * @throws PreconditionFailedException если версия книги отличается от ожидаемой.
      */
     @Override
     @Transactional
-    public BookDto updateBook(Long bookId, BookUpdateDto bookUpdateDto) {
-        log.info("Updating book with ID: {}, Update data: {}", bookId, bookUpdateDto);
+    public BookDto updateBook(Long bookId, Long expectedVersion, BookUpdateDto bookUpdateDto) {
+        log.debug("Updating book with ID: {}, expected version: {}, Update data: {}", bookId, expectedVersion, bookUpdateDto);
+
+        if (bookUpdateDto.getTitle() == null && bookUpdateDto.getAuthor() == null && bookUpdateDto.getGenre() == null) {
+            BookDto unchanged = getBookById(bookId);
+            checkVersion(bookId, expectedVersion, unchanged.getVersion());
+            return unchanged;
+        }
+
+        BookDto result = bookRepository.updateById(bookId, expectedVersion, bookUpdateDto)
+                .orElseThrow(() -> notUpdated(bookId, expectedVersion));
+        eventPublisher.publishEvent(BookChangedEvent.updated(bookId, result));
+        log.debug("Book with ID: {} successfully updated to version {}", bookId, result.getVersion());
 
-        Book bookToUpdate = getBookById(bookId);
-        log.info("Book found: {}", bookToUpdate);
+        return result;
+    }
 
-        updateFields(bookToUpdate, bookUpdateDto);
-        log.info("Fields updated for book with ID: {}", bookId);
+    @Override
+    @Transactional
+    public BookBulkResultDto updateBooks(BookFilterDto filter, BookUpdateDto bookUpdateDto) {
+        log.debug("Bulk updating books, filter: {}, update data: {}", filter, bookUpdateDto);
 
-        Book updatedBook = bookRepository.save(bookToUpdate);
-        log.info("Book with ID: {} successfully updated and saved", bookId);
+        if (bookUpdateDto.getTitle() == null && bookUpdateDto.getAuthor() == null && bookUpdateDto.getGenre() == null)
+            throw new BadRequestException("At least one field must be updated");
 
-        BookDto result = BookMapper.bookToBookDto(updatedBook);
-        log.info("Returning updated book DTO: {}", result);
+        BulkSelection selection = selectBooks(filter);
+        int affected = selection.ids().isEmpty() ? 0 : bookRepository.updateAllByIdIn(selection.ids(),
+                bookUpdateDto.getTitle(), bookUpdateDto.getAuthor(), bookUpdateDto.getGenre(), Instant.now());
+        if (affected > 0)
+            bookRepository.findAllById(selection.ids()).forEach(book -> eventPublisher.publishEvent(
+                    BookChangedEvent.updated(book.getId(), BookMapper.bookToBookDto(book))));
 
-        return BookMapper.bookToBookDto(updatedBook);
+        log.debug("Bulk updated {} books", affected);
+        return new BookBulkResultDto(affected, selection.nextCursor());
     }
 
     /**
@@ -120,28 +456,83 @@ public class BookServiceImpl implements BookService {
     @Override
     @Transactional
     public void deleteBook(Long id) {
-        log.info("Attempting to delete book with ID: {}", id);
+        log.debug("Attempting to delete book with ID: {}", id);
 
-        Book book = getBookById(id);
+        if (bookRepository.deleteBookById(id) == 0)
+            throw new NotFoundException("Book with id " + id + " not found");
+        eventPublisher.publishEvent(BookChangedEvent.deleted(id));
 
-        log.info("Book found: ID={}, Title={}, Author={}", book.getId(), book.getTitle(), book.getAuthor());
+        log.debug("Successfully deleted book with ID: {}", id);
+    }
 
-        bookRepository.deleteById(book.getId());
+    /**
+     * Массовое удаление книг одним DELETE.
+     * Книги выбираются так же, как в {@link #updateBooks(BookFilterDto, BookUpdateDto)}. Перед удалением
+     * существующие книги блокируются, и события об удалении публикуются только для них:
+     * отсутствующие и уже удаленные другой транзакцией книги в ленту изменений и кэши не попадают.
+     *
+     * @param filter условие выбора книг в формате {@link BookFilterDto}.
+     * @return число удаленных книг и курсор следующей порции в формате {@link BookBulkResultDto}.
+     * @throws BadRequestException если фильтр некорректен.
+     */
+    @Override
+    @Transactional
+    public BookBulkResultDto deleteBooks(BookFilterDto filter) {
+        log.debug("Bulk deleting books, filter: {}", filter);
+
+        BulkSelection selection = selectBooks(filter);
+        List<Long> existing = selection.ids().isEmpty() ? List.of() : bookRepository.lockIdsByIdIn(selection.ids());
+        int affected = existing.isEmpty() ? 0 : bookRepository.deleteAllByIdIn(existing);
+        existing.forEach(id -> eventPublisher.publishEvent(BookChangedEvent.deleted(id)));
+
+        log.debug("Bulk deleted {} books", affected);
+        return new BookBulkResultDto(affected, selection.nextCursor());
+    }
+
+    private BulkSelection selectBooks(BookFilterDto filter) {
+        boolean hasIds = filter.getIds() != null && !filter.getIds().isEmpty();
+        boolean hasCondition = filter.getAuthor() != null || filter.getGenre() != null
+                || filter.getTitlePrefix() != null;
+
+        if (hasIds == hasCondition)
+            throw new BadRequestException("Either ids or author/genre/titlePrefix filter must be specified");
+
+        if (hasIds) {
+            if (filter.getIds().size() > MAX_BULK_SIZE)
+                throw new BadRequestException("No more than " + MAX_BULK_SIZE + " ids can be specified");
+            return new BulkSelection(filter.getIds(), null);
+        }
+
+        long lastId = PageCursor.decode(filter.getCursor());
+        List<Long> ids = bookRepository.findIdsByFilter(lastId, filter.getAuthor(), filter.getGenre(),
+                BookSpecifications.likePrefix(filter.getTitlePrefix()), Limit.of(MAX_BULK_SIZE + 1));
+
+        String nextCursor = null;
+        if (ids.size() > MAX_BULK_SIZE) {
+            ids = ids.subList(0, MAX_BULK_SIZE);
+            nextCursor = PageCursor.encode(ids.get(MAX_BULK_SIZE - 1));
+        }
+        return new BulkSelection(ids, nextCursor);
+    }
+
+    private record BulkSelection(List<Long> ids, String nextCursor) {
+    }
 
-        log.info("Successfully deleted book with ID: {}", id);
+    private static void checkVersion(Long bookId, Long expectedVersion, Long version) {
+        if (expectedVersion != null && !expectedVersion.equals(version))
+            throw new PreconditionFailedException("Book with id " + bookId + " has version "
+                    + version + ", expected " + expectedVersion);
     }
 
-    private void updateFields(Book bookToUpdate, BookUpdateDto newBook) {
-        if (newBook.getTitle() != null)
-            bookToUpdate.setTitle(newBook.getTitle());
-        if (newBook.getAuthor() != null)
-            bookToUpdate.setAuthor(newBook.getAuthor());
-        if (newBook.getGenre() != null)
-            bookToUpdate.setGenre(newBook.getGenre());
+    private RuntimeException notUpdated(Long bookId, Long expectedVersion) {
+        return bookRepository.findVersionById(bookId)
+                .<RuntimeException>map(current -> new PreconditionFailedException("Book with id " + bookId
+                        + " has version " + current.getVersion() + ", expected " + expectedVersion))
+                .orElseGet(() -> new NotFoundException("Book with id " + bookId + " not found"));
     }
 
-    private Book getBookById(Long bookId) {
-        return bookRepository.findById(bookId).
+    private BookDto getBookById(Long bookId) {
+        return bookRepository.findDtoById(bookId).
                 orElseThrow(() -> new NotFoundException("Book with id " + bookId + " not found"));
     }
 }
\ No newline at end of file
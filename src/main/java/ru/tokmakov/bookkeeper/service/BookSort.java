@@ -0,0 +1,35 @@
+package ru.tokmakov.bookkeeper.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.exception.BadRequestException;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Поле сортировки списка книг. Порядок всегда дополняется идентификатором, чтобы быть однозначным.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum BookSort {
+    ID("id", bookDto -> null),
+    TITLE("title", BookDto::getTitle),
+    AUTHOR("author", BookDto::getAuthor),
+    GENRE("genre", BookDto::getGenre);
+
+    private final String property;
+    private final Function<BookDto, String> valueExtractor;
+
+    public static BookSort of(String property) {
+        return Arrays.stream(values())
+                .filter(sort -> sort.property.equalsIgnoreCase(property))
+                .findFirst()
+                .orElseThrow(() -> new BadRequestException("Unknown sort property: " + property));
+    }
+
+    public String cursorField() {
+        return this == ID ? null : property;
+    }
+}
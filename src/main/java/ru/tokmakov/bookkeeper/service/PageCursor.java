@@ -0,0 +1,62 @@
+package ru.tokmakov.bookkeeper.service;
+
+import ru.tokmakov.bookkeeper.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Курсор keyset-выборки.
+ * Содержит идентификатор последней книги на странице, а при сортировке не по идентификатору — еще и
+ * поле сортировки со значением этого поля у последней книги. Для клиента курсор непрозрачен.
+ *
+ * @param lastId идентификатор последней книги на странице.
+ * @param field  поле сортировки или {@code null} при сортировке по идентификатору.
+ * @param value  значение поля сортировки у последней книги или {@code null}.
+ */
+public record PageCursor(long lastId, String field, String value) {
+    private static final long FIRST_PAGE = 0L;
+    private static final String SEPARATOR = ":";
+
+    public static String encode(Long lastId) {
+        return encode(lastId, null, null);
+    }
+
+    public static String encode(Long lastId, String field, String value) {
+        String payload = field == null ? String.valueOf(lastId) : lastId + SEPARATOR + field + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбор курсора.
+     *
+     * @param cursor курсор из ответа или {@code null}.
+     * @return курсор или {@code null} для первой страницы.
+     * @throws BadRequestException если курсор поврежден.
+     */
+    public static PageCursor parse(String cursor) {
+        if (cursor == null || cursor.isBlank())
+            return null;
+        try {
+            String payload = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = payload.split(SEPARATOR, 3);
+            if (parts.length == 1)
+                return new PageCursor(Long.parseLong(parts[0]), null, null);
+            if (parts.length == 3)
+                return new PageCursor(Long.parseLong(parts[0]), parts[1], parts[2]);
+        } catch (IllegalArgumentException e) {
+            // Обрабатывается ниже вместе с курсором неверного формата.
+        }
+        throw new BadRequestException("Invalid cursor: " + cursor);
+    }
+
+    public static long decode(String cursor) {
+        PageCursor pageCursor = parse(cursor);
+        if (pageCursor == null)
+            return FIRST_PAGE;
+        if (pageCursor.field() != null)
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        return pageCursor.lastId();
+    }
+}
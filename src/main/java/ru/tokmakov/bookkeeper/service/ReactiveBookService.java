@@ -0,0 +1,54 @@
+package ru.tokmakov.bookkeeper.service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.tokmakov.bookkeeper.dto.BookBatchResultDto;
+import ru.tokmakov.bookkeeper.dto.BookBulkResultDto;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookFacetsDto;
+import ru.tokmakov.bookkeeper.dto.BookFilterDto;
+import ru.tokmakov.bookkeeper.dto.BookLookupResultDto;
+import ru.tokmakov.bookkeeper.dto.BookPageDto;
+import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.dto.BookSearchHitDto;
+import ru.tokmakov.bookkeeper.dto.BookSuggestionsDto;
+import ru.tokmakov.bookkeeper.dto.BookUpdateDto;
+import ru.tokmakov.bookkeeper.dto.BookVersionDto;
+
+import java.util.List;
+
+/**
+ * Неблокирующий вариант {@link BookService} для профиля {@code reactive}.
+ * Операции и их ошибки совпадают с {@link BookService}; ошибки передаются сигналом {@code onError}.
+ */
+public interface ReactiveBookService {
+    Mono<BookPageDto> findAllBooks(BookFilterDto filter, String sort, String order, int size);
+
+    Flux<BookDto> streamBooks(BookFilterDto filter, String sort, String order);
+
+    Flux<BookDto> exportBooks();
+
+    Mono<BookVersionDto> findBookVersion(Long bookId);
+
+    Mono<BookDto> findBookById(Long bookId);
+
+    Mono<BookLookupResultDto> findBooksByIds(List<Long> bookIds);
+
+    Mono<List<BookSearchHitDto>> searchBooks(String query, int limit);
+
+    Mono<BookSuggestionsDto> suggestBooks(String prefix, int limit);
+
+    Mono<BookFacetsDto> findFacets(int limit);
+
+    Mono<BookDto> saveBook(BookSaveDto bookSaveDto);
+
+    Mono<BookBatchResultDto> saveBooks(List<BookSaveDto> bookSaveDtos);
+
+    Mono<BookDto> updateBook(Long bookId, Long expectedVersion, BookUpdateDto bookUpdateDto);
+
+    Mono<BookBulkResultDto> updateBooks(BookFilterDto filter, BookUpdateDto bookUpdateDto);
+
+    Mono<Void> deleteBook(Long bookId);
+
+    Mono<BookBulkResultDto> deleteBooks(BookFilterDto filter);
+}
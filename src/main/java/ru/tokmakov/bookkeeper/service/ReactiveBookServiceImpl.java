@@ -0,0 +1,446 @@
+package ru.tokmakov.bookkeeper.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalEventPublisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.tokmakov.bookkeeper.dto.BookBatchErrorDto;
+import ru.tokmakov.bookkeeper.dto.BookBatchResultDto;
+import ru.tokmakov.bookkeeper.dto.BookBulkResultDto;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookFacetsDto;
+import ru.tokmakov.bookkeeper.dto.BookFilterDto;
+import ru.tokmakov.bookkeeper.dto.BookLookupResultDto;
+import ru.tokmakov.bookkeeper.dto.BookPageDto;
+import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.dto.BookSearchHitDto;
+import ru.tokmakov.bookkeeper.dto.BookSuggestionsDto;
+import ru.tokmakov.bookkeeper.dto.BookUpdateDto;
+import ru.tokmakov.bookkeeper.dto.BookVersionDto;
+import ru.tokmakov.bookkeeper.event.BookCatalogSource;
+import ru.tokmakov.bookkeeper.event.BookChangedEvent;
+import ru.tokmakov.bookkeeper.exception.BadRequestException;
+import ru.tokmakov.bookkeeper.exception.NotFoundException;
+import ru.tokmakov.bookkeeper.exception.PreconditionFailedException;
+import ru.tokmakov.bookkeeper.facet.BookFacets;
+import ru.tokmakov.bookkeeper.repository.BookSpecifications;
+import ru.tokmakov.bookkeeper.repository.ReactiveBookRepository;
+import ru.tokmakov.bookkeeper.search.BookSearchIndex;
+import ru.tokmakov.bookkeeper.search.BookSuggestionIndex;
+import ru.tokmakov.bookkeeper.search.SearchQuery;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static ru.tokmakov.bookkeeper.service.BookServiceImpl.LOOKUP_CHUNK_SIZE;
+import static ru.tokmakov.bookkeeper.service.BookServiceImpl.MAX_BATCH_SIZE;
+import static ru.tokmakov.bookkeeper.service.BookServiceImpl.MAX_BULK_SIZE;
+import static ru.tokmakov.bookkeeper.service.BookServiceImpl.MAX_PAGE_SIZE;
+
+/**
+ * Реализация {@link ReactiveBookService} на R2DBC для профиля {@code reactive}.
+ * Ограничения и ошибки совпадают с {@link BookServiceImpl}. События изменения книг публикуются через
+ * {@link TransactionalEventPublisher}, поэтому {@code @TransactionalEventListener} получают их после
+ * фиксации реактивной транзакции так же, как в {@link BookServiceImpl}.
+ * Поиск, подсказки и фасеты читаются из тех же представлений в памяти.
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+public class ReactiveBookServiceImpl implements ReactiveBookService, BookCatalogSource {
+    private final ReactiveBookRepository bookRepository;
+    private final Validator validator;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookSuggestionIndex bookSuggestionIndex;
+    private final BookFacets bookFacets;
+    private final TransactionalEventPublisher eventPublisher;
+
+    public ReactiveBookServiceImpl(ReactiveBookRepository bookRepository,
+                                   Validator validator,
+                                   BookSearchIndex bookSearchIndex,
+                                   BookSuggestionIndex bookSuggestionIndex,
+                                   BookFacets bookFacets,
+                                   ApplicationEventPublisher eventPublisher) {
+        this.bookRepository = bookRepository;
+        this.validator = validator;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookSuggestionIndex = bookSuggestionIndex;
+        this.bookFacets = bookFacets;
+        this.eventPublisher = new TransactionalEventPublisher(eventPublisher);
+    }
+
+    /**
+     * Получение страницы книг с фильтрацией и сортировкой; keyset-пагинация как в
+     * {@link BookServiceImpl#findAllBooks(BookFilterDto, String, String, int)}.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Mono<BookPageDto> findAllBooks(BookFilterDto filter, String sort, String order, int size) {
+        return Mono.defer(() -> {
+            log.debug("Fetching books page, filter: {}, sort: {} {}, size: {}", filter, sort, order, size);
+
+            if (size < 1 || size > MAX_PAGE_SIZE)
+                throw new BadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+
+            BookSort bookSort = BookSort.of(sort);
+            return select(filter, bookSort, order, size + 1)
+                    .collectList()
+                    .map(books -> {
+                        String nextCursor = null;
+                        if (books.size() > size) {
+                            books = books.subList(0, size);
+                            BookDto last = books.get(size - 1);
+                            nextCursor = PageCursor.encode(last.getId(), bookSort.cursorField(),
+                                    bookSort.getValueExtractor().apply(last));
+                        }
+                        log.debug("Found {} books", books.size());
+                        return new BookPageDto(books, nextCursor);
+                    });
+        });
+    }
+
+    /**
+     * Потоковое чтение всех книг по фильтру и сортировке, начиная с позиции курсора.
+     * Книги передаются клиенту по мере чтения из базы с учетом обратного давления, без ограничения размера страницы.
+     */
+    @Override
+    public Flux<BookDto> streamBooks(BookFilterDto filter, String sort, String order) {
+        return Flux.defer(() -> {
+            log.debug("Streaming books, filter: {}, sort: {} {}", filter, sort, order);
+            return select(filter, BookSort.of(sort), order, null);
+        });
+    }
+
+    private Flux<BookDto> select(BookFilterDto filter, BookSort bookSort, String order, Integer limit) {
+        if (filter.getIds() != null && filter.getIds().size() > MAX_BULK_SIZE)
+            throw new BadRequestException("No more than " + MAX_BULK_SIZE + " ids can be specified");
+
+        boolean descending = Sort.Direction.fromOptionalString(order)
+                .orElseThrow(() -> new BadRequestException("Unknown sort order: " + order))
+                .isDescending();
+        PageCursor cursor = PageCursor.parse(filter.getCursor());
+        if (cursor != null && !Objects.equals(cursor.field(), bookSort.cursorField()))
+            throw new BadRequestException("Cursor does not match sort property " + bookSort.getProperty());
+
+        return bookRepository.findAll(filter, bookSort, descending, cursor, limit);
+    }
+
+    @Override
+    public Flux<BookDto> exportBooks() {
+        log.debug("Exporting all books");
+        return bookRepository.findAllOrderById();
+    }
+
+    /**
+     * Блокирующая выгрузка для загрузки представлений каталога при старте; не вызывается из потоков обработки запросов.
+     */
+    @Override
+    public void exportBooks(Consumer<BookDto> consumer) {
+        Long exported = exportBooks()
+                .doOnNext(consumer)
+                .count()
+                .block();
+        log.debug("Exported {} books", exported);
+    }
+
+    /**
+     * Блокирующая выгрузка по идентификаторам для фонового обновления представлений каталога.
+     */
+    @Override
+    public void exportBooks(Collection<Long> bookIds, Consumer<BookDto> consumer) {
+        Flux.fromIterable(bookIds)
+                .buffer(LOOKUP_CHUNK_SIZE)
+                .concatMap(bookRepository::findByIdIn)
+                .doOnNext(consumer)
+                .then()
+                .block();
+    }
+
+    @Override
+    public Mono<BookVersionDto> findBookVersion(Long bookId) {
+        return bookRepository.findVersionById(bookId)
+                .switchIfEmpty(Mono.error(() -> notFound(bookId)));
+    }
+
+    @Override
+    public Mono<BookDto> findBookById(Long bookId) {
+        log.debug("Attempting to find book with id: {}", bookId);
+        return getBookById(bookId);
+    }
+
+    @Override
+    public Mono<BookLookupResultDto> findBooksByIds(List<Long> bookIds) {
+        return Mono.defer(() -> {
+            log.debug("Looking up {} books by ids", bookIds.size());
+
+            if (bookIds.isEmpty() || bookIds.size() > MAX_BULK_SIZE)
+                throw new BadRequestException("Number of ids must be between 1 and " + MAX_BULK_SIZE);
+            if (bookIds.stream().anyMatch(Objects::isNull))
+                throw new BadRequestException("Ids must not be null");
+
+            List<Long> uniqueIds = List.copyOf(new LinkedHashSet<>(bookIds));
+            List<List<Long>> chunks = new ArrayList<>();
+            for (int from = 0; from < uniqueIds.size(); from += LOOKUP_CHUNK_SIZE) {
+                chunks.add(uniqueIds.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, uniqueIds.size())));
+            }
+
+            return Flux.fromIterable(chunks)
+                    .concatMap(bookRepository::findByIdIn)
+                    .collectMap(BookDto::getId)
+                    .map(found -> lookupResult(uniqueIds, found));
+        });
+    }
+
+    private static BookLookupResultDto lookupResult(List<Long> uniqueIds, Map<Long, BookDto> found) {
+        List<BookDto> books = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : uniqueIds) {
+            BookDto book = found.get(id);
+            if (book == null)
+                missing.add(id);
+            else
+                books.add(book);
+        }
+        log.debug("Found {} books, missing {}", books.size(), missing.size());
+        return new BookLookupResultDto(books, missing);
+    }
+
+    @Override
+    public Mono<List<BookSearchHitDto>> searchBooks(String query, int limit) {
+        return Mono.fromSupplier(() -> {
+            log.debug("Searching books by query: {}, limit: {}", query, limit);
+
+            if (limit < 1 || limit > MAX_PAGE_SIZE)
+                throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+
+            SearchQuery searchQuery = SearchQuery.parse(query);
+            if (searchQuery.clauses().isEmpty())
+                throw new BadRequestException("Search query must contain at least one word");
+
+            return bookSearchIndex.search(searchQuery, limit);
+        });
+    }
+
+    @Override
+    public Mono<BookSuggestionsDto> suggestBooks(String prefix, int limit) {
+        return Mono.fromSupplier(() -> {
+            if (limit < 1 || limit > BookSuggestionIndex.MAX_SUGGESTIONS)
+                throw new BadRequestException("Limit must be between 1 and " + BookSuggestionIndex.MAX_SUGGESTIONS);
+            if (prefix == null || prefix.isBlank())
+                throw new BadRequestException("Prefix must not be blank");
+
+            return bookSuggestionIndex.suggest(prefix, limit);
+        });
+    }
+
+    @Override
+    public Mono<BookFacetsDto> findFacets(int limit) {
+        return Mono.fromSupplier(() -> {
+            if (limit < 1 || limit > BookFacets.MAX_FACET_VALUES)
+                throw new BadRequestException("Limit must be between 1 and " + BookFacets.MAX_FACET_VALUES);
+
+            return bookFacets.facets(limit);
+        });
+    }
+
+    @Override
+    @Transactional
+    public Mono<BookDto> saveBook(BookSaveDto bookSaveDto) {
+        log.debug("Received request to save a book with details: {}", bookSaveDto);
+
+        return bookRepository.insert(bookSaveDto)
+                .flatMap(savedBook -> eventPublisher.publishEvent(BookChangedEvent.created(savedBook))
+                        .thenReturn(savedBook))
+                .doOnNext(savedBook -> log.debug("Successfully saved book with ID: {}", savedBook.getId()));
+    }
+
+    /**
+     * Пакетное сохранение книг с валидацией каждой книги, как в {@link BookServiceImpl#saveBooks(List)}.
+     */
+    @Override
+    @Transactional
+    public Mono<BookBatchResultDto> saveBooks(List<BookSaveDto> bookSaveDtos) {
+        return Mono.defer(() -> {
+            log.debug("Received request to save a batch of {} books", bookSaveDtos.size());
+
+            if (bookSaveDtos.isEmpty() || bookSaveDtos.size() > MAX_BATCH_SIZE)
+                throw new BadRequestException("Batch size must be between 1 and " + MAX_BATCH_SIZE);
+
+            List<BookSaveDto> books = new ArrayList<>(bookSaveDtos.size());
+            List<BookBatchErrorDto> errors = new ArrayList<>();
+            for (int i = 0; i < bookSaveDtos.size(); i++) {
+                BookSaveDto bookSaveDto = bookSaveDtos.get(i);
+                if (bookSaveDto == null) {
+                    errors.add(new BookBatchErrorDto(i, List.of("Book is mandatory")));
+                    continue;
+                }
+
+                Set<ConstraintViolation<BookSaveDto>> violations = validator.validate(bookSaveDto);
+                if (violations.isEmpty()) {
+                    books.add(bookSaveDto);
+                } else {
+                    errors.add(new BookBatchErrorDto(i, violations.stream()
+                            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                            .sorted()
+                            .toList()));
+                }
+            }
+
+            return Flux.fromIterable(books)
+                    .concatMap(bookRepository::insert)
+                    .concatMap(savedBook -> eventPublisher.publishEvent(BookChangedEvent.created(savedBook))
+                            .thenReturn(savedBook))
+                    .collectList()
+                    .map(savedBooks -> {
+                        log.debug("Saved {} books, rejected {} books", savedBooks.size(), errors.size());
+                        return new BookBatchResultDto(savedBooks, errors);
+                    });
+        });
+    }
+
+    @Override
+    @Transactional
+    public Mono<BookDto> updateBook(Long bookId, Long expectedVersion, BookUpdateDto bookUpdateDto) {
+        log.debug("Updating book with ID: {}, expected version: {}, Update data: {}", bookId, expectedVersion, bookUpdateDto);
+
+        if (bookUpdateDto.getTitle() == null && bookUpdateDto.getAuthor() == null && bookUpdateDto.getGenre() == null) {
+            return getBookById(bookId)
+                    .doOnNext(unchanged -> checkVersion(bookId, expectedVersion, unchanged.getVersion()));
+        }
+
+        return bookRepository.updateById(bookId, expectedVersion, bookUpdateDto)
+                .switchIfEmpty(Mono.defer(() -> notUpdated(bookId, expectedVersion)))
+                .flatMap(result -> eventPublisher.publishEvent(BookChangedEvent.updated(bookId, result))
+                        .thenReturn(result))
+                .doOnNext(result -> log.debug("Book with ID: {} successfully updated to version {}",
+                        bookId, result.getVersion()));
+    }
+
+    @Override
+    @Transactional
+    public Mono<BookBulkResultDto> updateBooks(BookFilterDto filter, BookUpdateDto bookUpdateDto) {
+        return Mono.defer(() -> {
+            log.debug("Bulk updating books, filter: {}, update data: {}", filter, bookUpdateDto);
+
+            if (bookUpdateDto.getTitle() == null && bookUpdateDto.getAuthor() == null && bookUpdateDto.getGenre() == null)
+                throw new BadRequestException("At least one field must be updated");
+
+            return selectBooks(filter).flatMap(selection -> {
+                if (selection.ids().isEmpty())
+                    return Mono.just(new BookBulkResultDto(0, selection.nextCursor()));
+
+                return bookRepository.updateAllByIdIn(selection.ids(), bookUpdateDto.getTitle(),
+                                bookUpdateDto.getAuthor(), bookUpdateDto.getGenre(), Instant.now())
+                        .flatMap(affected -> bookRepository.findByIdIn(selection.ids())
+                                .concatMap(book -> eventPublisher.publishEvent(
+                                        BookChangedEvent.updated(book.getId(), book)))
+                                .then(Mono.fromSupplier(() -> {
+                                    log.debug("Bulk updated {} books", affected);
+                                    return new BookBulkResultDto(affected.intValue(), selection.nextCursor());
+                                })));
+            });
+        });
+    }
+
+    @Override
+    @Transactional
+    public Mono<Void> deleteBook(Long id) {
+        log.debug("Attempting to delete book with ID: {}", id);
+
+        return bookRepository.deleteById(id)
+                .flatMap(deleted -> deleted == 0
+                        ? Mono.error(notFound(id))
+                        : eventPublisher.publishEvent(BookChangedEvent.deleted(id)))
+                .doOnSuccess(ignored -> log.debug("Successfully deleted book with ID: {}", id));
+    }
+
+    @Override
+    @Transactional
+    public Mono<BookBulkResultDto> deleteBooks(BookFilterDto filter) {
+        return Mono.defer(() -> {
+            log.debug("Bulk deleting books, filter: {}", filter);
+
+            return selectBooks(filter).flatMap(selection -> {
+                Mono<List<Long>> existing = selection.ids().isEmpty()
+                        ? Mono.just(List.of())
+                        : bookRepository.lockIdsByIdIn(selection.ids()).collectList();
+                return existing.flatMap(ids -> {
+                    Mono<Long> deleted = ids.isEmpty() ? Mono.just(0L) : bookRepository.deleteAllByIdIn(ids);
+                    return deleted.flatMap(affected -> Flux.fromIterable(ids)
+                            .concatMap(id -> eventPublisher.publishEvent(BookChangedEvent.deleted(id)))
+                            .then(Mono.fromSupplier(() -> {
+                                log.debug("Bulk deleted {} books", affected);
+                                return new BookBulkResultDto(affected.intValue(), selection.nextCursor());
+                            })));
+                });
+            });
+        });
+    }
+
+    private Mono<BulkSelection> selectBooks(BookFilterDto filter) {
+        boolean hasIds = filter.getIds() != null && !filter.getIds().isEmpty();
+        boolean hasCondition = filter.getAuthor() != null || filter.getGenre() != null
+                || filter.getTitlePrefix() != null;
+
+        if (hasIds == hasCondition)
+            throw new BadRequestException("Either ids or author/genre/titlePrefix filter must be specified");
+
+        if (hasIds) {
+            if (filter.getIds().size() > MAX_BULK_SIZE)
+                throw new BadRequestException("No more than " + MAX_BULK_SIZE + " ids can be specified");
+            return Mono.just(new BulkSelection(filter.getIds(), null));
+        }
+
+        long lastId = PageCursor.decode(filter.getCursor());
+        return bookRepository.findIdsByFilter(lastId, filter.getAuthor(), filter.getGenre(),
+                        BookSpecifications.likePrefix(filter.getTitlePrefix()), MAX_BULK_SIZE + 1)
+                .collectList()
+                .map(ids -> {
+                    String nextCursor = null;
+                    if (ids.size() > MAX_BULK_SIZE) {
+                        ids = ids.subList(0, MAX_BULK_SIZE);
+                        nextCursor = PageCursor.encode(ids.get(MAX_BULK_SIZE - 1));
+                    }
+                    return new BulkSelection(ids, nextCursor);
+                });
+    }
+
+    private record BulkSelection(List<Long> ids, String nextCursor) {
+    }
+
+    private static void checkVersion(Long bookId, Long expectedVersion, Long version) {
+        if (expectedVersion != null && !expectedVersion.equals(version))
+            throw new PreconditionFailedException("Book with id " + bookId + " has version "
+                    + version + ", expected " + expectedVersion);
+    }
+
+    private Mono<BookDto> notUpdated(Long bookId, Long expectedVersion) {
+        return bookRepository.findVersionById(bookId)
+                .<BookDto>flatMap(current -> Mono.error(new PreconditionFailedException("Book with id " + bookId
+                        + " has version " + current.getVersion() + ", expected " + expectedVersion)))
+                .switchIfEmpty(Mono.error(() -> notFound(bookId)));
+    }
+
+    private Mono<BookDto> getBookById(Long bookId) {
+        return bookRepository.findById(bookId)
+                .switchIfEmpty(Mono.error(() -> notFound(bookId)));
+    }
+
+    private static NotFoundException notFound(Long bookId) {
+        return new NotFoundException("Book with id " + bookId + " not found");
+    }
+}
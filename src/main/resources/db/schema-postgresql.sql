@@ -0,0 +1,15 @@
+-- Дополнения схемы PostgreSQL, которые не выражаются аннотациями сущностей.
+-- Выполняется при каждом запуске после обновления схемы Hibernate, поэтому все операторы повторяемы.
+
+-- Идентификаторы книг выдает последовательность books_seq блоками по 50; раньше id был столбцом identity.
+-- В существующей базе последовательность сдвигается за максимальный id, иначе первая вставка упадет
+-- на дубликате ключа. Уже сдвинутая последовательность не трогается, поэтому запуск узла не мешает вставкам других.
+create sequence if not exists books_seq start with 1 increment by 50;
+alter table books alter column id drop identity if exists;
+select setval('books_seq', (select max(id) from books))
+where (select max(id) from books) > (select last_value from books_seq);
+
+-- Фильтр titlePrefix (title like 'x%') не может использовать idx_books_title, если сопоставление базы не C:
+-- порядок строк в индексе тогда не побайтовый. Индекс с text_pattern_ops сравнивает строки побайтно
+-- и обслуживает префиксный like; idx_books_title по-прежнему нужен для сортировки по названию.
+create index if not exists idx_books_title_pattern on books (title text_pattern_ops, id);
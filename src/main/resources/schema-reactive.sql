@@ -0,0 +1,16 @@
+-- Схема для профиля reactive, где таблицы не создаются Hibernate; совпадает с отображением сущности Book.
+create sequence if not exists books_seq start with 1 increment by 50;
+
+create table if not exists books
+(
+    id         bigint primary key,
+    title      varchar(255),
+    author     varchar(255),
+    genre      varchar(255),
+    version    bigint default 0 not null,
+    updated_at timestamp(6) with time zone
+);
+
+create index if not exists idx_books_author on books (author, id);
+create index if not exists idx_books_genre_title on books (genre, title, id);
+create index if not exists idx_books_title on books (title, id);
@@ -0,0 +1,86 @@
+package ru.tokmakov.bookkeeper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.tokmakov.bookkeeper.dto.BookBatchResultDto;
+import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.event.BookCatalogViewUpdater;
+import ru.tokmakov.bookkeeper.repository.BookRepository;
+import ru.tokmakov.bookkeeper.service.BookService;
+import ru.tokmakov.bookkeeper.service.BookServiceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение пропускной способности пакетного и поштучного сохранения книг.
+ * Результаты выводятся в стандартный вывод; тест проверяет только корректность вставки.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookBulkInsertThroughputTests {
+    private static final int ROWS = 2000;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCatalogViewUpdater catalogViewUpdater;
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAllInBatch();
+        catalogViewUpdater.reload();
+    }
+
+    @Test
+    void bulkInsertShouldOutperformSingleInserts() {
+        List<BookSaveDto> books = createBooks();
+
+        long singleStart = System.nanoTime();
+        for (BookSaveDto book : books) {
+            bookService.saveBook(book);
+        }
+        double singleRowsPerSecond = rowsPerSecond(System.nanoTime() - singleStart);
+
+        long bulkStart = System.nanoTime();
+        int saved = 0;
+        for (int from = 0; from < ROWS; from += BookServiceImpl.MAX_BATCH_SIZE) {
+            BookBatchResultDto result = bookService.saveBooks(
+                    books.subList(from, Math.min(from + BookServiceImpl.MAX_BATCH_SIZE, ROWS)));
+            assertThat(result.getErrors()).isEmpty();
+            saved += result.getBooks().size();
+        }
+        double bulkRowsPerSecond = rowsPerSecond(System.nanoTime() - bulkStart);
+
+        System.out.printf("Single inserts: %.0f rows/s, bulk inserts: %.0f rows/s (x%.1f)%n",
+                singleRowsPerSecond, bulkRowsPerSecond, bulkRowsPerSecond / singleRowsPerSecond);
+
+        assertThat(saved).isEqualTo(ROWS);
+        assertThat(bookRepository.count()).isEqualTo(2L * ROWS);
+    }
+
+    private static List<BookSaveDto> createBooks() {
+        List<BookSaveDto> books = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            BookSaveDto book = new BookSaveDto();
+            book.setTitle("Title " + i);
+            book.setAuthor("Author " + i % 100);
+            book.setGenre("Genre " + i % 10);
+            books.add(book);
+        }
+        return books;
+    }
+
+    private static double rowsPerSecond(long nanos) {
+        return ROWS * 1_000_000_000.0 / nanos;
+    }
+}
@@ -0,0 +1,222 @@
+package ru.tokmakov.bookkeeper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import ru.tokmakov.bookkeeper.changes.BookChangeFeed;
+import ru.tokmakov.bookkeeper.controller.BookChangeController;
+import ru.tokmakov.bookkeeper.dto.BookBulkResultDto;
+import ru.tokmakov.bookkeeper.dto.BookChangeDto;
+import ru.tokmakov.bookkeeper.dto.BookChangesDto;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.dto.BookUpdateDto;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.tokmakov.bookkeeper.event.BookChangedEvent.Type.CREATED;
+import static ru.tokmakov.bookkeeper.event.BookChangedEvent.Type.DELETED;
+import static ru.tokmakov.bookkeeper.event.BookChangedEvent.Type.UPDATED;
+
+/**
+ * Лента изменений: журнал пишется в транзакции записи, читается по курсору и раздается потоком server-sent events.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient(timeout = "10s")
+@ActiveProfiles("test")
+class BookChangeFeedTests {
+    private static final ParameterizedTypeReference<ServerSentEvent<BookChangeDto>> CHANGE_EVENT =
+            new ParameterizedTypeReference<>() {
+            };
+    private static final String AUTHOR = "Changes Author";
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private BookChangeFeed changeFeed;
+
+    private long since;
+
+    @BeforeEach
+    void setUp() {
+        since = changeFeed.findLastId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.delete().uri("/books?author=" + AUTHOR)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void changesShouldFollowWritesAndIncludeTombstones() {
+        BookDto saved = save("Changes Title");
+        BookDto updated = update(saved.getId(), "\"0\"", "Changes Title 2");
+
+        client.patch().uri("/books/{id}", saved.getId())
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .bodyValue(titleUpdate("Stale Title"))
+                .exchange()
+                .expectStatus().isEqualTo(412);
+
+        client.delete().uri("/books/{id}", saved.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        BookChangesDto changes = changes("/books/changes?since=" + since);
+        assertThat(changes.getChanges()).extracting(BookChangeDto::getType).containsExactly(CREATED, UPDATED, DELETED);
+        assertThat(changes.getChanges()).extracting(BookChangeDto::getBookId).containsOnly(saved.getId());
+        assertThat(changes.getChanges().get(0).getBook()).isEqualTo(saved);
+        assertThat(changes.getChanges().get(1).getBook()).isEqualTo(updated);
+        assertThat(changes.getChanges().get(2).getBook()).isNull();
+        assertThat(changes.getNextSince()).isEqualTo(changes.getChanges().get(2).getId());
+        assertThat(changes.isHasMore()).isFalse();
+
+        BookChangesDto empty = changes("/books/changes?since=" + changes.getNextSince());
+        assertThat(empty.getChanges()).isEmpty();
+        assertThat(empty.getNextSince()).isEqualTo(changes.getNextSince());
+    }
+
+    @Test
+    void bulkDeleteShouldLogOnlyDeletedBooks() {
+        BookDto saved = save("Bulk Deleted Title");
+
+        BookBulkResultDto deleted = client.delete().uri("/books?ids=" + saved.getId() + ",999999")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookBulkResultDto.class)
+                .returnResult().getResponseBody();
+        assertThat(deleted.getAffected()).isEqualTo(1);
+
+        BookChangesDto changes = changes("/books/changes?since=" + since);
+        assertThat(changes.getChanges()).extracting(BookChangeDto::getType).containsExactly(CREATED, DELETED);
+        assertThat(changes.getChanges()).extracting(BookChangeDto::getBookId).containsOnly(saved.getId());
+    }
+
+    @Test
+    void changesShouldPageWithCursor() {
+        for (int i = 0; i < 5; i++) {
+            save("Paged Changes " + i);
+        }
+
+        BookChangesDto first = changes("/books/changes?since=" + since + "&limit=3");
+        assertThat(first.getChanges()).hasSize(3);
+        assertThat(first.isHasMore()).isTrue();
+
+        BookChangesDto second = changes("/books/changes?since=" + first.getNextSince() + "&limit=3");
+        assertThat(second.getChanges()).hasSize(2);
+        assertThat(second.isHasMore()).isFalse();
+        assertThat(Flux.concat(Flux.fromIterable(first.getChanges()), Flux.fromIterable(second.getChanges()))
+                .map(change -> change.getBook().getTitle())
+                .collectList().block())
+                .containsExactly("Paged Changes 0", "Paged Changes 1", "Paged Changes 2", "Paged Changes 3",
+                        "Paged Changes 4");
+    }
+
+    @Test
+    void invalidCursorOrLimitShouldReturnBadRequest() {
+        client.get().uri("/books/changes?since=-1")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Cursor must not be negative");
+
+        client.get().uri("/books/changes?limit=1001")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Limit must be between 1 and 1000");
+    }
+
+    @Test
+    void streamShouldDeliverMissedAndLiveChangesAndResumeFromLastEventId() {
+        BookDto first = save("Streamed 1");
+
+        Flux<ServerSentEvent<BookChangeDto>> stream = client.get().uri("/books/changes/stream?since=" + since)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(CHANGE_EVENT)
+                .getResponseBody()
+                .filter(event -> event.data() != null);
+
+        List<ServerSentEvent<BookChangeDto>> events = stream
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(event -> {
+                    if (event.data().getBookId().equals(first.getId()) && event.data().getType() == CREATED)
+                        save("Streamed 2");
+                })
+                .take(2)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+        assertThat(events).extracting(event -> event.data().getBook().getTitle())
+                .containsExactly("Streamed 1", "Streamed 2");
+        assertThat(events).extracting(ServerSentEvent::event).containsOnly("change");
+        assertThat(events.get(0).id()).isEqualTo(String.valueOf(events.get(0).data().getId()));
+
+        save("Streamed 3");
+
+        List<ServerSentEvent<BookChangeDto>> resumed = client.get().uri("/books/changes/stream?since=" + since)
+                .header(BookChangeController.LAST_EVENT_ID, events.get(1).id())
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(CHANGE_EVENT)
+                .getResponseBody()
+                .filter(event -> event.data() != null)
+                .take(1)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+        assertThat(resumed).extracting(event -> event.data().getBook().getTitle()).containsExactly("Streamed 3");
+    }
+
+    private BookChangesDto changes(String uri) {
+        return client.get().uri(uri)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookChangesDto.class)
+                .returnResult().getResponseBody();
+    }
+
+    private BookDto save(String title) {
+        BookSaveDto bookSaveDto = new BookSaveDto();
+        bookSaveDto.setTitle(title);
+        bookSaveDto.setAuthor(AUTHOR);
+        bookSaveDto.setGenre("Genre");
+        return client.post().uri("/books")
+                .bodyValue(bookSaveDto)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(BookDto.class)
+                .returnResult().getResponseBody();
+    }
+
+    private BookDto update(Long id, String ifMatch, String title) {
+        return client.patch().uri("/books/{id}", id)
+                .header(HttpHeaders.IF_MATCH, ifMatch)
+                .bodyValue(titleUpdate(title))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookDto.class)
+                .returnResult().getResponseBody();
+    }
+
+    private static BookUpdateDto titleUpdate(String title) {
+        BookUpdateDto bookUpdateDto = new BookUpdateDto();
+        bookUpdateDto.setTitle(title);
+        return bookUpdateDto;
+    }
+}
@@ -0,0 +1,137 @@
+package ru.tokmakov.bookkeeper;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.tokmakov.bookkeeper.cache.BookCache;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.dto.BookUpdateDto;
+import ru.tokmakov.bookkeeper.event.BookCatalogViewUpdater;
+import ru.tokmakov.bookkeeper.repository.BookRepository;
+import ru.tokmakov.bookkeeper.service.BookService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Число запросов к базе при одновременном чтении одной книги.
+ * Запросы считаются статистикой Hibernate.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class BookConcurrentReadTests {
+    private static final int THREADS = 64;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCache bookCache;
+
+    @Autowired
+    private BookCatalogViewUpdater catalogViewUpdater;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private BookDto book;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        BookSaveDto bookSaveDto = new BookSaveDto();
+        bookSaveDto.setTitle("Viral Book");
+        bookSaveDto.setAuthor("Popular Author");
+        bookSaveDto.setGenre("Genre");
+        book = bookService.saveBook(bookSaveDto);
+        bookCache.evict(book.getId());
+        awaitCatalogViews();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookService.deleteBook(book.getId());
+    }
+
+    @Test
+    void concurrentReadsOfSameBookShouldExecuteOneQuery() throws Exception {
+        statistics.clear();
+        List<BookDto> results = runConcurrently(() -> bookService.findBookById(book.getId()));
+
+        assertThat(results).hasSize(THREADS).allSatisfy(result -> assertThat(result).isEqualTo(book));
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+
+        statistics.clear();
+        runConcurrently(() -> bookRepository.findDtoById(book.getId()).orElseThrow());
+        System.out.printf("Concurrent reads of one book: 1 query with single flight, %d queries without%n",
+                statistics.getQueryExecutionCount());
+    }
+
+    @Test
+    void readAfterUpdateShouldNotReturnStaleBook() throws Exception {
+        bookService.findBookById(book.getId());
+
+        BookDto updated = bookService.updateBook(book.getId(), null, updateTitle("Updated Viral Book"));
+        List<BookDto> results = runConcurrently(() -> bookService.findBookById(book.getId()));
+
+        assertThat(results).allSatisfy(result -> assertThat(result.getVersion()).isEqualTo(updated.getVersion()));
+    }
+
+    private static BookUpdateDto updateTitle(String title) {
+        BookUpdateDto updateDto = new BookUpdateDto();
+        updateDto.setTitle(title);
+        return updateDto;
+    }
+
+    /**
+     * Ожидание фонового перечитывания изменившейся книги представлениями каталога, чтобы оно не попало в статистику.
+     */
+    private void awaitCatalogViews() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (catalogViewUpdater.isRefreshing() && System.nanoTime() < deadline)
+            Thread.sleep(10);
+    }
+
+    private static <T> List<T> runConcurrently(Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
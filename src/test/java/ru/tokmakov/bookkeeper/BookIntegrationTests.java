@@ -6,26 +6,32 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 import ru.tokmakov.bookkeeper.controller.BookController;
 import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookPageDto;
 import ru.tokmakov.bookkeeper.dto.BookSaveDto;
 import ru.tokmakov.bookkeeper.dto.BookUpdateDto;
 
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 
 @SpringBootTest
 @ActiveProfiles("test")
 @AutoConfigureMockMvc
 class BookIntegrationTests {
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
 
     @Autowired
     private MockMvc mvc;
@@ -59,7 +65,7 @@ class BookIntegrationTests {
     @Test
     @Transactional
     void getSavedBookByIdShouldReturnCorrectBookDto() throws Exception {
-        BookDto bookDto = bookController.saveBook(bookSaveDto);
+        BookDto bookDto = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
 
         mvc.perform(get("/books/{id}", bookDto.getId()))
                 .andExpect(status().isOk())
@@ -84,28 +90,254 @@ class BookIntegrationTests {
     @Transactional
     void findAllBooksShouldReturnAllBooks() throws Exception {
         for (int i = 0; i < 2; i++) {
-            bookController.saveBook(bookSaveDto);
+            bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
         }
 
         mvc.perform(get("/books"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0].id").exists())
-                .andExpect(jsonPath("$[1].id").exists());
+                .andExpect(jsonPath("$.books", hasSize(2)))
+                .andExpect(jsonPath("$.books[0].id").exists())
+                .andExpect(jsonPath("$.books[1].id").exists())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void findAllBooksShouldPageThroughAllBooks() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
+        }
+
+        String firstPage = mvc.perform(get("/books").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books", hasSize(2)))
+                .andExpect(jsonPath("$.nextCursor").exists())
+                .andReturn().getResponse().getContentAsString();
+        BookPageDto page = mapper.readValue(firstPage, BookPageDto.class);
+
+        mvc.perform(get("/books").param("size", "2").param("cursor", page.getNextCursor()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books", hasSize(1)))
+                .andExpect(jsonPath("$.books[0].id", greaterThan(page.getBooks().get(1).getId().intValue())))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void findAllBooksShouldFilterAndSortAcrossPages() throws Exception {
+        for (String title : List.of("Gamma", "Alpha", "Beta", "Alpha")) {
+            bookSaveDto.setTitle(title);
+            bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
+        }
+        bookSaveDto.setTitle("Alpha 100%");
+        bookSaveDto.setGenre("Other Genre");
+        bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
+
+        String firstPage = mvc.perform(get("/books")
+                        .param("genre", "Test Genre")
+                        .param("sort", "title")
+                        .param("order", "desc")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[*].title", contains("Gamma", "Beta")))
+                .andReturn().getResponse().getContentAsString();
+        BookPageDto page = mapper.readValue(firstPage, BookPageDto.class);
+
+        mvc.perform(get("/books")
+                        .param("genre", "Test Genre")
+                        .param("sort", "title")
+                        .param("order", "desc")
+                        .param("size", "2")
+                        .param("cursor", page.getNextCursor()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[*].title", contains("Alpha", "Alpha")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mvc.perform(get("/books").param("titlePrefix", "Alpha 1"))
+                .andExpect(jsonPath("$.books[*].title", contains("Alpha 100%")));
+        mvc.perform(get("/books").param("titlePrefix", "Alpha_"))
+                .andExpect(jsonPath("$.books", hasSize(0)));
     }
 
     @Test
     @Transactional
     void findAllBooksShouldReturnEmptyList() throws Exception {
         mvc.perform(get("/books"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books", hasSize(0)));
+    }
+
+    @Test
+    void exportBooksShouldStreamCommittedBooksAsNdjson() throws Exception {
+        BookDto first = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
+        BookDto second = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
+        try {
+            MvcResult result = mvc.perform(get("/books/export"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            String body = mvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            String[] lines = body.split("\n");
+            assertThat(lines).hasSize(2);
+            assertThat(mapper.readValue(lines[0], BookDto.class)).isEqualTo(first);
+            assertThat(mapper.readValue(lines[1], BookDto.class)).isEqualTo(second);
+        } finally {
+            bookController.deleteBook(first.getId());
+            bookController.deleteBook(second.getId());
+        }
+    }
+
+    @Test
+    void findBookByIdShouldNotReturnStaleBookAfterCommittedUpdate() throws Exception {
+        BookDto bookDto = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
+        mvc.perform(get("/books/{id}", bookDto.getId()))
+                .andExpect(jsonPath("$.author", is(bookSaveDto.getAuthor())));
+
+        BookUpdateDto updateDto = new BookUpdateDto();
+        updateDto.setAuthor("new author");
+        bookController.updateBook(bookDto.getId(), null, null, updateDto);
+
+        mvc.perform(get("/books/{id}", bookDto.getId()))
+                .andExpect(jsonPath("$.author", is(updateDto.getAuthor())));
+
+        bookController.deleteBook(bookDto.getId());
+
+        mvc.perform(get("/books/{id}", bookDto.getId()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void findBooksByIdsShouldReturnBooksInRequestOrder() throws Exception {
+        BookDto first = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
+        BookDto second = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
+        mvc.perform(get("/books/{id}", first.getId())).andExpect(status().isOk());
+        long missingId = second.getId() + 1000;
+
+        mvc.perform(post("/books/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(List.of(second.getId(), missingId, first.getId()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[*].id", contains(second.getId().intValue(), first.getId().intValue())))
+                .andExpect(jsonPath("$.missing", contains((int) missingId)));
+
+        bookController.deleteBook(first.getId());
+        bookController.deleteBook(second.getId());
+    }
+
+    @Test
+    void searchBooksShouldReflectCommittedWrites() throws Exception {
+        bookSaveDto.setTitle("Searchable Integration Title");
+        BookDto bookDto = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
+
+        mvc.perform(get("/books/search").param("q", "\"integration title\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].book.id", is(bookDto.getId().intValue())));
+
+        bookController.deleteBook(bookDto.getId());
+
+        mvc.perform(get("/books/search").param("q", "searchab*"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(0)));
     }
 
+    @Test
+    void findFacetsShouldReflectCommittedWrites() throws Exception {
+        bookSaveDto.setGenre("Facet Genre");
+        BookDto first = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
+        BookDto second = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
+
+        mvc.perform(get("/books/facets").param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.genres[?(@.value == 'Facet Genre')].count", contains(2)));
+
+        BookUpdateDto updateDto = new BookUpdateDto();
+        updateDto.setGenre("Other Facet Genre");
+        bookController.updateBook(second.getId(), null, null, updateDto);
+        bookController.deleteBook(first.getId());
+
+        mvc.perform(get("/books/facets").param("limit", "1000"))
+                .andExpect(jsonPath("$.genres[?(@.value == 'Facet Genre')]", hasSize(0)))
+                .andExpect(jsonPath("$.genres[?(@.value == 'Other Facet Genre')].count", contains(1)));
+
+        bookController.deleteBook(second.getId());
+    }
+
+    @Test
+    void findBookByIdShouldHonorConditionalHeaders() throws Exception {
+        BookDto bookDto = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
+
+        MvcResult result = mvc.perform(get("/books/{id}", bookDto.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn();
+        String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        String lastModified = result.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        mvc.perform(get("/books/{id}", bookDto.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        mvc.perform(get("/books/{id}", bookDto.getId()).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+
+        BookUpdateDto updateDto = new BookUpdateDto();
+        updateDto.setGenre("Conditional Genre");
+        bookController.updateBook(bookDto.getId(), null, null, updateDto);
+
+        mvc.perform(get("/books/{id}", bookDto.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$.genre", is("Conditional Genre")));
+
+        String updatedETag = mvc.perform(get("/books/{id}", bookDto.getId()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mvc.perform(patch("/books").param("ids", bookDto.getId().toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(updateDto)))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/books/{id}", bookDto.getId()).header(HttpHeaders.IF_NONE_MATCH, updatedETag))
+                .andExpect(status().isOk());
+
+        bookController.deleteBook(bookDto.getId());
+    }
+
+    @Test
+    void updateBookWithStaleIfMatchShouldReturnPreconditionFailed() throws Exception {
+        BookDto bookDto = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
+        String eTag = mvc.perform(get("/books/{id}", bookDto.getId()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        BookUpdateDto updateDto = new BookUpdateDto();
+        updateDto.setTitle("First Editor");
+
+        String newETag = mvc.perform(patch("/books/{id}", bookDto.getId())
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(updateDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title", is("First Editor")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(newETag).isNotEqualTo(eTag);
+
+        updateDto.setTitle("Second Editor");
+        mvc.perform(patch("/books/{id}", bookDto.getId())
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(updateDto)))
+                .andExpect(status().isPreconditionFailed());
+
+        mvc.perform(get("/books/{id}", bookDto.getId()))
+                .andExpect(jsonPath("$.title", is("First Editor")));
+
+        bookController.deleteBook(bookDto.getId());
+    }
+
     @Test
     @Transactional
     void updateBookShouldReturnCorrectBookDto() throws Exception {
-        BookDto bookDto = bookController.saveBook(bookSaveDto);
+        BookDto bookDto = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
         BookUpdateDto updateDto = new BookUpdateDto();
         updateDto.setAuthor("new author");
 
@@ -121,7 +353,7 @@ class BookIntegrationTests {
     @Test
     @Transactional
     void updateAllFieldsShouldReturnCorrectBookDto() throws Exception {
-        BookDto bookDto = bookController.saveBook(bookSaveDto);
+        BookDto bookDto = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
         BookUpdateDto updateDto = new BookUpdateDto();
         updateDto.setAuthor("new author");
         updateDto.setTitle("new title");
@@ -139,7 +371,7 @@ class BookIntegrationTests {
     @Test
     @Transactional
     void updateBookWithoutFieldsShouldReturnCorrectBookDto() throws Exception {
-        BookDto bookDto = bookController.saveBook(bookSaveDto);
+        BookDto bookDto = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
         BookUpdateDto updateDto = new BookUpdateDto();
 
         mvc.perform(patch("/books/{id}", bookDto.getId())
@@ -154,7 +386,7 @@ class BookIntegrationTests {
     @Test
     @Transactional
     void deleteBookShouldRemoveBook() throws Exception {
-        BookDto bookDto = bookController.saveBook(bookSaveDto);
+        BookDto bookDto = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
         bookController.deleteBook(bookDto.getId());
 
         mvc.perform(get("/books/{id}", bookDto.getId()))
@@ -164,4 +396,36 @@ class BookIntegrationTests {
                 .andExpect(jsonPath("$.message").exists())
                 .andExpect(jsonPath("$.timestamp").exists());
     }
+
+    @Test
+    @Transactional
+    void bulkUpdateAndDeleteShouldAffectOnlyMatchingBooks() throws Exception {
+        BookDto first = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
+        BookDto second = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
+        bookSaveDto.setAuthor("Other Author");
+        BookDto other = bookController.saveBook(null, null, null, new MockHttpServletRequest(), bookSaveDto);
+        BookUpdateDto updateDto = new BookUpdateDto();
+        updateDto.setGenre("new genre");
+
+        mvc.perform(patch("/books")
+                        .param("ids", first.getId() + "," + other.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(updateDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected", is(2)));
+
+        mvc.perform(get("/books/{id}", second.getId()))
+                .andExpect(jsonPath("$.genre", is("Test Genre")));
+        mvc.perform(get("/books/{id}", other.getId()))
+                .andExpect(jsonPath("$.genre", is("new genre")));
+
+        mvc.perform(delete("/books").param("author", "Test Author"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected", is(2)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mvc.perform(get("/books"))
+                .andExpect(jsonPath("$.books", hasSize(1)))
+                .andExpect(jsonPath("$.books[0].id", is(other.getId().intValue())));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package ru.tokmakov.bookkeeper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.tokmakov.bookkeeper.cache.BookCache;
+import ru.tokmakov.bookkeeper.cache.BookResponseCache;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.exception.GlobalExceptionHandler;
+import ru.tokmakov.bookkeeper.service.BookServiceImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Метрики операций, ошибок, репозиториев, пула соединений и кэша и их выдача через {@code /actuator/prometheus}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class BookMetricsTests {
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void requestsShouldBeRecordedInMetricsAndExposedToPrometheus() throws Exception {
+        double notFoundBefore = meterRegistry.get(GlobalExceptionHandler.API_ERRORS_METRIC)
+                .tag("status", "NOT_FOUND").counter().count();
+
+        BookSaveDto bookSaveDto = new BookSaveDto();
+        bookSaveDto.setTitle("Metrics Title");
+        bookSaveDto.setAuthor("Metrics Author");
+        bookSaveDto.setGenre("Metrics Genre");
+        String body = mvc.perform(post("/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(bookSaveDto)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        BookDto saved = mapper.readValue(body, BookDto.class);
+
+        mvc.perform(get("/books/{id}", saved.getId())).andExpect(status().isOk());
+        mvc.perform(get("/books/{id}", saved.getId())).andExpect(status().isOk());
+        mvc.perform(get("/books/{id}", 999_999)).andExpect(status().isNotFound());
+
+        Timer findById = meterRegistry.get(BookServiceImpl.SERVICE_METRIC)
+                .tag("method", "findBookById").tag("exception", "none").timer();
+        assertThat(findById.count()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get(BookServiceImpl.SERVICE_METRIC)
+                .tag("method", "findBookVersion").tag("exception", "NotFoundException").timer().count())
+                .isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get(GlobalExceptionHandler.API_ERRORS_METRIC)
+                .tag("status", "NOT_FOUND").counter().count()).isEqualTo(notFoundBefore + 1);
+        assertThat(meterRegistry.get("spring.data.repository.invocations")
+                .tag("repository", "BookRepository").timers()).isNotEmpty();
+        assertThat(meterRegistry.get("hikaricp.connections.acquire").timer().count()).isPositive();
+        assertThat(meterRegistry.get("cache.gets").tag("cache", BookCache.CACHE_NAME).tag("result", "miss")
+                .functionCounter().count()).isPositive();
+        assertThat(meterRegistry.get("cache.gets").tag("cache", BookResponseCache.CACHE_NAME).tag("result", "hit")
+                .functionCounter().count()).isPositive();
+
+        mvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("book_keeper_service_seconds_bucket")))
+                .andExpect(content().string(containsString("book_keeper_api_errors_total")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds_bucket")))
+                .andExpect(content().string(containsString("cache_gets_total")));
+
+        mvc.perform(delete("/books/{id}", saved.getId())).andExpect(status().isNoContent());
+    }
+}
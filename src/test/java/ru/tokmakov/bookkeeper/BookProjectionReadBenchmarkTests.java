@@ -0,0 +1,137 @@
+package ru.tokmakov.bookkeeper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookMapper;
+import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.event.BookCatalogViewUpdater;
+import ru.tokmakov.bookkeeper.model.Book;
+import ru.tokmakov.bookkeeper.repository.BookRepository;
+import ru.tokmakov.bookkeeper.service.BookService;
+import ru.tokmakov.bookkeeper.service.BookServiceImpl;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение чтения книг через управляемые сущности и через проекцию сразу в {@link BookDto}.
+ * Для каждого способа измеряются выделенная память и время на одну операцию.
+ * Результаты выводятся в стандартный вывод; тест проверяет только совпадение результатов.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookProjectionReadBenchmarkTests {
+    private static final int ROWS = 1000;
+    private static final int PAGE_SIZE = BookServiceImpl.MAX_PAGE_SIZE;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1000;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCatalogViewUpdater catalogViewUpdater;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnly;
+    private Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        List<BookSaveDto> books = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            BookSaveDto book = new BookSaveDto();
+            book.setTitle("Title " + i);
+            book.setAuthor("Author " + i % 100);
+            book.setGenre("Genre " + i % 10);
+            books.add(book);
+        }
+        bookId = bookService.saveBooks(books).getBooks().get(ROWS / 2).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAllInBatch();
+        catalogViewUpdater.reload();
+    }
+
+    @Test
+    void projectionPageReadShouldMatchEntityPath() {
+        Specification<Book> all = (root, query, builder) -> null;
+        Sort byTitle = Sort.by("title", "id");
+
+        Supplier<List<BookDto>> entityPath = () -> readOnly.execute(status ->
+                bookRepository.findBy(all, query -> query.sortBy(byTitle).limit(PAGE_SIZE).all()).stream()
+                        .map(BookMapper::bookToBookDto)
+                        .toList());
+        Supplier<List<BookDto>> projectionPath = () -> readOnly.execute(status ->
+                bookRepository.findDtos(all, byTitle, PAGE_SIZE));
+
+        assertThat(projectionPath.get()).hasSize(PAGE_SIZE).isEqualTo(entityPath.get());
+
+        compare("Page of " + PAGE_SIZE, entityPath, projectionPath);
+    }
+
+    @Test
+    void projectionSingleReadShouldMatchEntityPath() {
+        Supplier<BookDto> entityPath = () -> readOnly.execute(status ->
+                BookMapper.bookToBookDto(bookRepository.findById(bookId).orElseThrow()));
+        Supplier<BookDto> projectionPath = () -> readOnly.execute(status ->
+                bookRepository.findDtoById(bookId).orElseThrow());
+
+        assertThat(projectionPath.get()).isEqualTo(entityPath.get());
+
+        compare("Single book", entityPath, projectionPath);
+    }
+
+    private static void compare(String name, Supplier<?> entityPath, Supplier<?> projectionPath) {
+        Measurement entity = measure(entityPath);
+        Measurement projection = measure(projectionPath);
+
+        System.out.printf("%s - entities: %.0f bytes/op, %.1f us/op; projection: %.0f bytes/op, %.1f us/op " +
+                        "(allocation x%.2f, latency x%.2f)%n",
+                name, entity.bytesPerOp(), entity.microsPerOp(), projection.bytesPerOp(), projection.microsPerOp(),
+                entity.bytesPerOp() / projection.bytesPerOp(), entity.microsPerOp() / projection.microsPerOp());
+    }
+
+    private static Measurement measure(Supplier<?> operation) {
+        for (int i = 0; i < WARMUP; i++) {
+            operation.get();
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytesStart = threads.getCurrentThreadAllocatedBytes();
+        long timeStart = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.get();
+        }
+        long elapsed = System.nanoTime() - timeStart;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - bytesStart;
+
+        return new Measurement((double) allocated / ITERATIONS, elapsed / 1000.0 / ITERATIONS);
+    }
+
+    private record Measurement(double bytesPerOp, double microsPerOp) {
+    }
+}
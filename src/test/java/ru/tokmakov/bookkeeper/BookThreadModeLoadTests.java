@@ -0,0 +1,217 @@
+package ru.tokmakov.bookkeeper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.event.BookCatalogViewUpdater;
+import ru.tokmakov.bookkeeper.repository.BookRepository;
+import ru.tokmakov.bookkeeper.service.BookService;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение обработки запросов на платформенных и виртуальных потоках.
+ * Каждое соединение с базой удерживается дольше обычного, имитируя медленные запросы, а пул
+ * потоков Tomcat в платформенном режиме меньше числа одновременных клиентов.
+ * Одновременно выполняются чтения страниц из базы и поиск по индексу в памяти.
+ * Пул соединений работает с настройками по умолчанию: лишние обращения ждут не дольше его таймаута.
+ * Результаты выводятся в стандартный вывод; тест проверяет только коды ответов.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "server.tomcat.threads.max=20")
+@ActiveProfiles("test")
+@Import(BookThreadModeLoadTests.SlowConnectionConfiguration.class)
+class BookThreadModeLoadTests {
+    private static final int BOOKS = 100;
+    private static final int REQUESTS_PER_KIND = 200;
+    private static final long CONNECTION_HOLD_MILLIS = 20;
+
+    private static volatile boolean slowConnections;
+
+    @Nested
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+    class PlatformThreads extends LoadRun {
+        @Test
+        void mixedLoadShouldSucceed() throws Exception {
+            run("Platform threads");
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+    class VirtualThreads extends LoadRun {
+        @Test
+        void mixedLoadShouldSucceed() throws Exception {
+            run("Virtual threads");
+        }
+    }
+
+    abstract static class LoadRun {
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private BookService bookService;
+
+        @Autowired
+        private BookRepository bookRepository;
+
+        @Autowired
+        private BookCatalogViewUpdater catalogViewUpdater;
+
+        private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        @BeforeEach
+        void setUp() {
+            List<BookSaveDto> books = new ArrayList<>(BOOKS);
+            for (int i = 0; i < BOOKS; i++) {
+                BookSaveDto book = new BookSaveDto();
+                book.setTitle("Load " + i);
+                book.setAuthor("Author " + i % 10);
+                book.setGenre("Genre");
+                books.add(book);
+            }
+            bookService.saveBooks(books);
+        }
+
+        @AfterEach
+        void tearDown() {
+            slowConnections = false;
+            bookRepository.deleteAllInBatch();
+            catalogViewUpdater.reload();
+        }
+
+        void run(String mode) throws Exception {
+            load(mode + " (warmup)", false);
+            load(mode, true);
+        }
+
+        private void load(String mode, boolean slow) throws Exception {
+            List<Future<Sample>> database = new ArrayList<>(REQUESTS_PER_KIND);
+            List<Future<Sample>> memory = new ArrayList<>(REQUESTS_PER_KIND);
+            CountDownLatch start = new CountDownLatch(1);
+
+            ExecutorService executor = Executors.newFixedThreadPool(REQUESTS_PER_KIND * 2);
+            slowConnections = slow;
+            try {
+                for (int i = 0; i < REQUESTS_PER_KIND; i++) {
+                    database.add(executor.submit(() -> send(start, "/books?size=20")));
+                    memory.add(executor.submit(() -> send(start, "/books/search?q=load")));
+                }
+                long startTime = System.nanoTime();
+                start.countDown();
+
+                Summary databaseSummary = summarize(database);
+                Summary memorySummary = summarize(memory);
+                long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+
+                System.out.printf("%s - total %d ms; database reads: p50 %d ms, p99 %d ms; " +
+                                "in-memory search: p50 %d ms, p99 %d ms; statuses %s%n",
+                        mode, elapsedMillis, databaseSummary.p50(), databaseSummary.p99(),
+                        memorySummary.p50(), memorySummary.p99(), databaseSummary.statuses());
+
+                assertThat(databaseSummary.statuses()).containsOnly(200);
+                assertThat(memorySummary.statuses()).containsOnly(200);
+            } finally {
+                slowConnections = false;
+                executor.shutdownNow();
+            }
+        }
+
+        private Sample send(CountDownLatch start, String path) throws Exception {
+            start.await(5, TimeUnit.SECONDS);
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+            long begin = System.nanoTime();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            return new Sample(response.statusCode(), (System.nanoTime() - begin) / 1_000_000);
+        }
+
+        private static Summary summarize(List<Future<Sample>> futures) throws Exception {
+            long[] latencies = new long[futures.size()];
+            List<Integer> statuses = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                Sample sample = futures.get(i).get(60, TimeUnit.SECONDS);
+                latencies[i] = sample.millis();
+                if (!statuses.contains(sample.status())) {
+                    statuses.add(sample.status());
+                }
+            }
+            Arrays.sort(latencies);
+            return new Summary(latencies[latencies.length / 2], latencies[latencies.length * 99 / 100], statuses);
+        }
+    }
+
+    private record Sample(int status, long millis) {
+    }
+
+    private record Summary(long p50, long p99, List<Integer> statuses) {
+    }
+
+    /**
+     * Удерживает каждое выданное соединение, пока включена имитация медленной базы.
+     */
+    @TestConfiguration
+    static class SlowConnectionConfiguration {
+        @Bean
+        static BeanPostProcessor slowConnectionPostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof SlowDataSource)) {
+                        return new SlowDataSource(dataSource);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    static class SlowDataSource extends DelegatingDataSource {
+        SlowDataSource(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            if (slowConnections) {
+                try {
+                    Thread.sleep(CONNECTION_HOLD_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return connection;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package ru.tokmakov.bookkeeper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import ru.tokmakov.bookkeeper.controller.BookController;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookPageDto;
+import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.event.BookCatalogViewUpdater;
+import ru.tokmakov.bookkeeper.format.BookFormats;
+import ru.tokmakov.bookkeeper.repository.BookRepository;
+import ru.tokmakov.bookkeeper.service.BookService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Выбор формата ответа по {@code Accept} и сжатие ответов больше порога по {@code Accept-Encoding}.
+ * Запросы идут через {@link HttpClient}, который не распаковывает ответы сам.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class BookWireFormatTests {
+    private static final int BOOKS = 150;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCatalogViewUpdater catalogViewUpdater;
+
+    private Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        List<BookSaveDto> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            BookSaveDto book = new BookSaveDto();
+            book.setTitle("Wire Title " + i);
+            book.setAuthor("Wire Author " + i % 10);
+            book.setGenre("Genre");
+            books.add(book);
+        }
+        bookId = bookService.saveBooks(books).getBooks().get(0).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAllInBatch();
+        catalogViewUpdater.reload();
+    }
+
+    @Test
+    void pageShouldBeEncodedInRequestedFormatWithJsonByDefault() throws Exception {
+        HttpResponse<byte[]> json = get("/books?size=100", null, null);
+        assertThat(json.headers().firstValue(HttpHeaders.CONTENT_TYPE)).hasValue("application/json");
+        BookPageDto expected = objectMapper.readValue(json.body(), BookPageDto.class);
+        assertThat(expected.getBooks()).hasSize(100);
+
+        HttpResponse<byte[]> cbor = get("/books?size=100", BookFormats.CBOR_VALUE, null);
+        assertThat(cbor.headers().firstValue(HttpHeaders.CONTENT_TYPE)).hasValue(BookFormats.CBOR_VALUE);
+        assertThat(BookFormats.cborMapper(objectMapper).readValue(cbor.body(), BookPageDto.class)).isEqualTo(expected);
+        assertThat(cbor.body().length).isLessThan(json.body().length);
+
+        HttpResponse<byte[]> smile = get("/books?size=100", BookFormats.SMILE_VALUE, null);
+        assertThat(smile.headers().firstValue(HttpHeaders.CONTENT_TYPE)).hasValue(BookFormats.SMILE_VALUE);
+        assertThat(BookFormats.smileMapper(objectMapper).readValue(smile.body(), BookPageDto.class)).isEqualTo(expected);
+        assertThat(smile.body().length).isLessThan(json.body().length);
+
+        HttpResponse<byte[]> book = get("/books/" + bookId, BookFormats.CBOR_VALUE, null);
+        assertThat(BookFormats.cborMapper(objectMapper).readValue(book.body(), BookDto.class).getId()).isEqualTo(bookId);
+    }
+
+    @Test
+    void responsesAboveThresholdShouldBeCompressed() throws Exception {
+        HttpResponse<byte[]> plain = get("/books?size=100", null, null);
+        HttpResponse<byte[]> compressed = get("/books?size=100", null, "gzip");
+        assertThat(compressed.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+        assertThat(compressed.body().length).isLessThan(plain.body().length);
+        assertThat(gunzip(compressed.body())).isEqualTo(plain.body());
+
+        HttpResponse<byte[]> cbor = get("/books?size=100", BookFormats.CBOR_VALUE, "gzip");
+        assertThat(cbor.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+
+        HttpResponse<byte[]> single = get("/books/" + bookId, null, "gzip");
+        assertThat(single.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).isEmpty();
+    }
+
+    @Test
+    void exportShouldStreamNdjsonOrBinarySequence() throws Exception {
+        HttpResponse<byte[]> ndjson = get("/books/export", null, null);
+        assertThat(ndjson.headers().firstValue(HttpHeaders.CONTENT_TYPE)).hasValue(BookController.NDJSON_VALUE);
+        List<BookDto> expected = readAll(objectMapper, ndjson.body());
+        assertThat(expected).hasSize(BOOKS);
+
+        HttpResponse<byte[]> cbor = get("/books/export", BookFormats.CBOR_SEQ_VALUE, null);
+        assertThat(cbor.headers().firstValue(HttpHeaders.CONTENT_TYPE)).hasValue(BookFormats.CBOR_SEQ_VALUE);
+        assertThat(readAll(BookFormats.cborMapper(objectMapper), cbor.body())).isEqualTo(expected);
+
+        HttpResponse<byte[]> smile = get("/books/export", BookController.NDJSON_VALUE + ";q=0.1, " + BookFormats.SMILE_VALUE, "gzip");
+        assertThat(smile.headers().firstValue(HttpHeaders.CONTENT_TYPE)).hasValue(BookFormats.SMILE_VALUE);
+        assertThat(smile.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+        assertThat(readAll(BookFormats.smileMapper(objectMapper), gunzip(smile.body()))).isEqualTo(expected);
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, String acceptEncoding)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+        if (accept != null)
+            request.header(HttpHeaders.ACCEPT, accept);
+        if (acceptEncoding != null)
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static List<BookDto> readAll(ObjectMapper mapper, byte[] body) throws IOException {
+        return mapper.readerFor(BookDto.class).<BookDto>readValues(body).readAll();
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return input.readAllBytes();
+        }
+    }
+}
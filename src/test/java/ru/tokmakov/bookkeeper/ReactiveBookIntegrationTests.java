@@ -0,0 +1,307 @@
+package ru.tokmakov.bookkeeper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.tokmakov.bookkeeper.controller.BookController;
+import ru.tokmakov.bookkeeper.dto.BookBatchResultDto;
+import ru.tokmakov.bookkeeper.dto.BookBulkResultDto;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookFacetsDto;
+import ru.tokmakov.bookkeeper.dto.BookLookupResultDto;
+import ru.tokmakov.bookkeeper.dto.BookPageDto;
+import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.dto.BookSearchHitDto;
+import ru.tokmakov.bookkeeper.dto.BookUpdateDto;
+import ru.tokmakov.bookkeeper.event.BookCatalogViewUpdater;
+import ru.tokmakov.bookkeeper.event.BookChangedEvent;
+import ru.tokmakov.bookkeeper.format.BookFormats;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Эндпоинты профиля {@code reactive} на WebFlux и R2DBC поверх H2 в памяти.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles({"reactive", "test"})
+class ReactiveBookIntegrationTests {
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private BookCatalogViewUpdater catalogViewUpdater;
+
+    @Autowired
+    private PublishedEvents publishedEvents;
+
+    @AfterEach
+    void tearDown() {
+        databaseClient.sql("delete from books").then().block();
+        catalogViewUpdater.reload();
+        publishedEvents.events.clear();
+    }
+
+    @Test
+    void saveAndFindBookShouldRoundTripWithConditionalGet() {
+        BookDto saved = save("Reactive Title", "Reactive Author", "Genre");
+
+        assertThat(saved.getId()).isNotNull();
+        assertThat(saved.getVersion()).isZero();
+
+        BookDto found = client.get().uri("/books/{id}", saved.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+                .expectBody(BookDto.class)
+                .returnResult().getResponseBody();
+        assertThat(found).isEqualTo(saved);
+
+        client.get().uri("/books/{id}", saved.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"0\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void missingBookShouldReturnNotFoundApiError() {
+        client.get().uri("/books/{id}", 999_999)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("NOT_FOUND")
+                .jsonPath("$.message").isEqualTo("Book with id 999999 not found");
+
+        client.delete().uri("/books/{id}", 999_999)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void invalidRequestsShouldReturnBadRequestApiError() {
+        BookSaveDto invalid = new BookSaveDto();
+        invalid.setTitle("T");
+
+        client.post().uri("/books")
+                .bodyValue(invalid)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.status").isEqualTo("BAD_REQUEST");
+
+        client.get().uri("/books/abc")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.status").isEqualTo("BAD_REQUEST");
+
+        client.get().uri("/books?size=0")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Page size must be between 1 and 100");
+    }
+
+    @Test
+    void updateShouldCheckIfMatchVersion() {
+        BookDto saved = save("Old Title", "Author", "Genre");
+        BookUpdateDto update = new BookUpdateDto();
+        update.setTitle("New Title");
+
+        BookDto updated = client.patch().uri("/books/{id}", saved.getId())
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .bodyValue(update)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+                .expectBody(BookDto.class)
+                .returnResult().getResponseBody();
+        assertThat(updated.getTitle()).isEqualTo("New Title");
+        assertThat(updated.getAuthor()).isEqualTo("Author");
+        assertThat(updated.getVersion()).isEqualTo(1);
+
+        client.patch().uri("/books/{id}", saved.getId())
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .bodyValue(update)
+                .exchange()
+                .expectStatus().isEqualTo(412)
+                .expectBody().jsonPath("$.status").isEqualTo("PRECONDITION_FAILED");
+    }
+
+    @Test
+    void listShouldPageWithCursorAndStreamAsNdjson() {
+        for (int i = 0; i < 5; i++) {
+            save("Title " + i, "Author", "Genre");
+        }
+        save("Other", "Someone Else", "Genre");
+
+        BookPageDto first = page("/books?author=Author&sort=title&order=desc&size=3");
+        assertThat(first.getBooks()).extracting(BookDto::getTitle).containsExactly("Title 4", "Title 3", "Title 2");
+        assertThat(first.getNextCursor()).isNotNull();
+
+        BookPageDto second = page("/books?author=Author&sort=title&order=desc&size=3&cursor=" + first.getNextCursor());
+        assertThat(second.getBooks()).extracting(BookDto::getTitle).containsExactly("Title 1", "Title 0");
+        assertThat(second.getNextCursor()).isNull();
+
+        List<BookDto> streamed = client.get().uri("/books?author=Author&sort=title")
+                .accept(MediaType.parseMediaType(BookController.NDJSON_VALUE))
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(BookDto.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        assertThat(streamed).extracting(BookDto::getTitle)
+                .containsExactly("Title 0", "Title 1", "Title 2", "Title 3", "Title 4");
+
+        List<BookDto> exported = client.get().uri("/books/export")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(BookDto.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        assertThat(exported).hasSize(6);
+    }
+
+    @Test
+    void pageShouldBeEncodedAsSmileOnRequest() {
+        save("Smile Title", "Author", "Genre");
+
+        BookPageDto json = page("/books");
+        BookPageDto smile = client.get().uri("/books")
+                .accept(BookFormats.SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(BookFormats.SMILE)
+                .expectBody(BookPageDto.class)
+                .returnResult().getResponseBody();
+        assertThat(smile).isEqualTo(json);
+    }
+
+    @Test
+    void batchLookupAndBulkOperationsShouldMatchMvcSemantics() {
+        BookSaveDto valid = book("Batch Title", "Batch Author", "Genre");
+        BookSaveDto invalid = book("B", "Batch Author", "Genre");
+
+        BookBatchResultDto batch = client.post().uri("/books/batch")
+                .bodyValue(List.of(valid, invalid, valid))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookBatchResultDto.class)
+                .returnResult().getResponseBody();
+        assertThat(batch.getBooks()).hasSize(2);
+        assertThat(batch.getErrors()).singleElement().satisfies(error -> assertThat(error.getIndex()).isEqualTo(1));
+
+        Long firstId = batch.getBooks().get(0).getId();
+        BookLookupResultDto lookup = client.post().uri("/books/lookup")
+                .bodyValue(List.of(firstId, 999_999L, firstId))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookLookupResultDto.class)
+                .returnResult().getResponseBody();
+        assertThat(lookup.getBooks()).extracting(BookDto::getId).containsExactly(firstId);
+        assertThat(lookup.getMissing()).containsExactly(999_999L);
+
+        BookUpdateDto update = new BookUpdateDto();
+        update.setGenre("Updated");
+        BookBulkResultDto updated = client.patch().uri("/books?author=Batch Author")
+                .bodyValue(update)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookBulkResultDto.class)
+                .returnResult().getResponseBody();
+        assertThat(updated.getAffected()).isEqualTo(2);
+
+        BookFacetsDto facets = client.get().uri("/books/facets")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookFacetsDto.class)
+                .returnResult().getResponseBody();
+        assertThat(facets.getTotal()).isEqualTo(2);
+        assertThat(facets.getGenres()).singleElement().satisfies(genre -> assertThat(genre.getValue()).isEqualTo("Updated"));
+
+        publishedEvents.events.clear();
+        BookBulkResultDto deleted = client.delete().uri("/books?ids=" + firstId + ",999999")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookBulkResultDto.class)
+                .returnResult().getResponseBody();
+        assertThat(deleted.getAffected()).isEqualTo(1);
+        assertThat(publishedEvents.events).containsExactly(BookChangedEvent.deleted(firstId));
+
+        client.delete().uri("/books")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void searchShouldSeeCommittedChanges() {
+        BookDto saved = save("Reactive Streams", "Author", "Genre");
+
+        List<BookSearchHitDto> hits = client.get().uri("/books/search?q=reactive")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(BookSearchHitDto.class)
+                .returnResult().getResponseBody();
+        assertThat(hits).extracting(hit -> hit.getBook().getId()).containsExactly(saved.getId());
+
+        client.delete().uri("/books/{id}", saved.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        client.get().uri("/books/search?q=reactive")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(BookSearchHitDto.class).hasSize(0);
+    }
+
+    private BookPageDto page(String uri) {
+        return client.get().uri(uri)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBody(BookPageDto.class)
+                .returnResult().getResponseBody();
+    }
+
+    private BookDto save(String title, String author, String genre) {
+        return client.post().uri("/books")
+                .bodyValue(book(title, author, genre))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(BookDto.class)
+                .returnResult().getResponseBody();
+    }
+
+    private static BookSaveDto book(String title, String author, String genre) {
+        BookSaveDto bookSaveDto = new BookSaveDto();
+        bookSaveDto.setTitle(title);
+        bookSaveDto.setAuthor(author);
+        bookSaveDto.setGenre(genre);
+        return bookSaveDto;
+    }
+
+    @TestConfiguration
+    static class PublishedEvents {
+        private final List<BookChangedEvent> events = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        void onBookChanged(BookChangedEvent event) {
+            events.add(event);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ru.tokmakov.bookkeeper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.tokmakov.bookkeeper.cache.BookCache;
+import ru.tokmakov.bookkeeper.cache.BookResponseCache;
+import ru.tokmakov.bookkeeper.datasource.ReplicaPool;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookPageDto;
+import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.repository.BookRepository;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Маршрутизация транзакций только на чтение на реплики. Реплики — отдельные базы H2 в памяти без репликации,
+ * поэтому по содержимому ответа видно, из какой базы он прочитан. Кэши работают с настройками по умолчанию,
+ * поэтому каждое чтение, которое должно дойти до базы, использует свою строку запроса.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "book-keeper.datasource.replicas[0].url=" + ReadReplicaRoutingTests.REPLICA_0_URL,
+        "book-keeper.datasource.replicas[0].username=sa",
+        "book-keeper.datasource.replicas[1].url=" + ReadReplicaRoutingTests.REPLICA_1_URL,
+        "book-keeper.datasource.replicas[1].username=sa",
+        "book-keeper.datasource.read-your-writes-window=1m"
+})
+class ReadReplicaRoutingTests {
+    static final String REPLICA_0_URL = "jdbc:h2:mem:replica0;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:schema-reactive.sql'";
+    static final String REPLICA_1_URL = "jdbc:h2:mem:replica1;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:schema-reactive.sql'";
+    private static final String AUTHOR = "Replica Author";
+    private static final long REPLICA_BOOK_ID = 1_000_000L;
+
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+    private final JdbcTemplate replica0 = new JdbcTemplate(new DriverManagerDataSource(REPLICA_0_URL, "sa", ""));
+    private final JdbcTemplate replica1 = new JdbcTemplate(new DriverManagerDataSource(REPLICA_1_URL, "sa", ""));
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ReplicaPool replicaPool;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCache bookCache;
+
+    @Autowired
+    private BookResponseCache responseCache;
+
+    @BeforeEach
+    void setUp() {
+        insert(replica0, "Replica Zero");
+        insert(replica1, "Replica One");
+    }
+
+    @AfterEach
+    void tearDown() {
+        replica0.update("delete from books");
+        replica1.update("delete from books");
+        bookRepository.deleteAll(bookRepository.findAll().stream()
+                .filter(book -> AUTHOR.equals(book.getAuthor()))
+                .toList());
+    }
+
+    @Test
+    void applicationDataSourceShouldRouteReadOnlyConnectionsToReplicas() {
+        assertThat(dataSource).isInstanceOf(LazyConnectionDataSourceProxy.class);
+        assertThat(replicaPool.replicas()).extracting(ReplicaPool.Replica::name)
+                .containsExactly("replica-0", "replica-1");
+    }
+
+    @Test
+    void readOnlyRequestsShouldBeBalancedAcrossReplicas() throws Exception {
+        Set<String> titles = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            List<BookDto> books = findByAuthor("reader", 10 + i);
+            assertThat(books).hasSize(1);
+            titles.add(books.get(0).getTitle());
+        }
+
+        assertThat(titles).containsExactlyInAnyOrder("Replica Zero", "Replica One");
+    }
+
+    @Test
+    void writesShouldGoToPrimaryAndBeVisibleToWriterWithinWindow() throws Exception {
+        BookSaveDto bookSaveDto = new BookSaveDto();
+        bookSaveDto.setTitle("Primary Title");
+        bookSaveDto.setAuthor(AUTHOR);
+        bookSaveDto.setGenre("Genre");
+        mvc.perform(post("/books")
+                        .header("X-Client-Id", "writer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(bookSaveDto)))
+                .andExpect(status().isCreated());
+
+        assertThat(replica0.queryForObject("select count(*) from books where title = 'Primary Title'", Long.class))
+                .isZero();
+        assertThat(findByAuthor("writer", 20)).extracting(BookDto::getTitle).containsExactly("Primary Title");
+        assertThat(findByAuthor("reader", 21)).extracting(BookDto::getTitle)
+                .containsAnyOf("Replica Zero", "Replica One")
+                .doesNotContain("Primary Title");
+    }
+
+    @Test
+    void cachesShouldBeFilledFromReplicasExceptRightAfterChange() throws Exception {
+        mvc.perform(get("/books/{id}", REPLICA_BOOK_ID).header("X-Client-Id", "reader"))
+                .andExpect(status().isOk());
+        assertThat(bookCache.getIfPresent(REPLICA_BOOK_ID)).isNotNull();
+        assertThat(responseCache.getBook(REPLICA_BOOK_ID, MediaType.APPLICATION_JSON)).isNotNull();
+
+        bookCache.evict(REPLICA_BOOK_ID);
+        mvc.perform(get("/books/{id}", REPLICA_BOOK_ID).header("X-Client-Id", "reader"))
+                .andExpect(status().isOk());
+        assertThat(bookCache.getIfPresent(REPLICA_BOOK_ID)).isNull();
+        assertThat(responseCache.getBook(REPLICA_BOOK_ID, MediaType.APPLICATION_JSON)).isNull();
+
+        long hits = responseCache.stats().hitCount();
+        findByAuthor("reader", 30);
+        findByAuthor("reader", 30);
+        assertThat(responseCache.stats().hitCount()).isEqualTo(hits);
+    }
+
+    private List<BookDto> findByAuthor(String clientId, int size) throws Exception {
+        String body = mvc.perform(get("/books?author={author}&size={size}", AUTHOR, size).header("X-Client-Id", clientId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(body, BookPageDto.class).getBooks();
+    }
+
+    private static void insert(JdbcTemplate replica, String title) {
+        replica.update("insert into books (id, title, author, genre, version) values (?, ?, ?, 'Genre', 0)",
+                REPLICA_BOOK_ID, title, AUTHOR);
+    }
+}
@@ -0,0 +1,180 @@
+package ru.tokmakov.bookkeeper.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.event.BookChangedEvent;
+import ru.tokmakov.bookkeeper.exception.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookCacheTests {
+    private static final int THREADS = 32;
+
+    private CacheInvalidationTransport transport;
+    private BookCache bookCache;
+    private AtomicInteger loads;
+    private Function<Long, BookDto> loader;
+
+    @BeforeEach
+    void setUp() {
+        transport = new LocalCacheInvalidationTransport();
+        bookCache = new BookCache(new BookCacheProperties(), transport);
+        loads = new AtomicInteger();
+        loader = id -> {
+            loads.incrementAndGet();
+            BookDto bookDto = new BookDto();
+            bookDto.setId(id);
+            bookDto.setTitle("title " + loads.get());
+            return bookDto;
+        };
+    }
+
+    @Test
+    void getShouldLoadOnceAndRecordHitsAndMisses() {
+        BookDto first = bookCache.get(1L, loader);
+        BookDto second = bookCache.get(1L, loader);
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        assertThat(bookCache.stats().hitCount()).isEqualTo(1);
+        assertThat(bookCache.stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getShouldNotCacheLoaderFailures() {
+        assertThatThrownBy(() -> bookCache.get(1L, id -> {
+            throw new NotFoundException("Book with id " + id + " not found");
+        })).isInstanceOf(NotFoundException.class);
+
+        assertThat(bookCache.get(1L, loader).getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void bookChangedEventShouldEvictBook() {
+        bookCache.get(1L, loader);
+
+        bookCache.onBookChanged(BookChangedEvent.deleted(1L));
+
+        assertThat(bookCache.get(1L, loader).getTitle()).isEqualTo("title 2");
+    }
+
+    @Test
+    void evictShouldInvalidateOtherNodesSharingTransport() {
+        BookCache otherNode = new BookCache(new BookCacheProperties(), transport);
+        otherNode.get(1L, loader);
+
+        bookCache.evict(1L);
+
+        assertThat(otherNode.get(1L, loader).getTitle()).isEqualTo("title 2");
+    }
+
+    @Test
+    void concurrentGetsShouldShareOneLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Function<Long, BookDto> slowLoader = id -> {
+            await(release);
+            return loader.apply(id);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<BookDto>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> bookCache.get(1L, slowLoader)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<BookDto> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS).getTitle()).isEqualTo("title 1");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(bookCache.loadsInFlight()).isZero();
+    }
+
+    @Test
+    void loaderFailureShouldReachEveryWaiter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Function<Long, BookDto> failingLoader = id -> {
+            loads.incrementAndGet();
+            await(release);
+            throw new NotFoundException("Book with id " + id + " not found");
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<BookDto> first = executor.submit(() -> bookCache.get(1L, failingLoader));
+            waitForLoadInFlight();
+            Future<BookDto> second = executor.submit(() -> bookCache.get(1L, failingLoader));
+            Thread.sleep(50);
+            release.countDown();
+
+            assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(NotFoundException.class);
+            assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(NotFoundException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void evictDuringLoadShouldFenceStaleResult() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Function<Long, BookDto> staleLoader = id -> {
+            BookDto stale = loader.apply(id);
+            await(release);
+            return stale;
+        };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<BookDto> staleRead = executor.submit(() -> bookCache.get(1L, staleLoader));
+            waitForLoadInFlight();
+
+            bookCache.evict(1L);
+            BookDto freshRead = bookCache.get(1L, loader);
+            release.countDown();
+
+            assertThat(staleRead.get(5, TimeUnit.SECONDS).getTitle()).isEqualTo("title 1");
+            assertThat(freshRead.getTitle()).isEqualTo("title 2");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(bookCache.get(1L, loader).getTitle()).isEqualTo("title 2");
+        assertThat(loads).hasValue(2);
+    }
+
+    private void waitForLoadInFlight() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bookCache.loadsInFlight() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(bookCache.loadsInFlight()).isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package ru.tokmakov.bookkeeper.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import ru.tokmakov.bookkeeper.format.BookFormats;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookResponseCacheTests {
+    private CacheInvalidationTransport transport;
+    private BookResponseCache responseCache;
+    private AtomicInteger loads;
+    private Supplier<BookResponseCache.Response> loader;
+
+    @BeforeEach
+    void setUp() {
+        transport = new LocalCacheInvalidationTransport();
+        responseCache = new BookResponseCache(new BookCacheProperties(), transport);
+        loads = new AtomicInteger();
+        loader = () -> new BookResponseCache.Response(
+                ("body " + loads.incrementAndGet()).getBytes(StandardCharsets.UTF_8), "\"1\"", -1);
+    }
+
+    @Test
+    void bookShouldBeCachedPerFormat() {
+        assertThat(responseCache.getBook(1L, MediaType.APPLICATION_JSON)).isNull();
+
+        BookResponseCache.Response json = responseCache.putBook(1L, MediaType.APPLICATION_JSON, loader);
+        responseCache.putBook(1L, BookFormats.SMILE, loader);
+
+        assertThat(responseCache.getBook(1L, MediaType.APPLICATION_JSON)).isSameAs(json);
+        assertThat(responseCache.getBook(1L, BookFormats.SMILE).body()).isEqualTo(bytes("body 2"));
+        assertThat(responseCache.getBook(1L, BookFormats.CBOR)).isNull();
+    }
+
+    @Test
+    void invalidationShouldEvictBookAndAllPages() {
+        responseCache.putBook(1L, MediaType.APPLICATION_JSON, loader);
+        responseCache.putBook(2L, MediaType.APPLICATION_JSON, loader);
+        responseCache.getPage("size=20", MediaType.APPLICATION_JSON, loader);
+        assertThat(responseCache.getPage("size=20", MediaType.APPLICATION_JSON, loader).body()).isEqualTo(bytes("body 3"));
+
+        transport.publish(1L);
+
+        assertThat(responseCache.getBook(1L, MediaType.APPLICATION_JSON)).isNull();
+        assertThat(responseCache.getBook(2L, MediaType.APPLICATION_JSON)).isNotNull();
+        assertThat(responseCache.getPage("size=20", MediaType.APPLICATION_JSON, loader).body()).isEqualTo(bytes("body 4"));
+    }
+
+    @Test
+    void responseBuiltBeforeInvalidationShouldNotBeCached() {
+        BookResponseCache.Response stale = responseCache.putBook(1L, MediaType.APPLICATION_JSON, () -> {
+            transport.publish(1L);
+            return loader.get();
+        });
+
+        assertThat(stale.body()).isEqualTo(bytes("body 1"));
+        assertThat(responseCache.getBook(1L, MediaType.APPLICATION_JSON)).isNull();
+
+        BookResponseCache.Response stalePage = responseCache.getPage(null, MediaType.APPLICATION_JSON, () -> {
+            transport.publish(1L);
+            return loader.get();
+        });
+
+        assertThat(responseCache.getPage(null, MediaType.APPLICATION_JSON, loader)).isNotSameAs(stalePage);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -9,29 +9,54 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
+import ru.tokmakov.bookkeeper.cache.BookCacheConfig;
+import ru.tokmakov.bookkeeper.cache.BookResponseCache;
+import ru.tokmakov.bookkeeper.dto.BookBatchErrorDto;
+import ru.tokmakov.bookkeeper.dto.BookBatchResultDto;
+import ru.tokmakov.bookkeeper.dto.BookBulkResultDto;
 import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookFacetDto;
+import ru.tokmakov.bookkeeper.dto.BookFacetsDto;
+import ru.tokmakov.bookkeeper.dto.BookFilterDto;
+import ru.tokmakov.bookkeeper.dto.BookLookupResultDto;
+import ru.tokmakov.bookkeeper.dto.BookPageDto;
 import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.dto.BookSearchHitDto;
+import ru.tokmakov.bookkeeper.dto.BookSuggestionDto;
+import ru.tokmakov.bookkeeper.dto.BookSuggestionsDto;
 import ru.tokmakov.bookkeeper.dto.BookUpdateDto;
+import ru.tokmakov.bookkeeper.dto.BookVersionDto;
+import ru.tokmakov.bookkeeper.exception.BadRequestException;
+import ru.tokmakov.bookkeeper.format.BookFormats;
+import ru.tokmakov.bookkeeper.idempotency.IdempotencyStore;
 import ru.tokmakov.bookkeeper.exception.GlobalExceptionHandler;
 import ru.tokmakov.bookkeeper.exception.NotFoundException;
+import ru.tokmakov.bookkeeper.model.Book;
 import ru.tokmakov.bookkeeper.service.BookService;
 
 import java.nio.charset.StandardCharsets;
+import java.sql.SQLTransientConnectionException;
+import java.time.Instant;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = BookController.class)
-@Import(GlobalExceptionHandler.class)
+@Import({GlobalExceptionHandler.class, BookResponseCache.class, BookCacheConfig.class, IdempotencyStore.class})
 class BookControllerMvcTests {
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
 
     @MockitoBean
     private BookService bookService;
@@ -39,10 +64,15 @@ class BookControllerMvcTests {
     @Autowired
     private MockMvc mvc;
 
+    @Autowired
+    private BookResponseCache responseCache;
+
     private BookDto bookDto;
 
     @BeforeEach
     void setUp() {
+        responseCache.invalidateAll();
+
         bookDto = new BookDto();
         bookDto.setId(1L);
         bookDto.setTitle("title");
@@ -69,6 +99,106 @@ class BookControllerMvcTests {
                 .andExpect(jsonPath("$.genre", is(bookDto.getGenre())));
     }
 
+    @Test
+    void saveBookWithRepeatedIdempotencyKeyShouldCreateBookOnce() throws Exception {
+        BookSaveDto bookSaveDto = new BookSaveDto();
+        bookSaveDto.setTitle("title");
+        bookSaveDto.setAuthor("author");
+        bookSaveDto.setGenre("genre");
+
+        Mockito.when(bookService.saveBook(Mockito.any(BookSaveDto.class))).thenReturn(bookDto);
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/books")
+                            .header(IdempotencyStore.IDEMPOTENCY_KEY, "save-once")
+                            .content(mapper.writeValueAsString(bookSaveDto))
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.id", is(bookDto.getId().intValue())));
+        }
+        Mockito.verify(bookService, Mockito.times(1)).saveBook(Mockito.any(BookSaveDto.class));
+
+        bookSaveDto.setTitle("other title");
+        mvc.perform(post("/books")
+                        .header(IdempotencyStore.IDEMPOTENCY_KEY, "save-once")
+                        .content(mapper.writeValueAsString(bookSaveDto))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status", is("BAD_REQUEST")));
+
+        mvc.perform(post("/books")
+                        .header(IdempotencyStore.IDEMPOTENCY_KEY, "save-once")
+                        .header(IdempotencyStore.CLIENT_ID, "other-client")
+                        .content(mapper.writeValueAsString(bookSaveDto))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        Mockito.verify(bookService, Mockito.times(2)).saveBook(Mockito.any(BookSaveDto.class));
+
+        mvc.perform(post("/books")
+                        .header(IdempotencyStore.IDEMPOTENCY_KEY, "save-once")
+                        .with(request -> {
+                            request.setRemoteAddr("10.0.0.2");
+                            return request;
+                        })
+                        .content(mapper.writeValueAsString(bookSaveDto))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        Mockito.verify(bookService, Mockito.times(3)).saveBook(Mockito.any(BookSaveDto.class));
+    }
+
+    @Test
+    void findBooksByIdsShouldReturnBooksAndMissingIds() throws Exception {
+        Mockito.when(bookService.findBooksByIds(List.of(1L, 2L)))
+                .thenReturn(new BookLookupResultDto(List.of(bookDto), List.of(2L)));
+
+        mvc.perform(post("/books/lookup")
+                        .content("[1, 2]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[0].id", is(1)))
+                .andExpect(jsonPath("$.missing", contains(2)));
+    }
+
+    @Test
+    void saveBooksShouldReturnCreatedBooksAndErrors() throws Exception {
+        BookSaveDto bookSaveDto = createBookSaveDtoWithoutField("title");
+        BookBatchResultDto result = new BookBatchResultDto(
+                List.of(bookDto), List.of(new BookBatchErrorDto(1, List.of("title: Title is mandatory"))));
+
+        Mockito.when(bookService.saveBooks(Mockito.anyList())).thenReturn(result);
+
+        mvc.perform(post("/books/batch")
+                        .content(mapper.writeValueAsString(List.of(bookSaveDto, bookSaveDto)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[0].id", is(bookDto.getId().intValue())))
+                .andExpect(jsonPath("$.errors[0].index", is(1)))
+                .andExpect(jsonPath("$.errors[0].messages[0]", is("title: Title is mandatory")));
+    }
+
+    @Test
+    void saveBooksTooLargeBatchShouldReturnBadRequest() throws Exception {
+        Mockito.when(bookService.saveBooks(Mockito.anyList())).thenThrow(new BadRequestException("Batch size"));
+
+        ResultActions resultActions = mvc.perform(post("/books/batch")
+                .content("[]")
+                .contentType(MediaType.APPLICATION_JSON));
+        checkBadRequestResponse(resultActions);
+    }
+
+    @Test
+    void connectionPoolTimeoutShouldReturnServiceUnavailable() throws Exception {
+        Mockito.when(bookService.findBooksByIds(List.of(1L))).thenThrow(new DataAccessResourceFailureException(
+                "Unable to acquire JDBC Connection", new SQLTransientConnectionException("Connection is not available")));
+
+        mvc.perform(post("/books/lookup")
+                        .content("[1]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.status", is("SERVICE_UNAVAILABLE")));
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"title", "author", "genre"})
     void saveBookWithoutRequiredFieldShouldReturnBadRequest(String missingField) throws Exception {
@@ -111,17 +241,170 @@ class BookControllerMvcTests {
         checkBadRequestResponse(resultActions);
     }
 
+    @Test
+    void searchBooksShouldReturnHits() throws Exception {
+        Mockito.when(bookService.searchBooks("tit*", 20)).thenReturn(List.of(new BookSearchHitDto(bookDto, 1.5)));
+
+        mvc.perform(get("/books/search").param("q", "tit*"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].book.id", is(1)))
+                .andExpect(jsonPath("$[0].score", is(1.5)));
+    }
+
+    @Test
+    void suggestBooksShouldReturnSuggestionsPerField() throws Exception {
+        BookSuggestionsDto suggestions = new BookSuggestionsDto(
+                List.of(), List.of(new BookSuggestionDto("Leo Tolstoy", 2)), List.of());
+        Mockito.when(bookService.suggestBooks("tol", 5)).thenReturn(suggestions);
+
+        mvc.perform(get("/books/suggest").param("prefix", "tol"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.authors[0].value", is("Leo Tolstoy")))
+                .andExpect(jsonPath("$.authors[0].count", is(2)))
+                .andExpect(jsonPath("$.titles", hasSize(0)));
+    }
+
+    @Test
+    void findFacetsShouldReturnCounts() throws Exception {
+        BookFacetsDto facets = new BookFacetsDto(3,
+                List.of(new BookFacetDto("Novel", 3)), List.of(new BookFacetDto("Leo Tolstoy", 2)));
+        Mockito.when(bookService.findFacets(100)).thenReturn(facets);
+
+        mvc.perform(get("/books/facets"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(3)))
+                .andExpect(jsonPath("$.genres[0].value", is("Novel")))
+                .andExpect(jsonPath("$.authors[0].count", is(2)));
+    }
+
+    @Test
+    void findBookByIdShouldReturnValidators() throws Exception {
+        Instant updatedAt = Instant.parse("2024-01-01T00:00:00Z");
+        bookDto.setVersion(2L);
+        bookDto.setUpdatedAt(updatedAt);
+        Mockito.when(bookService.findBookVersion(1L)).thenReturn(new BookVersionDto(2L, updatedAt));
+        Mockito.when(bookService.findBookById(1L)).thenReturn(bookDto);
+
+        mvc.perform(get("/books/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, updatedAt.toEpochMilli()))
+                .andExpect(jsonPath("$.version", is(2)));
+    }
+
+    @Test
+    void findBookByIdNotModifiedShouldNotLoadBook() throws Exception {
+        Instant updatedAt = Instant.parse("2024-01-01T00:00:00Z");
+        Mockito.when(bookService.findBookVersion(1L)).thenReturn(new BookVersionDto(2L, updatedAt));
+
+        mvc.perform(get("/books/{id}", 1L).header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andExpect(content().string(""));
+        mvc.perform(get("/books/{id}", 1L).header(HttpHeaders.IF_MODIFIED_SINCE, "Mon, 01 Jan 2024 00:00:00 GMT"))
+                .andExpect(status().isNotModified());
+
+        Mockito.verify(bookService, Mockito.never()).findBookById(1L);
+    }
+
+    @Test
+    void findBookByIdShouldServeRepeatedReadsFromResponseCache() throws Exception {
+        Instant updatedAt = Instant.parse("2024-01-01T00:00:00Z");
+        bookDto.setVersion(2L);
+        bookDto.setUpdatedAt(updatedAt);
+        Mockito.when(bookService.findBookVersion(1L)).thenReturn(new BookVersionDto(2L, updatedAt));
+        Mockito.when(bookService.findBookById(1L)).thenReturn(bookDto);
+
+        String first = mvc.perform(get("/books/{id}", 1L))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        mvc.perform(get("/books/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, updatedAt.toEpochMilli()))
+                .andExpect(content().string(first));
+        mvc.perform(get("/books/{id}", 1L).header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isNotModified());
+
+        Mockito.verify(bookService, Mockito.times(1)).findBookVersion(1L);
+        Mockito.verify(bookService, Mockito.times(1)).findBookById(1L);
+    }
+
+    @Test
+    void findBookByIdShouldUseETagOfRequestedFormat() throws Exception {
+        Instant updatedAt = Instant.parse("2024-01-01T00:00:00Z");
+        bookDto.setVersion(2L);
+        bookDto.setUpdatedAt(updatedAt);
+        Mockito.when(bookService.findBookVersion(1L)).thenReturn(new BookVersionDto(2L, updatedAt));
+        Mockito.when(bookService.findBookById(1L)).thenReturn(bookDto);
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(get("/books/{id}", 1L).accept(BookFormats.CBOR))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(BookFormats.CBOR))
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"2-cbor\""))
+                    .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+            mvc.perform(get("/books/{id}", 1L).accept(BookFormats.CBOR).header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                    .andExpect(status().isOk());
+            mvc.perform(get("/books/{id}", 1L).accept(BookFormats.CBOR).header(HttpHeaders.IF_NONE_MATCH, "\"2-cbor\""))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+        }
+        mvc.perform(get("/books/{id}", 1L).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+    }
+
     @Test
     void findBookByIdNotFoundShouldReturnNotFoundStatus() throws Exception {
         Long id = 1L;
 
-        Mockito.when(bookService.findBookById(id)).thenThrow(
+        Mockito.when(bookService.findBookVersion(id)).thenThrow(
                 new NotFoundException("Book with id " + id + " not found"));
 
         ResultActions resultActions = mvc.perform(get("/books/{id}", id));
         checkNotFoundResponse(resultActions);
 
-        Mockito.verify(bookService).findBookById(id);
+        Mockito.verify(bookService).findBookVersion(id);
+        Mockito.verify(bookService, Mockito.never()).findBookById(id);
+    }
+
+    @Test
+    void findAllBooksMatchingETagShouldReturnNotModified() throws Exception {
+        Mockito.when(bookService.findAllBooks(Mockito.any(BookFilterDto.class), Mockito.eq("id"), Mockito.eq("asc"), Mockito.eq(20)))
+                .thenReturn(new BookPageDto(List.of(bookDto), null));
+
+        String eTag = mvc.perform(get("/books"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/books").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void findAllBooksShouldCacheResponsePerQueryAndFormat() throws Exception {
+        Mockito.when(bookService.findAllBooks(Mockito.any(BookFilterDto.class), Mockito.anyString(), Mockito.anyString(), Mockito.anyInt()))
+                .thenReturn(new BookPageDto(List.of(bookDto), null));
+
+        mvc.perform(get("/books?size=20")).andExpect(status().isOk());
+        mvc.perform(get("/books?size=20"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                .andExpect(jsonPath("$.books[0].id").value(1));
+        mvc.perform(get("/books?size=20").accept(BookFormats.SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BookFormats.SMILE));
+        mvc.perform(get("/books?size=10")).andExpect(status().isOk());
+
+        Mockito.verify(bookService, Mockito.times(2)).findAllBooks(Mockito.any(BookFilterDto.class), Mockito.eq("id"),
+                Mockito.eq("asc"), Mockito.eq(20));
+        Mockito.verify(bookService, Mockito.times(1)).findAllBooks(Mockito.any(BookFilterDto.class), Mockito.eq("id"),
+                Mockito.eq("asc"), Mockito.eq(10));
     }
 
     @Test
@@ -138,29 +421,83 @@ class BookControllerMvcTests {
         book2.setAuthor("Author 2");
         book2.setGenre("Genre 2");
 
-        List<BookDto> books = List.of(book1, book2);
+        BookPageDto page = new BookPageDto(List.of(book1, book2), "next");
 
-        Mockito.when(bookService.findAllBooks()).thenReturn(books);
+        Mockito.when(bookService.findAllBooks(Mockito.any(BookFilterDto.class), Mockito.eq("id"), Mockito.eq("asc"), Mockito.eq(20)))
+                .thenReturn(page);
 
         mvc.perform(get("/books"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[0].title").value("Book 1"))
-                .andExpect(jsonPath("$[0].author").value("Author 1"))
-                .andExpect(jsonPath("$[0].genre").value("Genre 1"))
-                .andExpect(jsonPath("$[1].id").value(2))
-                .andExpect(jsonPath("$[1].title").value("Book 2"))
-                .andExpect(jsonPath("$[1].author").value("Author 2"))
-                .andExpect(jsonPath("$[1].genre").value("Genre 2"));
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.books[0].id").value(1))
+                .andExpect(jsonPath("$.books[0].title").value("Book 1"))
+                .andExpect(jsonPath("$.books[0].author").value("Author 1"))
+                .andExpect(jsonPath("$.books[0].genre").value("Genre 1"))
+                .andExpect(jsonPath("$.books[1].id").value(2))
+                .andExpect(jsonPath("$.books[1].title").value("Book 2"))
+                .andExpect(jsonPath("$.books[1].author").value("Author 2"))
+                .andExpect(jsonPath("$.books[1].genre").value("Genre 2"));
     }
 
     @Test
     void findAllBooksNoBooksShouldReturnEmptyList() throws Exception {
-        Mockito.when(bookService.findAllBooks()).thenReturn(List.of());
+        Mockito.when(bookService.findAllBooks(Mockito.any(BookFilterDto.class), Mockito.eq("id"), Mockito.eq("asc"), Mockito.eq(20)))
+                .thenReturn(new BookPageDto(List.of(), null));
 
         mvc.perform(get("/books"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(0));
+                .andExpect(jsonPath("$.books.length()").value(0))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void findAllBooksShouldPassFilterSortAndSize() throws Exception {
+        Mockito.when(bookService.findAllBooks(Mockito.any(BookFilterDto.class), Mockito.eq("title"), Mockito.eq("desc"), Mockito.eq(5)))
+                .thenReturn(new BookPageDto(List.of(bookDto), null));
+
+        mvc.perform(get("/books")
+                        .param("cursor", "cursor")
+                        .param("genre", "genre")
+                        .param("titlePrefix", "ti")
+                        .param("sort", "title")
+                        .param("order", "desc")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[0].id").value(1));
+
+        Mockito.verify(bookService).findAllBooks(Mockito.argThat(filter -> "cursor".equals(filter.getCursor())
+                        && "genre".equals(filter.getGenre()) && "ti".equals(filter.getTitlePrefix())),
+                Mockito.eq("title"), Mockito.eq("desc"), Mockito.eq(5));
+    }
+
+    @Test
+    void findAllBooksInvalidCursorShouldReturnBadRequest() throws Exception {
+        Mockito.when(bookService.findAllBooks(Mockito.any(BookFilterDto.class), Mockito.anyString(), Mockito.anyString(), Mockito.anyInt()))
+                .thenThrow(new BadRequestException("Invalid cursor: bad"));
+
+        checkBadRequestResponse(mvc.perform(get("/books").param("cursor", "bad")));
+    }
+
+    @Test
+    void exportBooksShouldWriteNdjson() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            Consumer<BookDto> consumer = invocation.getArgument(0);
+            consumer.accept(bookDto);
+            consumer.accept(bookDto);
+            return null;
+        }).when(bookService).exportBooks(Mockito.any());
+
+        MvcResult result = mvc.perform(get("/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BookController.NDJSON_VALUE))
+                .andReturn().getResponse().getContentAsString();
+
+        String line = mapper.writeValueAsString(bookDto);
+        assertThat(body).isEqualTo(line + "\n" + line + "\n");
     }
 
     @Test
@@ -171,7 +508,7 @@ class BookControllerMvcTests {
         updateDto.setTitle("new title");
 
         Long id = 1L;
-        Mockito.when(bookService.updateBook(Mockito.eq(id), Mockito.any(BookUpdateDto.class)))
+        Mockito.when(bookService.updateBook(Mockito.eq(id), Mockito.isNull(), Mockito.any(BookUpdateDto.class)))
                 .thenThrow(new NotFoundException("Book with id " + id + " not found"));
 
         ResultActions resultActions = mvc.perform(patch("/books/{id}", id)
@@ -179,7 +516,60 @@ class BookControllerMvcTests {
                 .contentType(MediaType.APPLICATION_JSON));
         checkNotFoundResponse(resultActions);
 
-        Mockito.verify(bookService).updateBook(Mockito.eq(id), Mockito.any(BookUpdateDto.class));
+        Mockito.verify(bookService).updateBook(Mockito.eq(id), Mockito.isNull(), Mockito.any(BookUpdateDto.class));
+    }
+
+    @Test
+    void updateBookShouldPassIfMatchVersionAndReturnNewETag() throws Exception {
+        BookUpdateDto updateDto = new BookUpdateDto();
+        updateDto.setTitle("new title");
+        bookDto.setVersion(3L);
+        Mockito.when(bookService.updateBook(Mockito.eq(1L), Mockito.eq(2L), Mockito.any(BookUpdateDto.class)))
+                .thenReturn(bookDto);
+
+        mvc.perform(patch("/books/{id}", 1L)
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .content(mapper.writeValueAsString(updateDto))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+        mvc.perform(patch("/books/{id}", 1L)
+                        .header(HttpHeaders.IF_MATCH, "\"2-smile\"")
+                        .accept(BookFormats.SMILE)
+                        .content(mapper.writeValueAsString(updateDto))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BookFormats.SMILE))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-smile\""));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"W/\"2\"", "\"abc\"", "2"})
+    void updateBookUnmatchableIfMatchShouldReturnPreconditionFailed(String ifMatch) throws Exception {
+        BookUpdateDto updateDto = new BookUpdateDto();
+        updateDto.setTitle("new title");
+
+        mvc.perform(patch("/books/{id}", 1L)
+                        .header(HttpHeaders.IF_MATCH, ifMatch)
+                        .content(mapper.writeValueAsString(updateDto))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status", is("PRECONDITION_FAILED")));
+
+        Mockito.verifyNoInteractions(bookService);
+    }
+
+    @Test
+    void updateBookConcurrentModificationShouldReturnPreconditionFailed() throws Exception {
+        BookUpdateDto updateDto = new BookUpdateDto();
+        updateDto.setTitle("new title");
+        Mockito.when(bookService.updateBook(Mockito.eq(1L), Mockito.isNull(), Mockito.any(BookUpdateDto.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Book.class, 1L));
+
+        mvc.perform(patch("/books/{id}", 1L)
+                        .content(mapper.writeValueAsString(updateDto))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed());
     }
 
     @Test
@@ -216,6 +606,46 @@ class BookControllerMvcTests {
         Mockito.verify(bookService).deleteBook(Mockito.eq(id));
     }
 
+    @Test
+    void updateBooksShouldBindFilterFromQueryParameters() throws Exception {
+        BookUpdateDto updateDto = new BookUpdateDto();
+        updateDto.setGenre("new genre");
+
+        Mockito.when(bookService.updateBooks(Mockito.any(BookFilterDto.class), Mockito.any(BookUpdateDto.class)))
+                .thenReturn(new BookBulkResultDto(2, null));
+
+        mvc.perform(patch("/books")
+                        .param("ids", "1,2")
+                        .content(mapper.writeValueAsString(updateDto))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected", is(2)));
+
+        Mockito.verify(bookService).updateBooks(
+                Mockito.argThat(filter -> filter.getIds().equals(List.of(1L, 2L))), Mockito.eq(updateDto));
+    }
+
+    @Test
+    void deleteBooksShouldReturnAffectedCountAndCursor() throws Exception {
+        Mockito.when(bookService.deleteBooks(Mockito.any(BookFilterDto.class)))
+                .thenReturn(new BookBulkResultDto(1000, "next"));
+
+        mvc.perform(delete("/books").param("author", "author"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected", is(1000)))
+                .andExpect(jsonPath("$.nextCursor", is("next")));
+
+        Mockito.verify(bookService).deleteBooks(Mockito.argThat(filter -> "author".equals(filter.getAuthor())));
+    }
+
+    @Test
+    void deleteBooksWithoutFilterShouldReturnBadRequest() throws Exception {
+        Mockito.when(bookService.deleteBooks(Mockito.any(BookFilterDto.class)))
+                .thenThrow(new BadRequestException("Either ids or author/genre filter must be specified"));
+
+        checkBadRequestResponse(mvc.perform(delete("/books")));
+    }
+
     private void checkBadRequestResponse(ResultActions result) throws Exception {
         result.andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.status", is("BAD_REQUEST")))
@@ -0,0 +1,146 @@
+package ru.tokmakov.bookkeeper.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaPoolTests {
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource first = mock(DataSource.class);
+    private final DataSource second = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection firstConnection = mock(Connection.class);
+    private final Connection secondConnection = mock(Connection.class);
+    private final List<ReplicaPool> pools = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(first.getConnection()).thenReturn(firstConnection);
+        when(second.getConnection()).thenReturn(secondConnection);
+        when(firstConnection.isValid(anyInt())).thenReturn(true);
+        when(secondConnection.isValid(anyInt())).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (ReplicaPool pool : pools) {
+            pool.close();
+        }
+    }
+
+    @Test
+    void connectionsShouldBeBalancedAcrossReplicas() throws SQLException {
+        ReplicaPool pool = pool(null);
+
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            connections.add(pool.getConnection());
+        }
+
+        assertThat(connections).containsExactly(firstConnection, secondConnection, firstConnection, secondConnection);
+    }
+
+    @Test
+    void failedReplicaShouldBeEjectedUntilHealthCheckPasses() throws SQLException {
+        ReplicaPool pool = pool(null);
+        when(first.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        assertThat(pool.getConnection()).isSameAs(secondConnection);
+        assertThat(pool.replicas().get(0).isHealthy()).isFalse();
+        assertThat(pool.getConnection()).isSameAs(secondConnection);
+        assertThat(pool.getConnection()).isSameAs(secondConnection);
+
+        pool.checkHealth();
+        assertThat(pool.replicas().get(0).isHealthy()).isFalse();
+
+        doReturn(firstConnection).when(first).getConnection();
+        pool.checkHealth();
+        assertThat(pool.replicas().get(0).isHealthy()).isTrue();
+        assertThat(List.of(pool.getConnection(), pool.getConnection()))
+                .containsExactlyInAnyOrder(firstConnection, secondConnection);
+    }
+
+    @Test
+    void invalidConnectionShouldEjectReplicaOnHealthCheck() throws SQLException {
+        ReplicaPool pool = pool(null);
+        when(secondConnection.isValid(anyInt())).thenReturn(false);
+
+        pool.checkHealth();
+
+        assertThat(pool.replicas()).extracting(ReplicaPool.Replica::isHealthy).containsExactly(true, false);
+    }
+
+    @Test
+    void readsShouldFallBackToPrimaryWhenNoReplicaIsAvailable() throws SQLException {
+        ReplicaPool pool = pool(null);
+        when(first.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(second.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        assertThat(pool.getConnection()).isSameAs(primaryConnection);
+        assertThat(pool.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void recentWriterShouldReadFromPrimaryWithinWindow() throws SQLException {
+        ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofMinutes(1), 100);
+        ReplicaPool pool = pool(readYourWrites);
+
+        readYourWrites.setCurrentClient("writer");
+        assertThat(pool.getConnection()).isSameAs(firstConnection);
+        readYourWrites.onBookChanged(null);
+        assertThat(pool.getConnection()).isSameAs(primaryConnection);
+
+        readYourWrites.setCurrentClient("reader");
+        assertThat(pool.getConnection()).isSameAs(secondConnection);
+
+        readYourWrites.clearCurrentClient();
+        assertThat(pool.getConnection()).isSameAs(firstConnection);
+    }
+
+    @Test
+    void replicaConnectionsShouldBeTracked() {
+        ReplicaPool pool = pool(null);
+
+        assertThat(ReplicaReads.track(() -> connection(pool)).fromReplica()).isTrue();
+        assertThat(ReplicaReads.track(() -> PrimaryReads.call(() -> connection(pool))).fromReplica()).isFalse();
+        assertThat(ReplicaReads.track(() -> "cached").fromReplica()).isFalse();
+    }
+
+    @Test
+    void catalogReloadsShouldReadFromPrimary() throws SQLException {
+        ReplicaPool pool = pool(null);
+
+        assertThat(PrimaryReads.call(() -> connection(pool))).isSameAs(primaryConnection);
+        assertThat(pool.getConnection()).isSameAs(firstConnection);
+    }
+
+    private static Connection connection(ReplicaPool pool) {
+        try {
+            return pool.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ReplicaPool pool(ReadYourWrites readYourWrites) {
+        ReplicaPool pool = new ReplicaPool(primary,
+                List.of(new ReplicaPool.Replica("replica-0", first), new ReplicaPool.Replica("replica-1", second)),
+                readYourWrites, Duration.ofHours(1));
+        pools.add(pool);
+        return pool;
+    }
+}
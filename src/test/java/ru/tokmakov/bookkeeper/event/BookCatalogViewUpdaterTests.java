@@ -0,0 +1,166 @@
+package ru.tokmakov.bookkeeper.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.tokmakov.bookkeeper.cache.CacheInvalidationTransport;
+import ru.tokmakov.bookkeeper.cache.LocalCacheInvalidationTransport;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookFacetDto;
+import ru.tokmakov.bookkeeper.facet.BookFacets;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookCatalogViewUpdaterTests {
+    private final Map<Long, BookDto> catalog = new TreeMap<>();
+    private final CacheInvalidationTransport transport = new LocalCacheInvalidationTransport();
+    private BookFacets facets;
+    private BookCatalogViewUpdater updater;
+
+    @BeforeEach
+    void setUp() {
+        facets = new BookFacets();
+        updater = new BookCatalogViewUpdater(new Catalog(consumer -> catalog.values().forEach(consumer)),
+                List.of(facets), transport);
+        catalog.put(1L, book(1L, "Novel", 0L));
+        updater.reload();
+    }
+
+    @AfterEach
+    void tearDown() {
+        updater.destroy();
+    }
+
+    @Test
+    void updatesDeliveredOutOfOrderShouldKeepLatestVersion() {
+        updater.onBookChanged(BookChangedEvent.updated(1L, book(1L, "Drama", 2L)));
+        updater.onBookChanged(BookChangedEvent.updated(1L, book(1L, "Poetry", 1L)));
+        updater.onBookChanged(BookChangedEvent.updated(1L, book(1L, "Poetry", 2L)));
+
+        assertThat(facets.facets(10).getGenres()).containsExactly(new BookFacetDto("Drama", 1));
+    }
+
+    @Test
+    void lateChangeShouldNotResurrectDeletedBook() {
+        updater.onBookChanged(BookChangedEvent.deleted(1L));
+        updater.onBookChanged(BookChangedEvent.updated(1L, book(1L, "Drama", 1L)));
+
+        updater.onBookChanged(BookChangedEvent.deleted(2L));
+        updater.onBookChanged(BookChangedEvent.created(book(2L, "Novel", 0L)));
+
+        assertThat(facets.facets(10).getTotal()).isZero();
+        assertThat(facets.facets(10).getGenres()).isEmpty();
+    }
+
+    @Test
+    void reloadShouldStartFromCatalogVersions() {
+        catalog.put(1L, book(1L, "Drama", 3L));
+        updater.reload();
+
+        updater.onBookChanged(BookChangedEvent.updated(1L, book(1L, "Poetry", 2L)));
+
+        assertThat(facets.facets(10).getGenres()).containsExactly(new BookFacetDto("Drama", 1));
+    }
+
+    @Test
+    void changesShouldNotWaitForReload() throws Exception {
+        CountDownLatch exporting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BookCatalogViewUpdater slowUpdater = new BookCatalogViewUpdater(new Catalog(consumer -> {
+            consumer.accept(book(1L, "Novel", 0L));
+            exporting.countDown();
+            await(release);
+        }), List.of(facets), new LocalCacheInvalidationTransport());
+
+        CompletableFuture<Void> reload = CompletableFuture.runAsync(slowUpdater::reload);
+        try {
+            assertThat(exporting.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture.runAsync(() -> slowUpdater.onBookChanged(BookChangedEvent.created(book(2L, "Drama", 0L))))
+                    .get(1, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+        }
+        reload.get(5, TimeUnit.SECONDS);
+
+        assertThat(facets.facets(10).getGenres())
+                .containsExactlyInAnyOrder(new BookFacetDto("Novel", 1), new BookFacetDto("Drama", 1));
+    }
+
+    @Test
+    void changesOnOtherNodesShouldBeReadByIdentifier() throws Exception {
+        BookFacets otherFacets = new BookFacets();
+        BookCatalogViewUpdater otherNode = new BookCatalogViewUpdater(
+                new Catalog(consumer -> catalog.values().forEach(consumer)), List.of(otherFacets), transport);
+        try {
+            otherNode.reload();
+
+            catalog.put(1L, book(1L, "Drama", 1L));
+            catalog.put(2L, book(2L, "Poetry", 0L));
+            updater.onBookChanged(BookChangedEvent.updated(1L, catalog.get(1L)));
+            updater.onBookChanged(BookChangedEvent.created(catalog.get(2L)));
+            transport.publish(1L);
+            transport.publish(2L);
+            awaitGenres(otherFacets, new BookFacetDto("Drama", 1), new BookFacetDto("Poetry", 1));
+
+            catalog.remove(2L);
+            updater.onBookChanged(BookChangedEvent.deleted(2L));
+            transport.publish(2L);
+            awaitGenres(otherFacets, new BookFacetDto("Drama", 1));
+            assertThat(facets.facets(10).getGenres()).containsExactly(new BookFacetDto("Drama", 1));
+        } finally {
+            otherNode.destroy();
+        }
+    }
+
+    private static void awaitGenres(BookFacets facets, BookFacetDto... genres) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!facets.facets(10).getGenres().equals(List.of(genres)) && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        assertThat(facets.facets(10).getGenres()).containsExactlyInAnyOrder(genres);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Каталог с полной выгрузкой из {@code export} и выгрузкой по идентификаторам из нее же.
+     */
+    private record Catalog(Consumer<Consumer<BookDto>> export) implements BookCatalogSource {
+        @Override
+        public void exportBooks(Consumer<BookDto> consumer) {
+            export.accept(consumer);
+        }
+
+        @Override
+        public void exportBooks(Collection<Long> bookIds, Consumer<BookDto> consumer) {
+            export.accept(book -> {
+                if (bookIds.contains(book.getId()))
+                    consumer.accept(book);
+            });
+        }
+    }
+
+    private static BookDto book(Long id, String genre, Long version) {
+        BookDto bookDto = new BookDto();
+        bookDto.setId(id);
+        bookDto.setTitle("Title " + id);
+        bookDto.setAuthor("Author");
+        bookDto.setGenre(genre);
+        bookDto.setVersion(version);
+        return bookDto;
+    }
+}
@@ -0,0 +1,86 @@
+package ru.tokmakov.bookkeeper.facet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookFacetDto;
+import ru.tokmakov.bookkeeper.dto.BookFacetsDto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookFacetsTests {
+    private BookFacets facets;
+
+    @BeforeEach
+    void setUp() {
+        facets = new BookFacets();
+        facets.put(book(1L, "Leo Tolstoy", "Novel"));
+        facets.put(book(2L, "Leo Tolstoy", "Novel"));
+        facets.put(book(3L, "Anthony Trollope", "Novella"));
+    }
+
+    @Test
+    void facetsShouldOrderValuesByCount() {
+        BookFacetsDto result = facets.facets(10);
+
+        assertThat(result.getTotal()).isEqualTo(3);
+        assertThat(result.getGenres()).containsExactly(
+                new BookFacetDto("Novel", 2), new BookFacetDto("Novella", 1));
+        assertThat(result.getAuthors()).containsExactly(
+                new BookFacetDto("Leo Tolstoy", 2), new BookFacetDto("Anthony Trollope", 1));
+    }
+
+    @Test
+    void facetsShouldRespectLimit() {
+        assertThat(facets.facets(1).getGenres()).containsExactly(new BookFacetDto("Novel", 2));
+    }
+
+    @Test
+    void putAndRemoveShouldUpdateCountsIncrementally() {
+        facets.put(book(2L, "Lev Tolstoy", "Novel"));
+        facets.remove(3L);
+        facets.remove(99L);
+
+        BookFacetsDto result = facets.facets(10);
+
+        assertThat(result.getTotal()).isEqualTo(2);
+        assertThat(result.getGenres()).containsExactly(new BookFacetDto("Novel", 2));
+        assertThat(result.getAuthors()).containsExactly(
+                new BookFacetDto("Leo Tolstoy", 1), new BookFacetDto("Lev Tolstoy", 1));
+    }
+
+    @Test
+    void changedCountsShouldReorderValues() {
+        facets.put(book(4L, "Anthony Trollope", "Novella"));
+        facets.put(book(5L, "Anthony Trollope", "Novella"));
+
+        assertThat(facets.facets(1).getGenres()).containsExactly(new BookFacetDto("Novella", 3));
+        assertThat(facets.facets(10).getAuthors()).containsExactly(
+                new BookFacetDto("Anthony Trollope", 3), new BookFacetDto("Leo Tolstoy", 2));
+
+        facets.remove(4L);
+
+        assertThat(facets.facets(10).getGenres()).containsExactly(
+                new BookFacetDto("Novel", 2), new BookFacetDto("Novella", 2));
+    }
+
+    @Test
+    void clearShouldResetCounts() {
+        facets.clear();
+
+        BookFacetsDto result = facets.facets(10);
+
+        assertThat(result.getTotal()).isZero();
+        assertThat(result.getGenres()).isEmpty();
+        assertThat(result.getAuthors()).isEmpty();
+    }
+
+    private static BookDto book(Long id, String author, String genre) {
+        BookDto bookDto = new BookDto();
+        bookDto.setId(id);
+        bookDto.setTitle("Title " + id);
+        bookDto.setAuthor(author);
+        bookDto.setGenre(genre);
+        return bookDto;
+    }
+}
@@ -0,0 +1,144 @@
+package ru.tokmakov.bookkeeper.idempotency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.tokmakov.bookkeeper.exception.BadRequestException;
+import ru.tokmakov.bookkeeper.exception.ConflictException;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTests {
+    private IdempotencyStore store;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore(new IdempotencyProperties());
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    void repeatedKeyShouldReturnFirstResult() {
+        assertThat(store.execute("client", "key", "request", executions::incrementAndGet)).isEqualTo(1);
+        assertThat(store.execute("client", "key", "request", executions::incrementAndGet)).isEqualTo(1);
+        assertThat(store.execute("client", "other", "request", executions::incrementAndGet)).isEqualTo(2);
+        assertThat(store.execute("client", null, "request", executions::incrementAndGet)).isEqualTo(3);
+        assertThat(store.execute("client", null, "request", executions::incrementAndGet)).isEqualTo(4);
+    }
+
+    @Test
+    void concurrentRepeatShouldWaitForFirstRequest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> store.execute("client", "key", "request", () -> {
+                started.countDown();
+                await(release);
+                return executions.incrementAndGet();
+            }), executor);
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            CompletableFuture<Integer> repeat = CompletableFuture.supplyAsync(
+                    () -> store.execute("client", "key", "request", executions::incrementAndGet), executor);
+            Thread.sleep(100);
+            assertThat(repeat).isNotDone();
+
+            release.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(repeat.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(executions).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void repeatShouldStopWaitingAfterTimeout() throws Exception {
+        IdempotencyProperties properties = new IdempotencyProperties();
+        properties.setAwaitTimeout(Duration.ofMillis(100));
+        store = new IdempotencyStore(properties);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> store.execute("client", "key", "request", () -> {
+                started.countDown();
+                await(release);
+                return executions.incrementAndGet();
+            }), executor);
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> store.execute("client", "key", "request", executions::incrementAndGet))
+                    .isInstanceOf(ConflictException.class)
+                    .hasMessageContaining("still in progress");
+
+            release.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(store.execute("client", "key", "request", executions::incrementAndGet)).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void keysShouldBeScopedByClient() {
+        assertThat(store.execute("first", "key", "request", executions::incrementAndGet)).isEqualTo(1);
+        assertThat(store.execute("second", "key", "other request", executions::incrementAndGet)).isEqualTo(2);
+        assertThat(store.execute("third", "key", "request", executions::incrementAndGet)).isEqualTo(3);
+        assertThat(store.execute("first", "key", "request", executions::incrementAndGet)).isEqualTo(1);
+    }
+
+    @Test
+    void clientsShouldNotShareKeySpaces() {
+        Principal user = () -> "alice";
+
+        assertThat(IdempotencyStore.client(user, "bob", "10.0.0.1")).isEqualTo("user:alice");
+        assertThat(IdempotencyStore.client(null, "alice", "10.0.0.1")).isEqualTo("client:alice");
+        assertThat(IdempotencyStore.client(null, null, "10.0.0.1")).isEqualTo("address:10.0.0.1");
+        assertThat(IdempotencyStore.client(null, null, "10.0.0.1"))
+                .isNotEqualTo(IdempotencyStore.client(null, null, "10.0.0.2"));
+    }
+
+    @Test
+    void failureShouldReleaseKey() {
+        assertThatThrownBy(() -> store.execute("client", "key", "request", () -> {
+            throw new IllegalStateException("Database unavailable");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(store.execute("client", "key", "request", executions::incrementAndGet)).isEqualTo(1);
+    }
+
+    @Test
+    void invalidOrReusedKeyShouldBeRejected() {
+        store.execute("client", "key", "request", executions::incrementAndGet);
+
+        assertThatThrownBy(() -> store.execute("client", "key", "other request", executions::incrementAndGet))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("different request");
+        assertThatThrownBy(() -> store.execute("client", " ", "request", executions::incrementAndGet))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> store.execute("client", "k".repeat(256), "request", executions::incrementAndGet))
+                .isInstanceOf(BadRequestException.class);
+        assertThat(executions).hasValue(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
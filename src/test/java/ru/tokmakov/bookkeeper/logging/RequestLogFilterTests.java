@@ -0,0 +1,85 @@
+package ru.tokmakov.bookkeeper.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestLogFilterTests {
+    private final Logger logger = (Logger) LoggerFactory.getLogger(RequestLogger.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final RequestLogFilter filter = new RequestLogFilter(new RequestLogProperties());
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setAdditive(true);
+    }
+
+    @Test
+    void asyncTimeoutShouldBeLoggedOnceAsServiceUnavailable() throws Exception {
+        MockAsyncContext asyncContext = startAsync("/books/changes/stream");
+
+        for (AsyncListener listener : asyncContext.getListeners())
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        asyncContext.complete();
+
+        assertThat(appender.list).singleElement()
+                .satisfies(event -> assertThat(event.getFormattedMessage())
+                        .startsWith("GET /books/changes/stream 503 "));
+    }
+
+    @Test
+    void asyncErrorShouldBeLoggedOnceAsServerError() throws Exception {
+        MockAsyncContext asyncContext = startAsync("/books/export");
+
+        for (AsyncListener listener : asyncContext.getListeners())
+            listener.onError(new AsyncEvent(asyncContext, new IOException("Broken pipe")));
+        asyncContext.complete();
+
+        assertThat(appender.list).singleElement()
+                .satisfies(event -> assertThat(event.getFormattedMessage())
+                        .startsWith("GET /books/export 500 "));
+    }
+
+    @Test
+    void completedAsyncRequestShouldBeLoggedWithResponseStatus() throws Exception {
+        MockAsyncContext asyncContext = startAsync("/books/export");
+
+        asyncContext.complete();
+
+        assertThat(appender.list).singleElement()
+                .satisfies(event -> assertThat(event.getFormattedMessage())
+                        .startsWith("GET /books/export 200 "));
+    }
+
+    private MockAsyncContext startAsync(String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> req.startAsync(req, res));
+
+        assertThat(appender.list).isEmpty();
+        return (MockAsyncContext) request.getAsyncContext();
+    }
+}
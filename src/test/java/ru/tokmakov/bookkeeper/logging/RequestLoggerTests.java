@@ -0,0 +1,85 @@
+package ru.tokmakov.bookkeeper.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestLoggerTests {
+    private final Logger logger = (Logger) LoggerFactory.getLogger(RequestLogger.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setAdditive(true);
+    }
+
+    @Test
+    void requestShouldBeLoggedAsSingleLineWithKeyValues() {
+        RequestLogger requestLogger = new RequestLogger(new RequestLogProperties());
+
+        requestLogger.log("GET", "/books/1", 200, TimeUnit.MILLISECONDS.toNanos(12));
+
+        assertThat(appender.list).singleElement().satisfies(event -> {
+            assertThat(event.getFormattedMessage()).isEqualTo("GET /books/1 200 12ms");
+            assertThat(event.getKeyValuePairs())
+                    .extracting(pair -> pair.key + "=" + pair.value)
+                    .containsExactly("method=GET", "path=/books/1", "status=200", "durationMs=12");
+        });
+    }
+
+    @Test
+    void unsampledRequestsShouldBeSkippedExceptServerErrorsAndSlowRequests() {
+        RequestLogProperties properties = new RequestLogProperties();
+        properties.setSampleRate(0);
+        properties.setSlowThreshold(Duration.ofMillis(500));
+        RequestLogger requestLogger = new RequestLogger(properties);
+
+        requestLogger.log("GET", "/books/1", 200, TimeUnit.MILLISECONDS.toNanos(10));
+        requestLogger.log("GET", "/books/2", 404, TimeUnit.MILLISECONDS.toNanos(10));
+        requestLogger.log("GET", "/books/3", 503, TimeUnit.MILLISECONDS.toNanos(10));
+        requestLogger.log("GET", "/books/4", 200, TimeUnit.MILLISECONDS.toNanos(600));
+
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+                .containsExactly("GET /books/3 503 10ms", "GET /books/4 200 600ms");
+    }
+
+    @Test
+    void sampleRateShouldLogRoughlyThatShareOfRequests() {
+        RequestLogProperties properties = new RequestLogProperties();
+        properties.setSampleRate(0.1);
+        RequestLogger requestLogger = new RequestLogger(properties);
+
+        for (int i = 0; i < 10_000; i++) {
+            requestLogger.log("GET", "/books", 200, 0);
+        }
+
+        assertThat(appender.list).hasSizeBetween(700, 1300);
+    }
+
+    @Test
+    void excludedPathsAndDisabledLogShouldBeSkipped() {
+        RequestLogProperties properties = new RequestLogProperties();
+        assertThat(new RequestLogger(properties).isExcluded("/actuator/prometheus")).isTrue();
+        assertThat(new RequestLogger(properties).isExcluded("/books")).isFalse();
+
+        properties.setEnabled(false);
+        assertThat(new RequestLogger(properties).isExcluded("/books")).isTrue();
+    }
+}
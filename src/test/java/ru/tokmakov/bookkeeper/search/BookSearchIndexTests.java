@@ -0,0 +1,107 @@
+package ru.tokmakov.bookkeeper.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookSearchHitDto;
+import ru.tokmakov.bookkeeper.exception.BadRequestException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookSearchIndexTests {
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.put(book(1L, "War and Peace", "Leo Tolstoy"));
+        index.put(book(2L, "Anna Karenina", "Leo Tolstoy"));
+        index.put(book(3L, "Peace Talks", "Jim Butcher"));
+        index.put(book(4L, "The Peace of War", "Someone Else"));
+    }
+
+    @Test
+    void parseShouldRecognizeTermsPrefixesAndPhrases() {
+        SearchQuery query = SearchQuery.parse("Tol* \"war and peace\" O'Brien leo");
+
+        assertThat(query.clauses()).containsExactly(
+                new SearchQuery.Prefix("tol"),
+                new SearchQuery.Phrase(List.of("war", "and", "peace")),
+                new SearchQuery.Phrase(List.of("o", "brien")),
+                new SearchQuery.Term("leo"));
+    }
+
+    @Test
+    void termSearchShouldRankTitleMatchesAboveAuthorMatches() {
+        index.put(book(5L, "Collected Letters", "Peace Corps"));
+
+        List<BookSearchHitDto> hits = search("peace");
+
+        assertThat(ids(hits)).hasSize(4).endsWith(5L);
+    }
+
+    @Test
+    void allTermsShouldMatch() {
+        assertThat(ids(search("leo peace"))).containsExactly(1L);
+    }
+
+    @Test
+    void prefixSearchShouldMatchAnyTermWithPrefix() {
+        assertThat(ids(search("karen*"))).containsExactly(2L);
+        assertThat(ids(search("tol*"))).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void prefixMatchingTooManyTermsShouldBeRejected() {
+        for (long i = 0; i <= BookSearchIndex.MAX_PREFIX_EXPANSIONS; i++) {
+            index.put(book(10 + i, "Volume v" + i, "Anonymous"));
+        }
+
+        assertThatThrownBy(() -> search("v*")).isInstanceOf(BadRequestException.class);
+        assertThat(ids(search("v10*"))).hasSize(2);
+    }
+
+    @Test
+    void phraseSearchShouldRequireAdjacentTermsInOrder() {
+        assertThat(ids(search("\"war and peace\""))).containsExactly(1L);
+        assertThat(ids(search("\"peace war\""))).isEmpty();
+    }
+
+    @Test
+    void searchShouldRespectLimit() {
+        assertThat(index.search(SearchQuery.parse("peace"), 2)).hasSize(2);
+    }
+
+    @Test
+    void putAndRemoveShouldReindexUpdatedAndRemoveDeletedBooks() {
+        index.put(book(2L, "Resurrection", "Leo Tolstoy"));
+
+        assertThat(search("karenina")).isEmpty();
+        assertThat(ids(search("resurrection"))).containsExactly(2L);
+
+        index.remove(1L);
+
+        assertThat(ids(search("tolstoy"))).containsExactly(2L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    private List<BookSearchHitDto> search(String query) {
+        return index.search(SearchQuery.parse(query), 10);
+    }
+
+    private static List<Long> ids(List<BookSearchHitDto> hits) {
+        return hits.stream().map(hit -> hit.getBook().getId()).toList();
+    }
+
+    private static BookDto book(Long id, String title, String author) {
+        BookDto bookDto = new BookDto();
+        bookDto.setId(id);
+        bookDto.setTitle(title);
+        bookDto.setAuthor(author);
+        bookDto.setGenre("genre");
+        return bookDto;
+    }
+}
@@ -0,0 +1,98 @@
+package ru.tokmakov.bookkeeper.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookSuggestionDto;
+import ru.tokmakov.bookkeeper.dto.BookSuggestionsDto;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookSuggestionIndexTests {
+    private BookSuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSuggestionIndex();
+        index.put(book(1L, "War and Peace", "Leo Tolstoy", "Novel"));
+        index.put(book(2L, "Anna Karenina", "Leo Tolstoy", "Novel"));
+        index.put(book(3L, "The Warden", "Anthony Trollope", "Novella"));
+    }
+
+    @Test
+    void suggestShouldOrderValuesByFrequency() {
+        BookSuggestionsDto suggestions = index.suggest("nov", 5);
+
+        assertThat(suggestions.getGenres()).containsExactly(
+                new BookSuggestionDto("Novel", 2), new BookSuggestionDto("Novella", 1));
+        assertThat(suggestions.getTitles()).isEmpty();
+    }
+
+    @Test
+    void suggestShouldMatchPrefixOfAnyWord() {
+        assertThat(index.suggest("tolst", 5).getAuthors())
+                .containsExactly(new BookSuggestionDto("Leo Tolstoy", 2));
+        assertThat(index.suggest("war", 5).getTitles())
+                .extracting(BookSuggestionDto::getValue).containsExactly("The Warden", "War and Peace");
+    }
+
+    @Test
+    void suggestShouldRespectLimit() {
+        assertThat(index.suggest("a", 1).getTitles()).hasSize(1);
+    }
+
+    @Test
+    void putAndRemoveShouldUpdateFrequenciesIncrementally() {
+        index.put(book(2L, "Anna Karenina", "Lev Tolstoy", "Novel"));
+        index.remove(1L);
+        index.remove(99L);
+
+        assertThat(index.suggest("leo", 5).getAuthors()).isEmpty();
+        assertThat(index.suggest("lev", 5).getAuthors()).containsExactly(new BookSuggestionDto("Lev Tolstoy", 1));
+        assertThat(index.suggest("nov", 5).getGenres()).containsExactly(
+                new BookSuggestionDto("Novel", 1), new BookSuggestionDto("Novella", 1));
+    }
+
+    @Test
+    void reloadShouldComputeSuggestionsWhenLoaded() {
+        index.clear();
+        index.put(book(4L, "Dune", "Frank Herbert", "Science Fiction"));
+
+        index.loaded();
+
+        assertThat(index.suggest("fic", 5).getGenres()).containsExactly(new BookSuggestionDto("Science Fiction", 1));
+    }
+
+    @Test
+    void suggestShouldStayFastOnLargeCatalog() {
+        index.clear();
+        for (long i = 0; i < 100_000; i++) {
+            index.put(book(i, "Title " + Long.toString(i * 7919, 36), "Author " + i % 5000, "Genre " + i % 50));
+        }
+        index.loaded();
+
+        String[] prefixes = {"t", "ti", "title 1", "a", "author 12", "g", "genre 4", "zz", "1", "3k"};
+        long[] latencies = new long[10_000];
+        for (int i = 0; i < latencies.length; i++) {
+            long start = System.nanoTime();
+            index.suggest(prefixes[i % prefixes.length], 10);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        long p99Micros = latencies[(int) (latencies.length * 0.99)] / 1000;
+
+        System.out.printf("Suggestion p99 latency on 100k books: %d us%n", p99Micros);
+        assertThat(p99Micros).isLessThan(10_000);
+    }
+
+    private static BookDto book(Long id, String title, String author, String genre) {
+        BookDto bookDto = new BookDto();
+        bookDto.setId(id);
+        bookDto.setTitle(title);
+        bookDto.setAuthor(author);
+        bookDto.setGenre(genre);
+        return bookDto;
+    }
+}
@@ -1,20 +1,56 @@
 package ru.tokmakov.bookkeeper.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.tokmakov.bookkeeper.cache.BookCache;
+import ru.tokmakov.bookkeeper.cache.BookCacheProperties;
+import ru.tokmakov.bookkeeper.cache.LocalCacheInvalidationTransport;
+import ru.tokmakov.bookkeeper.dto.BookBatchErrorDto;
+import ru.tokmakov.bookkeeper.dto.BookBatchResultDto;
+import ru.tokmakov.bookkeeper.dto.BookBulkResultDto;
 import ru.tokmakov.bookkeeper.dto.BookDto;
+import ru.tokmakov.bookkeeper.dto.BookFacetDto;
+import ru.tokmakov.bookkeeper.dto.BookFacetsDto;
+import ru.tokmakov.bookkeeper.dto.BookFilterDto;
+import ru.tokmakov.bookkeeper.dto.BookLookupResultDto;
+import ru.tokmakov.bookkeeper.dto.BookPageDto;
 import ru.tokmakov.bookkeeper.dto.BookSaveDto;
+import ru.tokmakov.bookkeeper.dto.BookSearchHitDto;
+import ru.tokmakov.bookkeeper.dto.BookSuggestionDto;
+import ru.tokmakov.bookkeeper.dto.BookSuggestionsDto;
+import ru.tokmakov.bookkeeper.dto.BookUpdateDto;
+import ru.tokmakov.bookkeeper.dto.BookVersionDto;
+import ru.tokmakov.bookkeeper.event.BookChangedEvent;
+import ru.tokmakov.bookkeeper.exception.BadRequestException;
 import ru.tokmakov.bookkeeper.exception.NotFoundException;
+import ru.tokmakov.bookkeeper.exception.PreconditionFailedException;
+import ru.tokmakov.bookkeeper.facet.BookFacets;
 import ru.tokmakov.bookkeeper.model.Book;
 import ru.tokmakov.bookkeeper.repository.BookRepository;
+import ru.tokmakov.bookkeeper.search.BookSearchIndex;
+import ru.tokmakov.bookkeeper.search.BookSuggestionIndex;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -24,6 +60,27 @@ class BookServiceUnitTests {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Spy
+    private BookCache bookCache = new BookCache(new BookCacheProperties(), new LocalCacheInvalidationTransport());
+
+    @Spy
+    private BookSearchIndex bookSearchIndex = new BookSearchIndex();
+
+    @Spy
+    private BookSuggestionIndex bookSuggestionIndex = new BookSuggestionIndex();
+
+    @Spy
+    private BookFacets bookFacets = new BookFacets();
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BookServiceImpl bookService;
 
@@ -53,70 +110,447 @@ class BookServiceUnitTests {
 
     @Test
     void saveBookCorrectShouldReturnBookDto() {
-        Mockito.when(bookRepository.save(Mockito.any(Book.class))).thenReturn(book);
+        Mockito.when(bookRepository.saveAndFlush(Mockito.any(Book.class))).thenReturn(book);
 
         BookDto actualBookDto = bookService.saveBook(bookSaveDto);
 
         assertThat(actualBookDto).isEqualTo(bookDto);
-        Mockito.verify(bookRepository).save(Mockito.any(Book.class));
+        Mockito.verify(bookRepository).saveAndFlush(Mockito.any(Book.class));
+        Mockito.verify(eventPublisher).publishEvent(BookChangedEvent.created(bookDto));
     }
 
     @Test
-    void findAllBooksShouldReturnPagedBooks() {
-        Book book1 = new Book();
-        book1.setId(1L);
-        book1.setTitle("Book 1");
-        book1.setAuthor("Author 1");
-        book1.setGenre("Genre 1");
+    void saveBooksShouldSaveValidBooksAndReportInvalidOnes() {
+        BookSaveDto invalid = new BookSaveDto();
+        invalid.setTitle("t");
+        invalid.setAuthor("author");
+        invalid.setGenre("genre");
 
-        Book book2 = new Book();
-        book2.setId(2L);
-        book2.setTitle("Book 2");
-        book2.setAuthor("Author 2");
-        book2.setGenre("Genre 2");
+        Mockito.when(bookRepository.saveAll(Mockito.anyList())).thenReturn(List.of(book));
 
-        List<Book> books = List.of(book1, book2);
+        BookBatchResultDto result = bookService.saveBooks(Arrays.asList(invalid, bookSaveDto, null));
 
-        Mockito.when(bookRepository.findAll()).thenReturn(books);
+        assertThat(result.getBooks()).containsExactly(bookDto);
+        assertThat(result.getErrors()).extracting(BookBatchErrorDto::getIndex).containsExactly(0, 2);
+        assertThat(result.getErrors().get(0).getMessages())
+                .containsExactly("title: Title must be between 2 and 100 characters");
+        Mockito.verify(bookRepository).saveAll(Mockito.argThat(books -> ((List<Book>) books).size() == 1));
+    }
+
+    @Test
+    void saveBooksTooLargeBatchShouldThrowBadRequestException() {
+        List<BookSaveDto> books = Collections.nCopies(BookServiceImpl.MAX_BATCH_SIZE + 1, bookSaveDto);
 
-        List<BookDto> actualBooks = bookService.findAllBooks();
+        assertThatThrownBy(() -> bookService.saveBooks(books))
+                .isInstanceOf(BadRequestException.class);
 
-        assertThat(actualBooks).hasSize(2)
+        Mockito.verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void findAllBooksShouldReturnPagedBooks() {
+        BookDto book1 = new BookDto(1L, "Book 1", "Author 1", "Genre 1", 0L, null);
+        BookDto book2 = new BookDto(2L, "Book 2", "Author 2", "Genre 2", 0L, null);
+
+        mockFindDtos(List.of(book1, book2));
+
+        BookPageDto actualPage = bookService.findAllBooks(new BookFilterDto(), "id", "asc", 2);
+
+        assertThat(actualPage.getBooks()).hasSize(2)
                 .extracting(BookDto::getTitle).containsExactly("Book 1", "Book 2");
-        Mockito.verify(bookRepository).findAll();
+        assertThat(actualPage.getNextCursor()).isNull();
+    }
+
+    @Test
+    void findAllBooksShouldReturnCursorWithSortValueWhenMoreBooksExist() {
+        BookDto book2 = new BookDto(2L, "title 2", null, null, 0L, null);
+
+        mockFindDtos(List.of(bookDto, book2));
+
+        BookPageDto page = bookService.findAllBooks(new BookFilterDto(), "title", "desc", 1);
+
+        assertThat(page.getBooks()).containsExactly(bookDto);
+        assertThat(PageCursor.parse(page.getNextCursor())).isEqualTo(new PageCursor(1L, "title", "title"));
+    }
+
+    @Test
+    void findAllBooksCursorOfOtherSortShouldThrowBadRequestException() {
+        BookFilterDto filter = new BookFilterDto();
+        filter.setCursor(PageCursor.encode(1L, "title", "title"));
+
+        assertThatThrownBy(() -> bookService.findAllBooks(filter, "author", "asc", 10))
+                .isInstanceOf(BadRequestException.class);
+
+        Mockito.verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void findAllBooksUnknownSortShouldThrowBadRequestException() {
+        assertThatThrownBy(() -> bookService.findAllBooks(new BookFilterDto(), "price", "asc", 10))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> bookService.findAllBooks(new BookFilterDto(), "id", "sideways", 10))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void findAllBooksInvalidCursorShouldThrowBadRequestException() {
+        BookFilterDto filter = new BookFilterDto();
+        filter.setCursor("not a cursor");
+
+        assertThatThrownBy(() -> bookService.findAllBooks(filter, "id", "asc", 10))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void findAllBooksTooLargePageShouldThrowBadRequestException() {
+        assertThatThrownBy(() -> bookService.findAllBooks(new BookFilterDto(), "id", "asc", BookServiceImpl.MAX_PAGE_SIZE + 1))
+                .isInstanceOf(BadRequestException.class);
+
+        Mockito.verifyNoInteractions(bookRepository);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockFindDtos(List<BookDto> books) {
+        Mockito.when(bookRepository.findDtos(Mockito.any(Specification.class), Mockito.any(Sort.class), Mockito.anyInt()))
+                .thenReturn(books);
+    }
+
+    @Test
+    void exportBooksShouldPassEveryBookToConsumerAndDetachIt() {
+        Mockito.when(bookRepository.streamAllByOrderById()).thenReturn(Stream.of(book));
+        List<BookDto> exported = new ArrayList<>();
+
+        bookService.exportBooks(exported::add);
+
+        assertThat(exported).containsExactly(bookDto);
+        Mockito.verify(entityManager).detach(book);
     }
 
     @Test
     void findBookByIdShouldReturnBookDto() {
         Long id = 1L;
-        Mockito.when(bookRepository.findById(id)).thenReturn(Optional.of(book));
+        Mockito.when(bookRepository.findDtoById(id)).thenReturn(Optional.of(bookDto));
 
         BookDto actualBookDto = bookService.findBookById(id);
 
         assertThat(actualBookDto).isEqualTo(bookDto);
-        Mockito.verify(bookRepository).findById(id);
+        Mockito.verify(bookRepository).findDtoById(id);
+    }
+
+    @Test
+    void findBookByIdShouldReadRepositoryOnlyOnce() {
+        Long id = 1L;
+        Mockito.when(bookRepository.findDtoById(id)).thenReturn(Optional.of(bookDto));
+
+        bookService.findBookById(id);
+        BookDto actualBookDto = bookService.findBookById(id);
+
+        assertThat(actualBookDto).isEqualTo(bookDto);
+        Mockito.verify(bookRepository, Mockito.times(1)).findDtoById(id);
+    }
+
+    @Test
+    void findBookVersionShouldUseCachedBook() {
+        Long id = 1L;
+        bookDto.setVersion(3L);
+        Mockito.when(bookRepository.findDtoById(id)).thenReturn(Optional.of(bookDto));
+        bookService.findBookById(id);
+
+        BookVersionDto version = bookService.findBookVersion(id);
+
+        assertThat(version.getVersion()).isEqualTo(3L);
+        Mockito.verify(bookRepository, Mockito.never()).findVersionById(id);
+    }
+
+    @Test
+    void findBookVersionShouldQueryOnlyVersionOnCacheMiss() {
+        Long id = 1L;
+        BookVersionDto expected = new BookVersionDto(2L, Instant.parse("2024-01-01T00:00:00Z"));
+        Mockito.when(bookRepository.findVersionById(id)).thenReturn(Optional.of(expected));
+
+        assertThat(bookService.findBookVersion(id)).isEqualTo(expected);
+        Mockito.verify(bookRepository, Mockito.never()).findDtoById(id);
+    }
+
+    @Test
+    void findBookVersionNotFoundShouldThrowNotFoundException() {
+        Long id = 1L;
+        Mockito.when(bookRepository.findVersionById(id)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> bookService.findBookVersion(id))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void findBooksByIdsShouldUseCacheAndReportMissing() {
+        Mockito.when(bookRepository.findDtoById(1L)).thenReturn(Optional.of(bookDto));
+        bookService.findBookById(1L);
+        BookDto book3 = new BookDto(3L, "title 3", "author", "genre", 0L, null);
+        Mockito.when(bookRepository.findDtosByIdIn(List.of(3L, 2L))).thenReturn(List.of(book3));
+
+        BookLookupResultDto result = bookService.findBooksByIds(List.of(3L, 1L, 2L, 3L));
+
+        assertThat(result.getBooks()).containsExactly(book3, bookDto);
+        assertThat(result.getMissing()).containsExactly(2L);
+        Mockito.verify(bookRepository).findDtosByIdIn(List.of(3L, 2L));
+    }
+
+    @Test
+    void findBooksByIdsShouldQueryInChunks() {
+        List<Long> ids = LongStream.rangeClosed(1, BookServiceImpl.MAX_BULK_SIZE).boxed().toList();
+        Mockito.when(bookRepository.findDtosByIdIn(Mockito.anyList())).thenReturn(List.of());
+
+        BookLookupResultDto result = bookService.findBooksByIds(ids);
+
+        assertThat(result.getMissing()).hasSize(BookServiceImpl.MAX_BULK_SIZE);
+        Mockito.verify(bookRepository, Mockito.times(BookServiceImpl.MAX_BULK_SIZE / BookServiceImpl.LOOKUP_CHUNK_SIZE))
+                .findDtosByIdIn(Mockito.argThat(chunk -> chunk.size() == BookServiceImpl.LOOKUP_CHUNK_SIZE));
+    }
+
+    @Test
+    void findBooksByIdsInvalidIdsShouldThrowBadRequestException() {
+        List<Long> tooMany = LongStream.rangeClosed(1, BookServiceImpl.MAX_BULK_SIZE + 1).boxed().toList();
+
+        assertThatThrownBy(() -> bookService.findBooksByIds(List.of()))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> bookService.findBooksByIds(tooMany))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> bookService.findBooksByIds(Arrays.asList(1L, null)))
+                .isInstanceOf(BadRequestException.class);
+
+        Mockito.verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void searchBooksShouldQueryIndexWithoutRepository() {
+        bookSearchIndex.put(bookDto);
+
+        List<BookSearchHitDto> hits = bookService.searchBooks("tit*", 10);
+
+        assertThat(hits).extracting(BookSearchHitDto::getBook).containsExactly(bookDto);
+        Mockito.verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void suggestBooksShouldQueryIndexWithoutRepository() {
+        bookSuggestionIndex.put(bookDto);
+
+        BookSuggestionsDto suggestions = bookService.suggestBooks("auth", 5);
+
+        assertThat(suggestions.getAuthors()).extracting(BookSuggestionDto::getValue).containsExactly("author");
+        Mockito.verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void suggestBooksTooLargeLimitShouldThrowBadRequestException() {
+        assertThatThrownBy(() -> bookService.suggestBooks("a", BookSuggestionIndex.MAX_SUGGESTIONS + 1))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void findFacetsShouldReadCountsWithoutRepository() {
+        bookFacets.put(bookDto);
+
+        BookFacetsDto facets = bookService.findFacets(10);
+
+        assertThat(facets.getTotal()).isEqualTo(1);
+        assertThat(facets.getGenres()).containsExactly(new BookFacetDto("genre", 1));
+        Mockito.verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void findFacetsTooLargeLimitShouldThrowBadRequestException() {
+        assertThatThrownBy(() -> bookService.findFacets(BookFacets.MAX_FACET_VALUES + 1))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void searchBooksBlankQueryShouldThrowBadRequestException() {
+        assertThatThrownBy(() -> bookService.searchBooks(" \"\" ", 10))
+                .isInstanceOf(BadRequestException.class);
     }
 
     @Test
     void findBookByIdNotFoundShouldThrowNotFoundException() {
         Long id = 1L;
-        Mockito.when(bookRepository.findById(id)).thenReturn(Optional.empty());
+        Mockito.when(bookRepository.findDtoById(id)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> bookService.findBookById(id))
                 .isInstanceOf(NotFoundException.class)
                 .hasMessage("Book with id " + id + " not found");
 
-        Mockito.verify(bookRepository).findById(id);
+        Mockito.verify(bookRepository).findDtoById(id);
+    }
+
+    @Test
+    void updateBookShouldIssueSingleUpdateWithoutReading() {
+        Long id = 1L;
+        BookUpdateDto updateDto = new BookUpdateDto();
+        updateDto.setTitle("new title");
+        bookDto.setTitle("new title");
+        bookDto.setVersion(3L);
+        Mockito.when(bookRepository.updateById(id, 2L, updateDto)).thenReturn(Optional.of(bookDto));
+
+        BookDto actualBookDto = bookService.updateBook(id, 2L, updateDto);
+
+        assertThat(actualBookDto).isEqualTo(bookDto);
+        Mockito.verify(bookRepository).updateById(id, 2L, updateDto);
+        Mockito.verifyNoMoreInteractions(bookRepository);
+        Mockito.verify(eventPublisher).publishEvent(BookChangedEvent.updated(id, bookDto));
+    }
+
+    @Test
+    void updateBookStaleVersionShouldThrowPreconditionFailedException() {
+        Long id = 1L;
+        BookUpdateDto updateDto = new BookUpdateDto();
+        updateDto.setTitle("new title");
+        Mockito.when(bookRepository.updateById(id, 2L, updateDto)).thenReturn(Optional.empty());
+        Mockito.when(bookRepository.findVersionById(id)).thenReturn(Optional.of(new BookVersionDto(3L, null)));
+
+        assertThatThrownBy(() -> bookService.updateBook(id, 2L, updateDto))
+                .isInstanceOf(PreconditionFailedException.class);
+
+        Mockito.verifyNoInteractions(eventPublisher);
     }
 
     @Test
-    void deleteBookCorrectShouldInvokeDeleteMethod() {
+    void updateBookNotFoundShouldThrowNotFoundException() {
         Long id = 1L;
-        Mockito.when(bookRepository.findById(id)).thenReturn(Optional.of(book));
+        BookUpdateDto updateDto = new BookUpdateDto();
+        updateDto.setTitle("new title");
+        Mockito.when(bookRepository.updateById(id, null, updateDto)).thenReturn(Optional.empty());
+        Mockito.when(bookRepository.findVersionById(id)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> bookService.updateBook(id, null, updateDto))
+                .isInstanceOf(NotFoundException.class);
+
+        Mockito.verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void updateBookWithoutChangesShouldNotWrite() {
+        Long id = 1L;
+        bookDto.setVersion(2L);
+        Mockito.when(bookRepository.findDtoById(id)).thenReturn(Optional.of(bookDto));
+
+        assertThat(bookService.updateBook(id, 2L, new BookUpdateDto()).getTitle()).isEqualTo("title");
+        assertThatThrownBy(() -> bookService.updateBook(id, 1L, new BookUpdateDto()))
+                .isInstanceOf(PreconditionFailedException.class);
+
+        Mockito.verify(bookRepository, Mockito.never()).updateById(Mockito.any(), Mockito.any(), Mockito.any());
+        Mockito.verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void deleteBookCorrectShouldIssueSingleDelete() {
+        Long id = 1L;
+        Mockito.when(bookRepository.deleteBookById(id)).thenReturn(1);
 
         bookService.deleteBook(id);
 
-        Mockito.verify(bookRepository).findById(id);
-        Mockito.verify(bookRepository).deleteById(book.getId());
+        Mockito.verify(bookRepository).deleteBookById(id);
+        Mockito.verifyNoMoreInteractions(bookRepository);
+        Mockito.verify(eventPublisher).publishEvent(BookChangedEvent.deleted(id));
+    }
+
+    @Test
+    void deleteBookNotFoundShouldThrowNotFoundException() {
+        Long id = 1L;
+        Mockito.when(bookRepository.deleteBookById(id)).thenReturn(0);
+
+        assertThatThrownBy(() -> bookService.deleteBook(id))
+                .isInstanceOf(NotFoundException.class);
+
+        Mockito.verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void updateBooksByIdsShouldIssueSingleUpdate() {
+        BookFilterDto filter = new BookFilterDto();
+        filter.setIds(List.of(1L, 2L));
+        BookUpdateDto updateDto = new BookUpdateDto();
+        updateDto.setGenre("new genre");
+
+        Mockito.when(bookRepository.updateAllByIdIn(Mockito.eq(List.of(1L, 2L)), Mockito.isNull(), Mockito.isNull(),
+                Mockito.eq("new genre"), Mockito.any(Instant.class))).thenReturn(2);
+        Book book2 = new Book();
+        book2.setId(2L);
+        Mockito.when(bookRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(book, book2));
+
+        BookBulkResultDto result = bookService.updateBooks(filter, updateDto);
+
+        assertThat(result.getAffected()).isEqualTo(2);
+        assertThat(result.getNextCursor()).isNull();
+        Mockito.verify(eventPublisher).publishEvent(BookChangedEvent.updated(1L, bookDto));
+        Mockito.verify(eventPublisher).publishEvent(Mockito.argThat(
+                (BookChangedEvent event) -> event.bookId().equals(2L) && event.book() != null));
+        Mockito.verify(bookRepository, Mockito.never())
+                .findIdsByFilter(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void deleteBooksByFilterShouldReturnCursorWhenLimitReached() {
+        BookFilterDto filter = new BookFilterDto();
+        filter.setAuthor("author");
+        List<Long> ids = LongStream.rangeClosed(1, BookServiceImpl.MAX_BULK_SIZE + 1).boxed().toList();
+
+        Mockito.when(bookRepository.findIdsByFilter(0L, "author", null, null, Limit.of(BookServiceImpl.MAX_BULK_SIZE + 1)))
+                .thenReturn(ids);
+        Mockito.when(bookRepository.lockIdsByIdIn(ids.subList(0, BookServiceImpl.MAX_BULK_SIZE)))
+                .thenReturn(ids.subList(0, BookServiceImpl.MAX_BULK_SIZE));
+        Mockito.when(bookRepository.deleteAllByIdIn(ids.subList(0, BookServiceImpl.MAX_BULK_SIZE)))
+                .thenReturn(BookServiceImpl.MAX_BULK_SIZE);
+
+        BookBulkResultDto result = bookService.deleteBooks(filter);
+
+        assertThat(result.getAffected()).isEqualTo(BookServiceImpl.MAX_BULK_SIZE);
+        assertThat(result.getNextCursor()).isEqualTo(PageCursor.encode((long) BookServiceImpl.MAX_BULK_SIZE));
+    }
+
+    @Test
+    void deleteBooksByIdsShouldPublishEventsOnlyForExistingBooks() {
+        BookFilterDto filter = new BookFilterDto();
+        filter.setIds(List.of(1L, 2L, 3L));
+
+        Mockito.when(bookRepository.lockIdsByIdIn(List.of(1L, 2L, 3L))).thenReturn(List.of(2L));
+        Mockito.when(bookRepository.deleteAllByIdIn(List.of(2L))).thenReturn(1);
+
+        BookBulkResultDto result = bookService.deleteBooks(filter);
+
+        assertThat(result.getAffected()).isEqualTo(1);
+        Mockito.verify(eventPublisher).publishEvent(BookChangedEvent.deleted(2L));
+        Mockito.verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void deleteBooksByIdsWithoutExistingBooksShouldNotDelete() {
+        BookFilterDto filter = new BookFilterDto();
+        filter.setIds(List.of(1L));
+
+        Mockito.when(bookRepository.lockIdsByIdIn(List.of(1L))).thenReturn(List.of());
+
+        assertThat(bookService.deleteBooks(filter).getAffected()).isZero();
+        Mockito.verify(bookRepository, Mockito.never()).deleteAllByIdIn(Mockito.any());
+        Mockito.verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void deleteBooksWithoutFilterShouldThrowBadRequestException() {
+        assertThatThrownBy(() -> bookService.deleteBooks(new BookFilterDto()))
+                .isInstanceOf(BadRequestException.class);
+
+        Mockito.verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void deleteBooksWithIdsAndConditionShouldThrowBadRequestException() {
+        BookFilterDto filter = new BookFilterDto();
+        filter.setIds(List.of(1L));
+        filter.setGenre("genre");
+
+        assertThatThrownBy(() -> bookService.deleteBooks(filter))
+                .isInstanceOf(BadRequestException.class);
+
+        Mockito.verifyNoInteractions(bookRepository);
     }
 }
\ No newline at end of file